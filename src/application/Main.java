@@ -1,6 +1,12 @@
 package application;
 	
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+
 import application.controllers.SceneController;
+import application.dal.DBConnection;
+import application.dal.DBExecutor;
 import javafx.application.Application;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
@@ -9,6 +15,19 @@ import javafx.stage.Stage;
  * Starter class that is launched upon running application
  **/
 public class Main extends Application {
+	private CompletableFuture<Void> databaseWarmUp;
+	
+	
+	/**
+	 * Starts opening the databases in the background while the JavaFX toolkit starts up
+	 **/
+	@Override
+	public void init() {
+		StartupTimer.mark("launch JVM and JavaFX");
+		this.databaseWarmUp = DBConnection.warmUpAsync();
+	}
+	
+	
 	/**
 	 * Shows the user the login page upon application start
 	 * 
@@ -18,11 +37,21 @@ public class Main extends Application {
 	public void start(Stage primaryStage) {
 		try {
 			
-			Scene scene = SceneController.getInitialScene();
+			Scene scene = StartupTimer.time("load login scene", () -> {
+				try {
+					return SceneController.getInitialScene();
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			});
 
 			primaryStage.setScene(scene);
 			primaryStage.setTitle("Journalicious");
 			primaryStage.show();
+			StartupTimer.mark("show login scene");
+			
+			// report once the journals database is also ready, which may finish after the login scene is shown
+			this.databaseWarmUp.whenComplete((result, ex) -> StartupTimer.report());
 			
 		} catch(Exception e) {
 			e.printStackTrace();
@@ -30,6 +59,15 @@ public class Main extends Application {
 	}
 	
 	
+	/**
+	 * Waits for any journal writes still running in the background before the application exits
+	 */
+	@Override
+	public void stop() {
+		DBExecutor.shutdown();
+	}
+	
+	
 	/**
 	 * Main class that launches the JavaFX application
 	 * 
@@ -0,0 +1,104 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each phase of starting the application takes, measured from when the JVM started,
+ * and prints the breakdown once startup is done. Phases may run on any thread, so phases running in
+ * parallel show up with overlapping spans.
+ */
+public class StartupTimer {
+	private static final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+	
+	private static final List<Phase> phases = new ArrayList<>();
+	private static boolean isReported = false;
+	
+	
+	/**
+	 * Times a phase of startup that has a result
+	 * 
+	 * @param name the name of the phase
+	 * @param task the work of the phase
+	 * @return the result of the phase
+	 */
+	public static <T> T time(String name, Supplier<T> task) {
+		long start = System.currentTimeMillis();
+		try {
+			return task.get();
+		} finally {
+			record(name, start, System.currentTimeMillis());
+		}
+	}
+	
+	
+	/**
+	 * Times a phase of startup
+	 * 
+	 * @param name the name of the phase
+	 * @param task the work of the phase
+	 */
+	public static void time(String name, Runnable task) {
+		time(name, () -> {
+			task.run();
+			return null;
+		});
+	}
+	
+	
+	/**
+	 * Records a point that startup has reached, as a phase spanning from the start of the JVM
+	 * 
+	 * @param name the name of the point reached
+	 */
+	public static void mark(String name) {
+		record(name, jvmStartMillis, System.currentTimeMillis());
+	}
+	
+	
+	/**
+	 * Prints every phase recorded so far in the order they started, only the first call prints anything
+	 */
+	public static synchronized void report() {
+		if (isReported) {
+			return;
+		}
+		isReported = true;
+		
+		phases.sort(Comparator.comparingLong(phase -> phase.start));
+		
+		System.out.println("Startup timing (ms since JVM start):");
+		for (Phase phase : phases) {
+			System.out.println(String.format("  %6d - %6d  %6d ms  %s [%s]", phase.start - jvmStartMillis,
+					phase.end - jvmStartMillis, phase.end - phase.start, phase.name, phase.thread));
+		}
+	}
+	
+	
+	private static synchronized void record(String name, long start, long end) {
+		phases.add(new Phase(name, Thread.currentThread().getName(), start, end));
+	}
+	
+	
+	
+	/**
+	 * A timed phase of startup
+	 */
+	private static class Phase {
+		private final String name;
+		private final String thread;
+		private final long start;
+		private final long end;
+		
+		private Phase(String name, String thread, long start, long end) {
+			this.name = name;
+			this.thread = thread;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+}
\ No newline at end of file
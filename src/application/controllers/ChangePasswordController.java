@@ -39,6 +39,8 @@ public class ChangePasswordController extends SceneController implements Initial
 	
 	private boolean isSecurityQuestionSelected;
 	private String securityQuestion;
+	// whether a submission is waiting on the password to be checked or stored in the background
+	private boolean isSubmitting;
 	
 	
 	/**
@@ -47,6 +49,7 @@ public class ChangePasswordController extends SceneController implements Initial
 	public ChangePasswordController() {
 		this.isSecurityQuestionSelected = false;
 		this.securityQuestion = null;
+		this.isSubmitting = false;
 	}
 	
 	
@@ -64,6 +67,24 @@ public class ChangePasswordController extends SceneController implements Initial
 	}
 	
 	
+	/**
+	 * Clears the form each time the page is shown
+	 */
+	@Override
+	protected void onViewShown() {
+		prevPasswordField.setText("");
+		newPasswordField.setText("");
+		confirmPasswordField.setText("");
+		securityQuestionAnswerField.setText("");
+		errorMsgLbl.setText("");
+		
+		securityQuestionChoiceBox.setValue(null);
+		this.isSecurityQuestionSelected = false;
+		this.securityQuestion = null;
+		this.isSubmitting = false;
+	}
+	
+	
 	/** 
 	 * Handles logic for the selection of a security question
 	 * from the choice box
@@ -88,13 +109,41 @@ public class ChangePasswordController extends SceneController implements Initial
 	 * @param e an event given by some user action on the application
 	 */
 	public void handleSubmit(ActionEvent e) {
+		// ignore submissions made while the last one is still being processed
+		if (this.isSubmitting) {
+			return;
+		}
+		
+		// checking the previous password is deliberately slow, so it runs in the background
+		this.isSubmitting = true;
+		String prevPassword = prevPasswordField.getText();
+		super.getPasswordModel().isCorrectPasswordAsync(prevPassword).whenCompleteAsync((prevPasswordIsCorrect, ex) -> {
+			if (ex != null) {
+				System.out.println("Failed to check password!");
+				ex.printStackTrace();
+				this.isSubmitting = false;
+				return;
+			}
+			
+			this.submitIfValid(e, prevPasswordIsCorrect);
+		}, FX_THREAD);
+	}
+	
+	
+	/**
+	 * Validates the rest of the change password form and submits it
+	 * 
+	 * @param e an event given by some user action on the application
+	 * @param prevPasswordIsCorrect whether the user entered their previous password correctly
+	 */
+	private void submitIfValid(ActionEvent e, boolean prevPasswordIsCorrect) {
 		// get user and password model
 		UserModel userModel = super.getUserModel();
 		PasswordModel passwordModel = super.getPasswordModel();
+		this.isSubmitting = false;
 		
 		// check if previous password was incorrect
-		String prevPassword = prevPasswordField.getText();
-		if (!passwordModel.isCorrectPassword(prevPassword)) {
+		if (!prevPasswordIsCorrect) {
 			errorMsgLbl.setText("Error: Previous password was incorrect! Please try again.");
 			return;
 		}
@@ -127,13 +176,24 @@ public class ChangePasswordController extends SceneController implements Initial
 		}
 		
 		
-		// submit fields' data to "DB" (stored in model object's state for now)
-		userModel.setSecurityQuestion(this.securityQuestion);
-		userModel.setSecurityQuestionAnswer(securityQuestionAnswer);
-		passwordModel.setPassword(newPassword);
-		
-		// redirect to home page
-		super.switchToView(e, View.HOME, View.CHANGE_PASSWORD);
+		// store the security question and then the new password in one background task,
+		// redirecting to home page only once both are stored
+		String securityQuestion = this.securityQuestion;
+		this.isSubmitting = true;
+		passwordModel.setPasswordAsync(newPassword, () -> {
+			userModel.setSecurityQuestion(securityQuestion);
+			userModel.setSecurityQuestionAnswer(securityQuestionAnswer);
+		}).whenCompleteAsync((result, ex) -> {
+			this.isSubmitting = false;
+			
+			if (ex != null) {
+				System.out.println("Failed to change password!");
+				ex.printStackTrace();
+				return;
+			}
+			
+			super.switchToView(e, View.HOME, View.CHANGE_PASSWORD);
+		}, FX_THREAD);
 	}
 	
 	
@@ -4,12 +4,14 @@ import java.net.URL;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 import application.models.JournalModel;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Spinner;
@@ -49,6 +51,7 @@ public class CreateController extends SceneController implements Initializable {
 	@FXML private Spinner<Integer> hourSpinner;
 	@FXML private Spinner<Integer> minuteSpinner;
 	@FXML private TextArea journalContextArea;	
+	@FXML private Button saveBtn;
 	
 	private JournalModel journal;
 	
@@ -62,8 +65,7 @@ public class CreateController extends SceneController implements Initializable {
 	
 	
 	/**
-	 * Initializes the page's fields and autofills each field
-	 * with the default value
+	 * Initializes the page's fields
 	 * 
 	 * @param location the location of a file or directory
 	 * @param resources the resources required to locate the root element
@@ -75,15 +77,29 @@ public class CreateController extends SceneController implements Initializable {
 		this.addFocusLostEventListener(hourSpinner);
 		this.addFocusLostEventListener(minuteSpinner);
 		
-		// set the limits of the hour and minute spinners
-		SpinnerValueFactory<Integer> hourValueFactory = this.createTimeSpinnerValueFactory(0, 23);
-		SpinnerValueFactory<Integer> minuteValueFactory = this.createTimeSpinnerValueFactory(0, 59);
-		
 		// set wrapping on context TextArea
 		journalContextArea.setWrapText(true);
+	}
+	
+	
+	/**
+	 * Autofills each field with the default value each time the page is shown,
+	 * the Edit Page then fills them in with the journal entry being edited
+	 */
+	@Override
+	protected void onViewShown() {
+		this.journal = null;
+		saveBtn.setDisable(false);
 		
+		// set the limits of the hour and minute spinners
+		SpinnerValueFactory<Integer> hourValueFactory = this.createTimeSpinnerValueFactory(0, 23);
+		SpinnerValueFactory<Integer> minuteValueFactory = this.createTimeSpinnerValueFactory(0, 59);
 		
 		// autofill the field values to the default values
+		// autofill the title and context
+		titleField.setText("");
+		journalContextArea.setText("");
+		
 		// autofill the date
 		datePicker.setValue(LocalDate.now());
 		
@@ -237,17 +253,30 @@ public class CreateController extends SceneController implements Initializable {
 		LocalDate enteredDate = datePicker.getValue();
 		String date = enteredDate.toString();
 		
+		// prevent saving twice while the save runs in the background
+		saveBtn.setDisable(true);
+		
 		// update DB
+		CompletableFuture<Void> pendingSave;
 		if (this.journal == null) {
 			// create new journal
-			JournalModel.createJournal(title, date, hour, minute, context);
+			pendingSave = JournalModel.createJournalAsync(title, date, hour, minute, context);
 		}
 		else {
 			// update journal model and DB
-			this.journal.updateSelf(title, date, hour, minute, context);
+			pendingSave = this.journal.updateSelfAsync(title, date, hour, minute, context);
 		}
 		
-		// switch to home page
-		super.switchToPrevView(e, View.CREATE);
+		// switch to home page once the journal is saved
+		pendingSave.whenCompleteAsync((result, ex) -> {
+			if (ex != null) {
+				System.out.println("Failed to save journal entry!");
+				ex.printStackTrace();
+				saveBtn.setDisable(false);
+				return;
+			}
+			
+			super.switchToPrevView(e, View.CREATE);
+		}, FX_THREAD);
 	}	
 }
@@ -1,5 +1,6 @@
 package application.controllers;
 
+import application.models.Session;
 import javafx.event.ActionEvent;
 
 /**
@@ -13,6 +14,8 @@ public class HomeController extends SceneController {
 	 * @param e An event given by some user action on the application.
 	 */
 	public void switchToLogin(ActionEvent e) {
+		// logging out ends the session, the login page starts the next one
+		Session.end();
 		super.switchToView(e, View.LOGIN, View.HOME);
 	}
 	
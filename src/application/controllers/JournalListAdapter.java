@@ -0,0 +1,129 @@
+package application.controllers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import application.models.JournalSummary;
+import javafx.collections.ObservableList;
+
+/**
+ * Keeps an ObservableList of journal summaries in step with fresh query results by applying
+ * only the inserts, removals and replacements needed, so a ListView never rebuilds every cell
+ * because of a small change. Must only be used on the JavaFX Application Thread.
+ */
+class JournalListAdapter {
+	private final ObservableList<JournalSummary> items;
+	
+	
+	/**
+	 * Creates an adapter that updates a given list
+	 * 
+	 * @param items the observable list shown by a ListView
+	 */
+	JournalListAdapter(ObservableList<JournalSummary> items) {
+		this.items = items;
+	}
+	
+	
+	/**
+	 * Makes the list equal to a new set of results with as few list changes as possible
+	 * 
+	 * @param results the journal summaries the list should contain, in display order
+	 */
+	void applyResults(List<JournalSummary> results) {
+		// remove every journal that is no longer a result in a single change
+		Set<Integer> resultIDs = new HashSet<>();
+		for (JournalSummary result : results) {
+			resultIDs.add(result.getID());
+		}
+		
+		List<JournalSummary> removed = new ArrayList<>();
+		Set<Integer> presentIDs = new HashSet<>();
+		for (JournalSummary item : this.items) {
+			if (resultIDs.contains(item.getID())) {
+				presentIDs.add(item.getID());
+			}
+			else {
+				removed.add(item);
+			}
+		}
+		this.items.removeAll(removed);
+		
+		// walk the results, every remaining item is a result so the lists line up by the end
+		for (int i = 0; i < results.size(); i++) {
+			JournalSummary result = results.get(i);
+			
+			if (i < this.items.size() && this.items.get(i).getID() == result.getID()) {
+				// same journal in the same place, only touch it if its contents changed
+				if (!this.items.get(i).equals(result)) {
+					this.items.set(i, result);
+				}
+				continue;
+			}
+			
+			// the journal moved, take it out of its old place before inserting it here
+			if (presentIDs.contains(result.getID())) {
+				this.removeByID(result.getID(), i + 1);
+			}
+			this.items.add(i, result);
+		}
+	}
+	
+	
+	/**
+	 * Removes deleted journals from the list
+	 * 
+	 * @param ids the ids of the deleted journals
+	 */
+	void applyDeleted(Collection<Integer> ids) {
+		Set<Integer> deletedIDs = new HashSet<>(ids);
+		
+		List<JournalSummary> removed = new ArrayList<>();
+		for (JournalSummary item : this.items) {
+			if (deletedIDs.contains(item.getID())) {
+				removed.add(item);
+			}
+		}
+		
+		if (!removed.isEmpty()) {
+			this.items.removeAll(removed);
+		}
+	}
+	
+	
+	/**
+	 * Checks whether any of a number of journals is in the list
+	 * 
+	 * @param ids the ids of the journals
+	 * @return true if the list has a journal with one of the ids
+	 */
+	boolean containsAny(Collection<Integer> ids) {
+		Set<Integer> searchedIDs = new HashSet<>(ids);
+		for (JournalSummary item : this.items) {
+			if (searchedIDs.contains(item.getID())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Removes the journal with a given id, searching from a given index onwards
+	 * 
+	 * @param id the id of the journal to remove
+	 * @param fromIndex the index to start searching at
+	 */
+	private void removeByID(int id, int fromIndex) {
+		for (int i = fromIndex; i < this.items.size(); i++) {
+			if (this.items.get(i).getID() == id) {
+				this.items.remove(i);
+				return;
+			}
+		}
+	}
+
+}
\ No newline at end of file
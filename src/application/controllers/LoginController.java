@@ -1,12 +1,8 @@
 package application.controllers;
 
-import java.net.URL;
-import java.util.ResourceBundle;
-
 import application.models.PasswordModel;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.Initializable;
 import javafx.scene.control.Button;
 import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
@@ -18,7 +14,7 @@ import javafx.scene.input.KeyEvent;
  * Controller for the login page, initialized on startup
  * 
  */
-public class LoginController extends SceneController implements Initializable {
+public class LoginController extends SceneController {
 	@FXML private TextField passwordField;
 	@FXML private Label errorMsgLbl;
 	@FXML private Button loginBtn;
@@ -31,11 +27,42 @@ public class LoginController extends SceneController implements Initializable {
 	 * @param e an event given by some user action on the application
 	 */
 	public void handleLoginAttempt(ActionEvent e) {		
+		// ignore attempts made while the last one is still being checked
+		if (loginBtn.isDisabled()) {
+			return;
+		}
+		
 		PasswordModel passwordModel = super.getPasswordModel();
 		String enteredPassword = passwordField.getText();
 		
-		boolean passwordIsCorrect = passwordModel.isCorrectPassword(enteredPassword);
+		// checking the password is deliberately slow, so it runs in the background
+		loginBtn.setDisable(true);
+		passwordModel.isCorrectPasswordAsync(enteredPassword).whenCompleteAsync((passwordIsCorrect, ex) -> {
+			loginBtn.setDisable(false);
+			
+			if (ex != null) {
+				System.out.println("Failed to check password!");
+				ex.printStackTrace();
+				return;
+			}
+			
+			this.handleLoginResult(e, passwordModel, passwordIsCorrect);
+		}, FX_THREAD);
+	}
+	
+	
+	/**
+	 * Logs the user in if they entered the correct password, otherwise asks them to try again
+	 * 
+	 * @param e an event given by some user action on the application
+	 * @param passwordModel the PasswordModel representing the user's current password
+	 * @param passwordIsCorrect whether the user entered the correct password
+	 */
+	private void handleLoginResult(ActionEvent e, PasswordModel passwordModel, boolean passwordIsCorrect) {
 		if (passwordIsCorrect) {
+			// load the views reachable from here on while the user looks at the first one
+			SceneController.preloadViewsAsync();
+			
 			// first time users must go to change password
 			if (passwordModel.isFirstTimeUser()) {
 				super.switchToView(e, View.CHANGE_PASSWORD, View.LOGIN);
@@ -95,15 +122,17 @@ public class LoginController extends SceneController implements Initializable {
 	
 	
 	/**
-	 * Updates UI according to user status on page startup
-	 * 
-	 * @param location the location of a file or directory
-	 * @param resources the resources required to locate the root element
+	 * Clears the page and updates UI according to user status each time the page is shown
 	 */
 	@Override
-	public void initialize(URL location, ResourceBundle resources) {
+	protected void onViewShown() {
 		PasswordModel passwordModel = super.getPasswordModel();
 		
+		passwordField.setText("");
+		errorMsgLbl.setText("");
+		forgotPasswordLink.setVisible(true);
+		loginBtn.setDisable(false);
+		
 		// if first time user, hide reset password and remind them about default password
 		if (passwordModel.isFirstTimeUser()) {
 			forgotPasswordLink.setVisible(false);
@@ -1,13 +1,9 @@
 package application.controllers;
 
-import java.net.URL;
-import java.util.ResourceBundle;
-
 import application.models.PasswordModel;
 import application.models.UserModel;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.Initializable;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
@@ -17,22 +13,29 @@ import javafx.scene.input.KeyEvent;
  * Controller for the "Reset Password" screen.
  * 
  */
-public class ResetPasswordController extends SceneController implements Initializable {
+public class ResetPasswordController extends SceneController {
 	@FXML private Label securityQuestionLbl;
 	@FXML private Label errorMsgLbl;
 	@FXML private TextField newPasswordField;
 	@FXML private TextField confirmPasswordField;
 	@FXML private TextField securityQuestionAnswerField;
 	
+	// whether the new password is being hashed and stored in the background
+	private boolean isSubmitting = false;
+	
 	
 	/**
-	 * Initializes the security question label with the user's selected security question
-	 *   
-	 * @param location the location of a file or directory
-	 * @param resources the resources required to locate the root element
+	 * Clears the form and updates the security question label with the user's selected security question
+	 * each time the page is shown
 	 */
 	@Override
-	public void initialize(URL location, ResourceBundle resources) {
+	protected void onViewShown() {
+		newPasswordField.setText("");
+		confirmPasswordField.setText("");
+		securityQuestionAnswerField.setText("");
+		errorMsgLbl.setText("");
+		this.isSubmitting = false;
+		
 		// fetch security question
 		UserModel user = super.getUserModel();
 		String securityQuestion = user.getSecurityQuestion();
@@ -58,6 +61,11 @@ public class ResetPasswordController extends SceneController implements Initiali
 	 * @param e an event given by some user action on the application.
 	 */
 	public void handleSubmit(ActionEvent e) {
+		// ignore submissions made while the new password is still being stored
+		if (this.isSubmitting) {
+			return;
+		}
+		
 		UserModel user = super.getUserModel();
 		PasswordModel passwordModel = super.getPasswordModel();
 								
@@ -82,11 +90,19 @@ public class ResetPasswordController extends SceneController implements Initiali
 			return;
 		}
 		
-		// update DB
-		passwordModel.setPassword(newPassword);
-		
-		// switch to home view
-		super.switchToView(e, View.HOME, View.RESET_PASSWORD);
+		// update DB, switching to home view once the new password is hashed and stored
+		this.isSubmitting = true;
+		passwordModel.setPasswordAsync(newPassword).whenCompleteAsync((result, ex) -> {
+			this.isSubmitting = false;
+			
+			if (ex != null) {
+				System.out.println("Failed to reset password!");
+				ex.printStackTrace();
+				return;
+			}
+			
+			super.switchToView(e, View.HOME, View.RESET_PASSWORD);
+		}, FX_THREAD);
 	}
 	
 	
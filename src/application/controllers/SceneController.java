@@ -1,59 +1,51 @@
 package application.controllers;
 
-import java.io.File;
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import application.models.JournalModel;
+import application.models.JournalSummary;
 import application.models.PasswordModel;
+import application.models.Session;
 import application.models.UserModel;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Scene;
-import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
 /**
  * Parent class for all scene controllers
- * provides access to a user model that persists through application's lifetime
+ * provides access to the user and password models of the user's session
  */
 public class SceneController {
-	private static final String viewPackagePath = "resources/views/";
+	private static final String editViewFile = "Edit.fxml";
+	
+	// runs the continuations of background DB work back on the JavaFX Application Thread
+	protected static final Executor FX_THREAD = Platform::runLater;
 	
 	// static class variable to avoid being reset upon re-instantiation
 	private static View prevView;
 	
-	private UserModel userModel;
-	private PasswordModel passwordModel;
-	
-	
-	/**
-	 * Creates new SceneController
-	 */
-	public SceneController() {
-		this.userModel = new UserModel();
-		this.passwordModel = new PasswordModel();
-	}
-	
 	
 	/**
-	 * Gets the UserModel representing the user's info
+	 * Gets the UserModel representing the user's info, shared by every controller of the session
 	 * 
 	 * @return a UserModel representing the user's info
 	 */
 	public UserModel getUserModel() {
-		return this.userModel;
+		return Session.getCurrent().getUserModel();
 	}
 	
 	
 	/**
-	 * Gets the PasswordModel representing the user's password
+	 * Gets the PasswordModel representing the user's password, shared by every controller of the session
 	 * 
 	 * @return a PasswordModel representing the user's password
 	 */
 	public PasswordModel getPasswordModel() {
-		return this.passwordModel;
+		return Session.getCurrent().getPasswordModel();
 	}
 
 	
@@ -81,17 +73,24 @@ public class SceneController {
 	 * Gets the initial login scene for the application
 	 * 
 	 * @return the login scene of the application
-	 * @throws MalformedURLException an exception indicating that the login view's URL was invalid
 	 * @throws IOException an exception indicating that the loginView's fxml file does not exist
 	 */
-	public static Scene getInitialScene() throws MalformedURLException, IOException {		
-		// get the Login View from local files and create scene
-		String loginViewPath = viewPackagePath + View.LOGIN.getValue();
-		File loginView = new File(loginViewPath);
-		BorderPane root = FXMLLoader.load(loginView.toURI().toURL());
+	public static Scene getInitialScene() throws IOException {
+		// get the Login View from the cache of views, loading it from local files
+		ViewCache.CachedView loginView = ViewCache.get(View.LOGIN.getValue());
+		loginView.getController().onViewShown();
 		
-		Scene scene = new Scene(root, 600, 400);
-		return scene;
+		return loginView.getScene();
+	}
+	
+	
+	/**
+	 * Loads every view reachable once logged in, in the background,
+	 * so that switching to them does not wait on parsing their fxml
+	 */
+	protected static void preloadViewsAsync() {
+		ViewCache.preloadAsync(View.HOME.getValue(), View.SEARCH.getValue(), View.CREATE.getValue(),
+				editViewFile, View.CHANGE_PASSWORD.getValue());
 	}
 	
 
@@ -106,14 +105,12 @@ public class SceneController {
 		try {
 			setPrevView(prevView);
 			
-			// load the view from fxml file and create new scene
-			String viewPath = viewPackagePath + view.getValue();
-			File viewFile = new File(viewPath);
-			BorderPane root = FXMLLoader.load(viewFile.toURI().toURL());
+			// get the view from the cache, loading it from fxml file if it is not yet
+			ViewCache.CachedView cachedView = ViewCache.get(view.getValue());
+			cachedView.getController().onViewShown();
 			
 			// set scene on stage
-			Scene scene = new Scene(root);
-			this.updateStageScene(e, scene);
+			this.updateStageScene(e, cachedView.getScene());
 			
 		} catch (IOException ex) {
 			System.out.println("Failed to switch scene");
@@ -126,27 +123,45 @@ public class SceneController {
 	/**
 	 * Handles the logic for switching from the Search Page to the Edit Page.
 	 * This separate method is needed because Edit is a special case of the Create Page.
+	 * The full context of the journal entry is only loaded from the DB at this point, in the background.
+	 * 
+	 * @param e an event given by some user action on the application 
+	 * @param summary the summary of the journal entry to populate the edit page with
+	 * @return a future completed once the Edit Page is shown, or the entry turned out to be deleted
+	 */
+	protected CompletableFuture<Void> switchToEditView(ActionEvent e, JournalSummary summary) {
+		return summary.loadJournalAsync().thenAcceptAsync(journal -> {
+			// the entry may have been deleted since it was listed
+			if (journal == null) {
+				System.out.println("Journal entry " + summary.getID() + " no longer exists!");
+			}
+			else {
+				this.showEditView(e, journal);
+			}
+		}, FX_THREAD);
+	}
+	
+	
+	/**
+	 * Shows the Edit Page populated with a fully loaded journal entry
 	 * 
 	 * @param e an event given by some user action on the application 
 	 * @param journal the journal entry to populate the edit page with
 	 */
-	protected void switchToEditView(ActionEvent e, JournalModel journal) {
+	private void showEditView(ActionEvent e, JournalModel journal) {
 		try {
 			setPrevView(View.SEARCH);
 			
-			// load the view from fxml file and create new scene
-			String viewPath = viewPackagePath + "Edit.fxml";
-			File viewFile = new File(viewPath);
-			FXMLLoader loader = new FXMLLoader(viewFile.toURI().toURL());
-			BorderPane root = loader.load();
+			// get the view from the cache, loading it from fxml file if it is not yet
+			ViewCache.CachedView cachedView = ViewCache.get(editViewFile);
 			
 			// initalize the journal data on the page
-			CreateController controller = loader.getController();
+			CreateController controller = (CreateController) cachedView.getController();
+			controller.onViewShown();
 			controller.initializeOldJournal(journal);
 			
 			// set scene on stage
-			Scene scene = new Scene(root);
-			this.updateStageScene(e, scene);
+			this.updateStageScene(e, cachedView.getScene());
 			
 		} catch (IOException ex) {
 			System.out.println("Failed to switch scene");
@@ -163,6 +178,8 @@ public class SceneController {
 	 * @param scene the scene to be shown on the stage
 	 */
 	private void updateStageScene(ActionEvent e, Scene scene) {
+		this.onViewHidden();
+		
 		// Get event source so primary stage can be retrieved
 		// then show the new scene on the stage
 		Node source = (Node) e.getSource();
@@ -172,6 +189,22 @@ public class SceneController {
 	}
 	
 	
+	/**
+	 * Called just before this controller's view is shown on the stage, including the first time.
+	 * Views are cached and reused, so controllers override it to reset what was left on the view by the last visit.
+	 */
+	protected void onViewShown() {
+	}
+	
+	
+	/**
+	 * Called just before this controller's view is replaced on the stage,
+	 * controllers override it to release anything they hold while shown
+	 */
+	protected void onViewHidden() {
+	}
+	
+	
 	/**
 	 * Handles the logic for switching to the view that
 	 * the user was previously on
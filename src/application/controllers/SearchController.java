@@ -1,10 +1,17 @@
 package application.controllers;
 
 import java.net.URL;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
 
+import application.dal.QueryCancellation;
+import application.models.JournalChange;
+import application.models.JournalChangeListener;
 import application.models.JournalModel;
+import application.models.JournalSummary;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -15,6 +22,7 @@ import javafx.geometry.Insets;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.TextField;
 import javafx.scene.control.Toggle;
@@ -25,63 +33,184 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
+import javafx.util.Duration;
 
 /**
  * Controller for the "Search" screen.
  */
 public class SearchController extends SceneController implements Initializable {
+	// how long typing must pause before the search runs, in milliseconds
+	private static final Duration SEARCH_DEBOUNCE = Duration.millis(Integer.getInteger("journalicious.search.debounce", 200));
+	
 	@FXML TextField searchTextField;
-	@FXML ListView<JournalModel> journalListView;
+	@FXML ListView<JournalSummary> journalListView;
+	@FXML ProgressIndicator loadingIndicator;
 	
-	private ObservableList<JournalModel> journalsObsList;
+	private ObservableList<JournalSummary> journalsObsList;
+	private JournalListAdapter journalsAdapter;
+	// every journal, of which only the rows near the viewport are loaded
+	private WindowedJournalList allJournals;
 	private ToggleGroup radioBtnToggleGroup;
 	
+	// incremented by every search so that results of superseded searches are dropped
+	private int searchGeneration;
+	// the keyword of the search currently listed, empty when listing every journal
+	private String listedKeyword;
+	// cancels the keyword search still running, if any
+	private QueryCancellation runningSearch;
+	private final PauseTransition searchDebounce;
+	private final JournalChangeListener journalChangeListener = this::handleJournalChange;
+	
 	
 	/**
 	 * Constructs a SearchController object
 	 */
 	public SearchController() {
 		this.journalsObsList = FXCollections.observableArrayList();
+		this.journalsAdapter = new JournalListAdapter(this.journalsObsList);
+		this.allJournals = new WindowedJournalList();
 		this.radioBtnToggleGroup = new ToggleGroup();
+		this.searchGeneration = 0;
+		this.listedKeyword = "";
+		this.runningSearch = null;
+		
+		// search once typing pauses, rather than on every keystroke
+		this.searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+		this.searchDebounce.setOnFinished(event -> listJournals(searchTextField.getText()));
 	}
 	
 	
 	/**
-	 * Initializes the page's fields and autofills each field
-	 * with the default value
+	 * Initializes the page's fields
 	 * 
 	 * @param location the location of a file or directory
 	 * @param resources the resources required to locate the root element
 	 */
 	@Override
 	public void initialize(URL location, ResourceBundle resources) {		
-		// add all journals to journalListView
-		this.populateJournals();
-		
 		// provide journalListView with an overridden cell factory
 		// that defines content and styling for each cell of the list
 		journalListView.setCellFactory(param -> new JournalCell());
 		
 		// disable the default focusing behavior when clicking a cell
 		journalListView.setFocusTraversable(false);
+		
+		// search as the user types, dropping the search for the previous text straight away
+		searchTextField.textProperty().addListener((observable, oldText, newText) -> {
+			this.cancelRunningSearch();
+			this.searchDebounce.playFromStart();
+		});
+	}
+	
+	
+	/**
+	 * Clears the search left from the last visit and lists every journal each time the page is shown
+	 */
+	@Override
+	protected void onViewShown() {
+		// clearing the search field starts a search, which is superseded by listing every journal below
+		searchTextField.setText("");
+		this.searchDebounce.stop();
+		
+		this.radioBtnToggleGroup.selectToggle(null);
+		journalListView.getSelectionModel().clearSelection();
+		journalListView.scrollTo(0);
+		
+		// add all journals to journalListView
+		this.populateJournals();
+		
+		// keep the list in step with journals changed while this page is shown
+		JournalModel.addChangeListener(this.journalChangeListener);
+	}
+	
+	
+	/**
+	 * Stops listening for journal changes once the user leaves the page
+	 */
+	@Override
+	protected void onViewHidden() {
+		JournalModel.removeChangeListener(this.journalChangeListener);
+		
+		this.searchDebounce.stop();
+		this.cancelRunningSearch();
+	}
+	
+	
+	/**
+	 * Updates the listed journals after journals are changed in the DB, called on the thread that wrote them
+	 * 
+	 * @param change the journals that changed and how
+	 */
+	private void handleJournalChange(JournalChange change) {
+		Platform.runLater(() -> {
+			if (this.listedKeyword.equals("")) {
+				// only the loaded rows are touched, reading again just the blocks the change leaves out of date
+				switch (change.getType()) {
+					case CREATED:
+						this.allJournals.insertJournals(change.getIDs());
+						break;
+					case UPDATED:
+						this.allJournals.reloadJournals(change.getIDs());
+						break;
+					case DELETED:
+						this.allJournals.removeJournals(change.getIDs());
+						break;
+				}
+			}
+			else if (change.getType() == JournalChange.Type.DELETED) {
+				// deleting can only remove results, so there is nothing to re-query
+				this.journalsAdapter.applyDeleted(change.getIDs());
+			}
+			else if (this.journalsAdapter.containsAny(change.getIDs())) {
+				// a listed journal that was updated may have stopped matching or moved among the results
+				this.listJournals(this.listedKeyword);
+			}
+			else {
+				this.listJournalsIfMatched(change.getIDs());
+			}
+		});
+	}
+	
+	
+	/**
+	 * Runs the listed search again if searching for it could find any of a number of created or updated journals
+	 * that are not listed, since a journal that cannot match leaves the results as they are
+	 * 
+	 * @param ids the ids of the journals
+	 */
+	private void listJournalsIfMatched(List<Integer> ids) {
+		int generation = this.searchGeneration;
+		String keyword = this.listedKeyword;
+		
+		JournalModel.mayMatchAsync(ids, keyword).whenCompleteAsync((mayMatch, ex) -> {
+			// a newer search already lists the journals as they are now
+			if (generation != this.searchGeneration) {
+				return;
+			}
+			
+			if (ex != null) {
+				System.out.println("Failed to load journal entries!");
+				ex.printStackTrace();
+			}
+			if (ex != null || mayMatch) {
+				this.listJournals(keyword);
+			}
+		}, FX_THREAD);
 	}
 	
 	
 	private void populateJournals() {
-		// add all journals to the observation list
+		// list all journals, loading them as they are scrolled into view
 		resetJournalsObsList();
-		
-		// populate the listView with observable list
-		journalListView.setItems(this.journalsObsList);
 	}
 	
 	
-	private JournalModel getToggledJournal() {
+	private JournalSummary getToggledJournal() {
 		RadioButton selectedRadioBtn = (RadioButton) this.radioBtnToggleGroup.getSelectedToggle();
 		
-		JournalModel journal = null;
+		JournalSummary journal = null;
 		if (selectedRadioBtn != null) {
-			journal = (JournalModel) selectedRadioBtn.getUserData();
+			journal = (JournalSummary) selectedRadioBtn.getUserData();
 		}
 		
 		return journal;
@@ -94,19 +223,16 @@ public class SearchController extends SceneController implements Initializable {
 	 * @param e An event given by some user action on the application
 	 */
 	public void handleDelete(ActionEvent e) {
-		JournalModel journal = getToggledJournal();
+		JournalSummary journal = getToggledJournal();
 		
 		if (journal != null) {
-			// delete journal from db
-			journal.deleteSelf();
-			
-			// update observable list to reflect deletion
-			this.journalsObsList.remove(journal);
-			// refresh list view to reflect deletion
-			this.journalListView.refresh();
-			
 			// uncheck the radio button
 			this.radioBtnToggleGroup.selectToggle(null);
+			
+			// delete journal from db in the background,
+			// the list is updated by the change event that the deletion publishes
+			this.loadingIndicator.setVisible(true);
+			journal.deleteSelfAsync().whenCompleteAsync((result, ex) -> this.loadingIndicator.setVisible(false), FX_THREAD);
 		}
 	}
 	
@@ -120,7 +246,7 @@ public class SearchController extends SceneController implements Initializable {
 		Toggle selectedRadioBtn = this.radioBtnToggleGroup.getSelectedToggle();
 		
 		if (selectedRadioBtn != null) {
-			JournalModel journal = (JournalModel) selectedRadioBtn.getUserData();
+			JournalSummary journal = (JournalSummary) selectedRadioBtn.getUserData();
 			super.switchToEditView(e, journal);	
 		}
 	}
@@ -137,8 +263,8 @@ public class SearchController extends SceneController implements Initializable {
 	
 	
 	/**
-	 * Event listener on "Enter Password" field for when key is pressed,
-	 * searches keyword if the ENTER key is pressed
+	 * Event listener on the search field for when key is pressed,
+	 * searches keyword straight away if the ENTER key is pressed
 	 * 
 	 * @param e an event given by some user action on the application
 	 */
@@ -159,6 +285,20 @@ public class SearchController extends SceneController implements Initializable {
 		// get search keyword
 		String keyword = searchTextField.getText();
 		
+		// the search runs now, so there is no need to wait for typing to pause
+		this.searchDebounce.stop();
+		listJournals(keyword);
+	}
+	
+	
+	/**
+	 * Lists the journals matching a keyword, or every journal if the keyword is empty
+	 * 
+	 * @param keyword the keyword to search for
+	 */
+	private void listJournals(String keyword) {
+		this.listedKeyword = keyword;
+		
 		boolean keywordIsEmpty = keyword.equals("");
 		if (!keywordIsEmpty) {
 			updateJournalsObsListByKeyword(keyword);
@@ -166,23 +306,100 @@ public class SearchController extends SceneController implements Initializable {
 		else {
 			resetJournalsObsList();
 		}
-		
 	}
 	
 	
+	/**
+	 * Searches for journals matching a keyword in the background, listing them in batches
+	 * as they are found unless a newer search was started in the meantime
+	 * 
+	 * @param keyword the keyword to search for
+	 */
 	private void updateJournalsObsListByKeyword(String keyword) {
-		ArrayList<JournalModel> userJournals = JournalModel.getJournals(keyword);
+		this.cancelRunningSearch();
+		int generation = ++this.searchGeneration;
+		this.loadingIndicator.setVisible(true);
+		
+		QueryCancellation cancellation = new QueryCancellation();
+		this.runningSearch = cancellation;
 		
-		this.journalsObsList.clear();
-		this.journalsObsList.addAll(userJournals);
+		// whether no batch of this search has been listed yet, only used on the FX thread
+		boolean[] awaitingFirstBatch = { true };
+		JournalModel.streamJournalSummariesAsync(keyword, batch -> Platform.runLater(() -> {
+			if (generation != this.searchGeneration) {
+				return;
+			}
+			this.listBatch(batch, awaitingFirstBatch[0]);
+			awaitingFirstBatch[0] = false;
+		}), cancellation).whenCompleteAsync((result, ex) -> {
+			if (generation != this.searchGeneration) {
+				return;
+			}
+			this.runningSearch = null;
+			this.loadingIndicator.setVisible(false);
+			
+			// a cancelled search leaves the listed journals for the search replacing it
+			if (ex != null && ex.getCause() instanceof CancellationException) {
+				return;
+			}
+			if (ex != null) {
+				System.out.println("Failed to load journal entries!");
+				ex.printStackTrace();
+			}
+			else if (awaitingFirstBatch[0]) {
+				this.listBatch(Collections.emptyList(), true);
+			}
+		}, FX_THREAD);
+	}
+	
+	
+	/**
+	 * Lists a batch of search results
+	 * 
+	 * @param batch the journals found
+	 * @param first whether this is the first batch of the search, replacing the results of the previous search
+	 */
+	private void listBatch(List<JournalSummary> batch, boolean first) {
+		if (first) {
+			// only apply the differences, so cells of unchanged journals are left alone
+			this.journalsAdapter.applyResults(batch);
+			journalListView.setItems(this.journalsObsList);
+		}
+		else {
+			this.journalsObsList.addAll(batch);
+		}
+	}
+	
+	
+	/**
+	 * Cancels the keyword search still running, interrupting its query
+	 */
+	private void cancelRunningSearch() {
+		if (this.runningSearch != null) {
+			this.runningSearch.cancel();
+			this.runningSearch = null;
+		}
 	}
 	
 	
 	private void resetJournalsObsList() {
-		ArrayList<JournalModel> userJournals = JournalModel.getJournals();
+		// drop results of any search still running
+		this.cancelRunningSearch();
+		int generation = ++this.searchGeneration;
+		this.loadingIndicator.setVisible(true);
 		
-		this.journalsObsList.clear();
-		this.journalsObsList.addAll(userJournals);
+		journalListView.setItems(this.allJournals);
+		this.allJournals.refresh().whenCompleteAsync((result, ex) -> {
+			if (generation != this.searchGeneration) {
+				return;
+			}
+			this.loadingIndicator.setVisible(false);
+			
+			if (ex != null) {
+				System.out.println("Failed to load journal entries!");
+				ex.printStackTrace();
+			}
+		}, FX_THREAD);
 	}
 	
 	
@@ -190,7 +407,7 @@ public class SearchController extends SceneController implements Initializable {
 	/**
 	 * Inner class that defines the content and styles of a journal entry's cell in the ListView
 	 */
-	private class JournalCell extends ListCell<JournalModel> {
+	private class JournalCell extends ListCell<JournalSummary> {
 		// layout panes
 		private final HBox container;
 		private final VBox journalInfoContainer;
@@ -262,7 +479,7 @@ public class SearchController extends SceneController implements Initializable {
 		 * Update the list view's selection to match the selected radio button
 		 */
 		private void updateListViewSelection() {
-			ListView<JournalModel> listView = this.getListView();
+			ListView<JournalSummary> listView = this.getListView();
 			
 			if (radioBtn.isSelected()) {
 				listView.getSelectionModel().select(this.getIndex());
@@ -293,7 +510,7 @@ public class SearchController extends SceneController implements Initializable {
 		 * @param empty a boolean value indicating whether the cell is empty
 		 */
 		@Override
-		protected void updateItem(JournalModel journal, boolean empty) {
+		protected void updateItem(JournalSummary journal, boolean empty) {
 			super.updateItem(journal, empty);
 			
 			if (empty || journal == null) {
@@ -315,7 +532,7 @@ public class SearchController extends SceneController implements Initializable {
 				// Defer updating preview text until the container has been fully instantiated
 				// so that dimensions of the container can be safely accessed
 				Platform.runLater(() -> {
-					String previewText = journal.getContext();
+					String previewText = journal.getPreview();
 					context.setText(previewText);
 					// set max height to height of parent container
 					context.setMaxHeight(journalInfoContainer.getHeight());
@@ -0,0 +1,142 @@
+package application.controllers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+
+/**
+ * Keeps every view loaded from fxml along with its controller, so the xml is parsed and the controller
+ * is created once per view rather than on every switch to it. Views can be loaded ahead of time in the background,
+ * since loading does not touch a shown scene, while their scenes are created on the JavaFX Application Thread.
+ */
+class ViewCache {
+	private static final String viewPackagePath = "resources/views/";
+	
+	private static final Map<String, CompletableFuture<CachedView>> views = new ConcurrentHashMap<>();
+	
+	// a single daemon thread, so preloading never keeps the application alive
+	private static final ExecutorService preloadExecutor = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "journalicious-view-preload");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	
+	/**
+	 * Gets a view, loading it now unless it is cached or being preloaded,
+	 * in which case this waits for the preload to finish
+	 * 
+	 * @param viewFile the name of the fxml file of the view
+	 * @return the loaded view
+	 * @throws IOException if the fxml file of the view could not be loaded
+	 */
+	static CachedView get(String viewFile) throws IOException {
+		CompletableFuture<CachedView> view = views.computeIfAbsent(viewFile, file -> {
+			try {
+				return CompletableFuture.completedFuture(load(file));
+			} catch (IOException ex) {
+				CompletableFuture<CachedView> failed = new CompletableFuture<>();
+				failed.completeExceptionally(ex);
+				return failed;
+			}
+		});
+		
+		try {
+			return view.join();
+		
+		} catch (CompletionException ex) {
+			// forget the failure so the next switch to the view tries again
+			views.remove(viewFile, view);
+			
+			Throwable cause = ex.getCause() instanceof UncheckedIOException ? ex.getCause().getCause() : ex.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		}
+	}
+	
+	
+	/**
+	 * Loads views in the background that are neither cached nor being loaded already
+	 * 
+	 * @param viewFiles the names of the fxml files of the views, loaded in the given order
+	 */
+	static void preloadAsync(String... viewFiles) {
+		for (String viewFile : viewFiles) {
+			views.computeIfAbsent(viewFile, file -> CompletableFuture.supplyAsync(() -> {
+				try {
+					return load(file);
+				} catch (IOException ex) {
+					System.out.println("Failed to preload " + file + "!");
+					throw new UncheckedIOException(ex);
+				}
+			}, preloadExecutor));
+		}
+	}
+	
+	
+	/**
+	 * Parses the fxml file of a view, creating and initializing its controller
+	 * 
+	 * @param viewFile the name of the fxml file of the view
+	 * @return the loaded view, without a scene yet
+	 * @throws IOException if the fxml file could not be loaded
+	 */
+	private static CachedView load(String viewFile) throws IOException {
+		File file = new File(viewPackagePath + viewFile);
+		FXMLLoader loader = new FXMLLoader(file.toURI().toURL());
+		
+		Parent root = loader.load();
+		return new CachedView(root, loader.getController());
+	}
+	
+	
+	
+	/**
+	 * A view loaded from fxml along with its controller
+	 */
+	static class CachedView {
+		private final Parent root;
+		private final SceneController controller;
+		private Scene scene;
+		
+		private CachedView(Parent root, SceneController controller) {
+			this.root = root;
+			this.controller = controller;
+			this.scene = null;
+		}
+		
+		
+		/**
+		 * Gets the controller of the view
+		 * 
+		 * @return the controller created when the view was loaded
+		 */
+		SceneController getController() {
+			return this.controller;
+		}
+		
+		
+		/**
+		 * Gets the scene showing the view, creating it the first time, must be called on the JavaFX Application Thread
+		 * 
+		 * @return the scene of the view
+		 */
+		Scene getScene() {
+			if (this.scene == null) {
+				this.scene = new Scene(this.root);
+			}
+			
+			return this.scene;
+		}
+	}
+
+}
\ No newline at end of file
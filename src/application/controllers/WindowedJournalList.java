@@ -0,0 +1,440 @@
+package application.controllers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import application.models.JournalEntry;
+import application.models.JournalModel;
+import application.models.JournalSummary;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+/**
+ * A read-only list of every journal summary, newest first, that only keeps the rows around
+ * what the ListView is showing. It reports the total number of journals up front and reads rows
+ * from the DB in blocks in the background as they are asked for, along with the neighbouring blocks,
+ * evicting the least recently used blocks. A row whose block is still being read is a null placeholder
+ * until the block arrives. Created, updated and deleted journals are applied to the loaded rows in place,
+ * so only the blocks left with rows missing are read again. Must only be used on the JavaFX Application Thread.
+ */
+class WindowedJournalList extends ObservableListBase<JournalSummary> {
+	private static final int BLOCK_SIZE = 64;
+	private static final int MAX_BLOCKS = 16;
+	// the order of the rows, the same as the order of the windows read from the DB
+	private static final Comparator<JournalEntry> NEWEST_FIRST = Comparator
+			.comparing(JournalEntry::getDate, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+			.thenComparingInt(JournalEntry::getHour)
+			.thenComparingInt(JournalEntry::getMinute)
+			.thenComparingInt(JournalEntry::getID)
+			.reversed();
+	
+	private final LinkedHashMap<Integer, List<JournalSummary>> blocks;
+	private final Set<Integer> pendingBlocks;
+	
+	private int size;
+	// incremented by every refresh and every move of the rows so that blocks read before it are dropped
+	private int generation;
+	// whether the number of journals is still being read, in which case changes are only seen by reading it again
+	private boolean isCounting;
+	
+	
+	/**
+	 * Creates an empty list, call refresh to load the number of journals
+	 */
+	WindowedJournalList() {
+		this.blocks = new LinkedHashMap<Integer, List<JournalSummary>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, List<JournalSummary>> eldest) {
+				return this.size() > MAX_BLOCKS;
+			}
+		};
+		this.pendingBlocks = new HashSet<>();
+		this.size = 0;
+		this.generation = 0;
+		this.isCounting = false;
+	}
+	
+	
+	/**
+	 * Gets the summary of the journal at a position, reading its block from the DB in the background if it is not loaded
+	 * 
+	 * @param index the position of the journal, newest first
+	 * @return the summary of the journal, or null if its block is still being read
+	 * or the journal was deleted since the list was refreshed
+	 */
+	@Override
+	public JournalSummary get(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+		
+		int block = index / BLOCK_SIZE;
+		List<JournalSummary> rows = this.blocks.get(block);
+		
+		// read ahead in both directions so scrolling rarely waits on the DB
+		this.prefetch(block);
+		this.prefetch(block + 1);
+		this.prefetch(block - 1);
+		
+		int row = index % BLOCK_SIZE;
+		return rows != null && row < rows.size() ? rows.get(row) : null;
+	}
+	
+	
+	/**
+	 * Gets the total number of journals, whether or not their rows are loaded
+	 * 
+	 * @return the number of journals
+	 */
+	@Override
+	public int size() {
+		return this.size;
+	}
+	
+	
+	/**
+	 * Reads a block in the background if it is not loaded
+	 * 
+	 * @param block the number of the block
+	 */
+	private void prefetch(int block) {
+		if (!this.blocks.containsKey(block)) {
+			this.load(block);
+		}
+	}
+	
+	
+	/**
+	 * Reads a block in the background if it exists and is not already being read,
+	 * then tells the ListView that the rows of the block changed
+	 * 
+	 * @param block the number of the block
+	 * @return a future completed once the block is read, or straight away if it is not read
+	 */
+	private CompletableFuture<ArrayList<JournalSummary>> load(int block) {
+		if (block < 0 || block * BLOCK_SIZE >= this.size || !this.pendingBlocks.add(block)) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		int requestGeneration = this.generation;
+		return JournalModel.getJournalSummaryWindowAsync(block * BLOCK_SIZE, BLOCK_SIZE).whenCompleteAsync((rows, ex) -> {
+			// drop the block if the list was refreshed meanwhile
+			if (requestGeneration != this.generation || !this.pendingBlocks.remove(block)) {
+				return;
+			}
+			if (ex != null) {
+				System.out.println("Failed to load journal entries!");
+				ex.printStackTrace();
+				return;
+			}
+			
+			this.blocks.put(block, rows);
+			this.fireBlockUpdated(block);
+		}, Platform::runLater);
+	}
+	
+	
+	/**
+	 * Tells the ListView that the rows of a block changed, as a single change
+	 * 
+	 * @param block the number of the block
+	 */
+	private void fireBlockUpdated(int block) {
+		int from = block * BLOCK_SIZE;
+		int to = Math.min(this.size, from + BLOCK_SIZE);
+		if (from >= to) {
+			return;
+		}
+		
+		this.beginChange();
+		for (int i = from; i < to; i++) {
+			this.nextUpdate(i);
+		}
+		this.endChange();
+	}
+	
+	
+	/**
+	 * Reloads the number of journals in the background, then reads the loaded blocks again,
+	 * showing their old rows until the new ones arrive so that only the rows that are loaded are updated
+	 * 
+	 * @return a future completed once the number of journals reflects the DB
+	 */
+	CompletableFuture<Void> refresh() {
+		int requestGeneration = ++this.generation;
+		this.isCounting = true;
+		
+		return JournalModel.countJournalsAsync().thenAcceptAsync(count -> {
+			if (requestGeneration != this.generation) {
+				return;
+			}
+			
+			this.isCounting = false;
+			int oldSize = this.size;
+			this.pendingBlocks.clear();
+			this.size = count;
+			this.blocks.keySet().removeIf(block -> block * BLOCK_SIZE >= count);
+			
+			// the list only grows or shrinks at its end, the rows that moved are updated once their blocks are read again
+			if (count != oldSize) {
+				this.beginChange();
+				if (count < oldSize) {
+					List<JournalSummary> removed = new ArrayList<>(Collections.nCopies(oldSize - count, (JournalSummary) null));
+					this.nextRemove(count, removed);
+				}
+				else {
+					this.nextAdd(oldSize, count);
+				}
+				this.endChange();
+			}
+			
+			for (int block : new ArrayList<>(this.blocks.keySet())) {
+				this.load(block);
+			}
+		}, Platform::runLater);
+	}
+	
+	
+	
+	/**
+	 * Inserts created journals among the loaded rows once they are read in the background. Each one goes before the first loaded row
+	 * it is newer than, which is its exact position unless the rows just before it are not loaded, and the loaded rows behind it move down.
+	 * 
+	 * @param ids the ids of the created journals
+	 */
+	void insertJournals(Collection<Integer> ids) {
+		if (this.isCounting) {
+			this.refresh();
+			return;
+		}
+		
+		int requestGeneration = this.generation;
+		List<CompletableFuture<JournalModel>> reads = new ArrayList<>();
+		for (int id : ids) {
+			reads.add(JournalModel.getJournalAsync(id));
+		}
+		
+		CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).whenCompleteAsync((result, ex) -> {
+			// the loaded rows moved while the journals were read, so count them again instead
+			if (requestGeneration != this.generation) {
+				this.refresh();
+				return;
+			}
+			if (ex != null) {
+				System.out.println("Failed to load journal entries!");
+				ex.printStackTrace();
+				this.refresh();
+				return;
+			}
+			
+			// a journal deleted meanwhile is left to its own change
+			List<JournalModel> created = new ArrayList<>();
+			for (CompletableFuture<JournalModel> read : reads) {
+				if (read.join() != null) {
+					created.add(read.join());
+				}
+			}
+			if (created.isEmpty()) {
+				return;
+			}
+			created.sort(NEWEST_FIRST);
+			
+			TreeMap<Integer, JournalSummary> loaded = this.loadedRows();
+			Map<Integer, Integer> newPositions = new HashMap<>();
+			for (Map.Entry<Integer, JournalSummary> row : loaded.entrySet()) {
+				int newer = 0;
+				while (newer < created.size() && NEWEST_FIRST.compare(created.get(newer), row.getValue()) < 0) {
+					newer++;
+				}
+				newPositions.put(row.getKey(), row.getKey() + newer);
+			}
+			
+			List<Integer> insertedPositions = new ArrayList<>();
+			for (int i = 0; i < created.size(); i++) {
+				JournalModel journal = created.get(i);
+				int position = this.size;
+				for (Map.Entry<Integer, JournalSummary> row : loaded.entrySet()) {
+					if (NEWEST_FIRST.compare(journal, row.getValue()) < 0) {
+						position = row.getKey();
+						break;
+					}
+				}
+				insertedPositions.add(position + i);
+			}
+			
+			this.size += created.size();
+			this.moveRows(newPositions);
+			
+			// added in order, each position already counts the journals added before it
+			this.beginChange();
+			for (int position : insertedPositions) {
+				this.nextAdd(position, position + 1);
+			}
+			this.endChange();
+		}, Platform::runLater);
+	}
+	
+	
+	/**
+	 * Reads the loaded blocks holding updated journals again. A journal whose date or time changed may have moved
+	 * to another position, which moves the rows in between, so the whole list is refreshed if one left its block.
+	 * 
+	 * @param ids the ids of the updated journals
+	 */
+	void reloadJournals(Collection<Integer> ids) {
+		if (this.isCounting) {
+			this.refresh();
+			return;
+		}
+		
+		Set<Integer> updatedIDs = new HashSet<>(ids);
+		Map<Integer, Integer> blockOf = new HashMap<>();
+		for (Map.Entry<Integer, JournalSummary> row : this.loadedRows().entrySet()) {
+			if (updatedIDs.contains(row.getValue().getID())) {
+				blockOf.put(row.getValue().getID(), row.getKey() / BLOCK_SIZE);
+			}
+		}
+		if (blockOf.isEmpty()) {
+			return;
+		}
+		
+		int requestGeneration = this.generation;
+		List<CompletableFuture<ArrayList<JournalSummary>>> reads = new ArrayList<>();
+		for (int block : new HashSet<>(blockOf.values())) {
+			reads.add(this.load(block));
+		}
+		
+		CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenRunAsync(() -> {
+			// the rows moved before the blocks arrived, so the blocks read were dropped
+			if (requestGeneration != this.generation) {
+				this.reloadJournals(ids);
+				return;
+			}
+			
+			for (Map.Entry<Integer, Integer> entry : blockOf.entrySet()) {
+				List<JournalSummary> rows = this.blocks.get(entry.getValue());
+				if (rows == null || rows.stream().noneMatch(row -> row != null && row.getID() == entry.getKey())) {
+					this.refresh();
+					return;
+				}
+			}
+		}, Platform::runLater);
+	}
+	
+	
+	/**
+	 * Removes deleted journals from the loaded rows, moving the loaded rows behind them up. The whole list is refreshed
+	 * if a deleted journal is not loaded, since it could have been anywhere before the loaded rows.
+	 * 
+	 * @param ids the ids of the deleted journals
+	 */
+	void removeJournals(Collection<Integer> ids) {
+		if (this.isCounting) {
+			this.refresh();
+			return;
+		}
+		
+		Set<Integer> deletedIDs = new HashSet<>(ids);
+		TreeMap<Integer, JournalSummary> loaded = this.loadedRows();
+		TreeMap<Integer, JournalSummary> removed = new TreeMap<>();
+		for (Map.Entry<Integer, JournalSummary> row : loaded.entrySet()) {
+			if (deletedIDs.contains(row.getValue().getID())) {
+				removed.put(row.getKey(), row.getValue());
+			}
+		}
+		if (removed.size() < deletedIDs.size()) {
+			this.refresh();
+			return;
+		}
+		if (removed.isEmpty()) {
+			return;
+		}
+		
+		// a kept row moves up by the number of rows removed before it
+		Map<Integer, Integer> newPositions = new HashMap<>();
+		for (int position : loaded.keySet()) {
+			if (!removed.containsKey(position)) {
+				newPositions.put(position, position - removed.headMap(position).size());
+			}
+		}
+		
+		this.size -= removed.size();
+		this.moveRows(newPositions);
+		
+		// removed from the back, so each position is still where the row is when it is removed
+		this.beginChange();
+		for (Map.Entry<Integer, JournalSummary> row : removed.descendingMap().entrySet()) {
+			this.nextRemove(row.getKey(), row.getValue());
+		}
+		this.endChange();
+	}
+	
+	
+	/**
+	 * Gets every loaded row by its position
+	 * 
+	 * @return the loaded rows, ordered by position
+	 */
+	private TreeMap<Integer, JournalSummary> loadedRows() {
+		TreeMap<Integer, JournalSummary> rows = new TreeMap<>();
+		for (Map.Entry<Integer, List<JournalSummary>> entry : this.blocks.entrySet()) {
+			List<JournalSummary> blockRows = entry.getValue();
+			for (int i = 0; i < blockRows.size(); i++) {
+				if (blockRows.get(i) != null) {
+					rows.put(entry.getKey() * BLOCK_SIZE + i, blockRows.get(i));
+				}
+			}
+		}
+		return rows;
+	}
+	
+	
+	/**
+	 * Moves the loaded rows to new positions once journals were inserted or removed and the size changed,
+	 * leaving null placeholders for the rows that are not loaded and reading the blocks holding them again
+	 * 
+	 * @param newPositions the new position of every loaded row that is kept, by its old position
+	 */
+	private void moveRows(Map<Integer, Integer> newPositions) {
+		// blocks still being read were asked for by positions that no longer hold them
+		this.generation++;
+		this.pendingBlocks.clear();
+		
+		// walked from the least recently used block, so the moved blocks keep roughly the same order of use
+		LinkedHashMap<Integer, List<JournalSummary>> moved = new LinkedHashMap<>();
+		for (Map.Entry<Integer, List<JournalSummary>> entry : this.blocks.entrySet()) {
+			List<JournalSummary> rows = entry.getValue();
+			for (int i = 0; i < rows.size(); i++) {
+				Integer position = newPositions.get(entry.getKey() * BLOCK_SIZE + i);
+				if (position == null || rows.get(i) == null) {
+					continue;
+				}
+				
+				List<JournalSummary> movedRows = moved.computeIfAbsent(position / BLOCK_SIZE,
+						block -> new ArrayList<>(Collections.nCopies(Math.min(BLOCK_SIZE, this.size - block * BLOCK_SIZE), (JournalSummary) null)));
+				movedRows.set(position % BLOCK_SIZE, rows.get(i));
+			}
+		}
+		
+		this.blocks.clear();
+		this.blocks.putAll(moved);
+		for (Map.Entry<Integer, List<JournalSummary>> entry : moved.entrySet()) {
+			if (this.blocks.containsKey(entry.getKey()) && entry.getValue().contains(null)) {
+				this.load(entry.getKey());
+			}
+		}
+	}
+
+}
\ No newline at end of file
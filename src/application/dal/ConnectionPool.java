@@ -0,0 +1,462 @@
+package application.dal;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of connections to a single sqlite database running in WAL mode.
+ * WAL allows any number of readers to run alongside one writer, so the pool
+ * keeps exactly one writer connection and a fixed set of reader connections.
+ */
+public class ConnectionPool {
+	private final String url;
+	private final Config config;
+	
+	private final Connection writer;
+	private final ReentrantLock writerLock;
+	private final BlockingQueue<Connection> readers;
+	private final List<Connection> allReaders;
+	private final Map<Connection, StatementCache> statementCaches;
+	
+	
+	/**
+	 * Opens the writer and reader connections to a database and applies the configured pragmas
+	 * 
+	 * @param url the jdbc url of the sqlite database
+	 * @param config the pool size and pragma settings to apply to every connection
+	 * @throws SQLException if any of the connections could not be opened
+	 */
+	public ConnectionPool(String url, Config config) throws SQLException {
+		this.url = url;
+		this.config = config;
+		this.writerLock = new ReentrantLock(true);
+		this.readers = new ArrayBlockingQueue<>(config.getReaderCount());
+		this.allReaders = new ArrayList<>();
+		this.statementCaches = new IdentityHashMap<>();
+		
+		// the writer switches the database file into WAL mode, which persists in the file
+		this.writer = this.openConnection(false);
+		this.statementCaches.put(this.writer, new StatementCache(this.writer, config.getStatementCacheSize()));
+		
+		for (int i = 0; i < config.getReaderCount(); i++) {
+			Connection reader = this.openConnection(true);
+			this.allReaders.add(reader);
+			this.readers.add(reader);
+			this.statementCaches.put(reader, new StatementCache(reader, config.getStatementCacheSize()));
+		}
+	}
+	
+	
+	/**
+	 * Opens a new connection to the database and configures it
+	 * 
+	 * @param readOnly whether the connection should refuse to modify the database
+	 * @return a configured connection to the database
+	 * @throws SQLException if the connection could not be opened or configured
+	 */
+	private Connection openConnection(boolean readOnly) throws SQLException {
+		Connection connection = DriverManager.getConnection(this.url);
+		
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA busy_timeout = " + this.config.getBusyTimeoutMillis());
+			if (!readOnly) {
+				statement.execute("PRAGMA journal_mode = WAL");
+			}
+			statement.execute("PRAGMA synchronous = " + this.config.getSynchronous().name());
+			statement.execute("PRAGMA cache_size = " + this.config.getCacheSize());
+			statement.execute("PRAGMA mmap_size = " + this.config.getMmapSize());
+			if (readOnly) {
+				statement.execute("PRAGMA query_only = 1");
+			}
+		}
+		
+		return connection;
+	}
+	
+	
+	/**
+	 * Borrows a reader connection from the pool, waiting for one to be returned if all are in use
+	 * 
+	 * @return a lease on a reader connection that returns it to the pool when closed
+	 * @throws SQLException if no reader became available before the configured timeout
+	 */
+	public Lease borrowReader() throws SQLException {
+		try {
+			Connection reader = this.readers.poll(this.config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS);
+			if (reader == null) {
+				throw new SQLException("Timed out waiting for a reader connection to " + this.url);
+			}
+			
+			return new Lease(reader, false);
+		
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a reader connection", ex);
+		}
+	}
+	
+	
+	/**
+	 * Borrows the writer connection, waiting for any in-flight write to finish
+	 * 
+	 * @return a lease on the writer connection that releases it when closed
+	 * @throws SQLException if the writer did not become available before the configured timeout
+	 */
+	public Lease borrowWriter() throws SQLException {
+		try {
+			if (!this.writerLock.tryLock(this.config.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out waiting for the writer connection to " + this.url);
+			}
+			
+			return new Lease(this.writer, true);
+		
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for the writer connection", ex);
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of times a compiled statement was reused across every connection of the pool
+	 * 
+	 * @return the total number of statement cache hits
+	 */
+	public long getStatementCacheHits() {
+		long hits = 0;
+		for (StatementCache cache : this.statementCaches.values()) {
+			hits += cache.getHits();
+		}
+		
+		return hits;
+	}
+	
+	
+	/**
+	 * Gets the number of times a statement had to be compiled across every connection of the pool
+	 * 
+	 * @return the total number of statement cache misses
+	 */
+	public long getStatementCacheMisses() {
+		long misses = 0;
+		for (StatementCache cache : this.statementCaches.values()) {
+			misses += cache.getMisses();
+		}
+		
+		return misses;
+	}
+	
+	
+	/**
+	 * Closes every cached statement and every connection in the pool
+	 */
+	public void close() {
+		List<Connection> connections = new ArrayList<>(this.allReaders);
+		connections.add(this.writer);
+		
+		for (Connection connection : connections) {
+			try {
+				this.statementCaches.get(connection).clear();
+				connection.close();
+			} catch (SQLException ex) {
+				System.out.println("Failed to close connection to " + this.url);
+				ex.printStackTrace();
+			}
+		}
+	}
+	
+	
+	/**
+	 * A borrowed connection that is handed back to its pool when closed,
+	 * meant to be used with try-with-resources
+	 */
+	public class Lease implements AutoCloseable {
+		private final Connection connection;
+		private final boolean isWriter;
+		private boolean isReleased;
+		
+		
+		private Lease(Connection connection, boolean isWriter) {
+			this.connection = connection;
+			this.isWriter = isWriter;
+			this.isReleased = false;
+		}
+		
+		
+		/**
+		 * Gets the borrowed connection
+		 * 
+		 * @return the connection held by this lease
+		 */
+		public Connection getConnection() {
+			return this.connection;
+		}
+		
+		
+		/**
+		 * Gets a compiled statement for a query from the cache of the borrowed connection.
+		 * The statement belongs to the cache and must not be closed, but its result sets must be.
+		 * 
+		 * @param sql the query to compile
+		 * @return a compiled statement for the query with its parameters cleared
+		 * @throws SQLException if the lease was already closed or the query could not be compiled
+		 */
+		public PreparedStatement prepare(String sql) throws SQLException {
+			if (this.isReleased) {
+				throw new SQLException("Cannot prepare a statement on a connection that was returned to the pool");
+			}
+			
+			return statementCaches.get(this.connection).prepare(sql);
+		}
+		
+		
+		/**
+		 * Returns the connection to the pool, only the first call has any effect
+		 */
+		@Override
+		public void close() {
+			if (this.isReleased) {
+				return;
+			}
+			this.isReleased = true;
+			
+			if (this.isWriter) {
+				writerLock.unlock();
+			}
+			else {
+				readers.offer(this.connection);
+			}
+		}
+	}
+	
+	
+	/**
+	 * The settings used when opening the connections of a pool.
+	 * Every setting can be overridden with a "journalicious.db.*" system property.
+	 */
+	public static class Config {
+		private int readerCount;
+		private Synchronous synchronous;
+		private int cacheSize;
+		private long mmapSize;
+		private int busyTimeoutMillis;
+		private long borrowTimeoutMillis;
+		private int statementCacheSize;
+		
+		
+		/**
+		 * Creates a config with the default settings
+		 */
+		public Config() {
+			this.readerCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+			this.synchronous = Synchronous.NORMAL;
+			// negative cache sizes are in KiB rather than pages
+			this.cacheSize = -8192;
+			this.mmapSize = 64L * 1024 * 1024;
+			this.busyTimeoutMillis = 5000;
+			this.borrowTimeoutMillis = 10000;
+			this.statementCacheSize = 32;
+		}
+		
+		
+		/**
+		 * Creates a config from the default settings overridden by any matching system properties
+		 * 
+		 * @return a config reflecting the system properties
+		 */
+		public static Config fromSystemProperties() {
+			Config config = new Config();
+			config.setReaderCount(Integer.getInteger("journalicious.db.readers", config.readerCount));
+			config.cacheSize = Integer.getInteger("journalicious.db.cacheSize", config.cacheSize);
+			config.mmapSize = Long.getLong("journalicious.db.mmapSize", config.mmapSize);
+			config.busyTimeoutMillis = Integer.getInteger("journalicious.db.busyTimeout", config.busyTimeoutMillis);
+			config.borrowTimeoutMillis = Long.getLong("journalicious.db.borrowTimeout", config.borrowTimeoutMillis);
+			config.setStatementCacheSize(Integer.getInteger("journalicious.db.statementCacheSize", config.statementCacheSize));
+			
+			String synchronous = System.getProperty("journalicious.db.synchronous");
+			if (synchronous != null) {
+				config.synchronous = Synchronous.valueOf(synchronous.toUpperCase(Locale.ROOT));
+			}
+			
+			return config;
+		}
+		
+		
+		/**
+		 * Gets the number of reader connections kept by the pool
+		 * 
+		 * @return the number of reader connections
+		 */
+		public int getReaderCount() {
+			return this.readerCount;
+		}
+		
+		
+		/**
+		 * Sets the number of reader connections kept by the pool
+		 * 
+		 * @param readerCount the number of reader connections, at least 1
+		 * @return this config
+		 */
+		public Config setReaderCount(int readerCount) {
+			this.readerCount = Math.max(1, readerCount);
+			return this;
+		}
+		
+		
+		/**
+		 * Gets the value of the synchronous pragma
+		 * 
+		 * @return the synchronous level applied to every connection
+		 */
+		public Synchronous getSynchronous() {
+			return this.synchronous;
+		}
+		
+		
+		/**
+		 * Sets the value of the synchronous pragma
+		 * 
+		 * @param synchronous the synchronous level to apply to every connection
+		 * @return this config
+		 */
+		public Config setSynchronous(Synchronous synchronous) {
+			this.synchronous = synchronous;
+			return this;
+		}
+		
+		
+		/**
+		 * Gets the value of the cache_size pragma
+		 * 
+		 * @return the page cache size, in pages if positive or KiB if negative
+		 */
+		public int getCacheSize() {
+			return this.cacheSize;
+		}
+		
+		
+		/**
+		 * Sets the value of the cache_size pragma
+		 * 
+		 * @param cacheSize the page cache size, in pages if positive or KiB if negative
+		 * @return this config
+		 */
+		public Config setCacheSize(int cacheSize) {
+			this.cacheSize = cacheSize;
+			return this;
+		}
+		
+		
+		/**
+		 * Gets the value of the mmap_size pragma
+		 * 
+		 * @return the number of bytes of the database file to memory map
+		 */
+		public long getMmapSize() {
+			return this.mmapSize;
+		}
+		
+		
+		/**
+		 * Sets the value of the mmap_size pragma
+		 * 
+		 * @param mmapSize the number of bytes of the database file to memory map, 0 disables mapping
+		 * @return this config
+		 */
+		public Config setMmapSize(long mmapSize) {
+			this.mmapSize = mmapSize;
+			return this;
+		}
+		
+		
+		/**
+		 * Gets how long a connection waits on a locked database before failing
+		 * 
+		 * @return the busy timeout in milliseconds
+		 */
+		public int getBusyTimeoutMillis() {
+			return this.busyTimeoutMillis;
+		}
+		
+		
+		/**
+		 * Sets how long a connection waits on a locked database before failing
+		 * 
+		 * @param busyTimeoutMillis the busy timeout in milliseconds
+		 * @return this config
+		 */
+		public Config setBusyTimeoutMillis(int busyTimeoutMillis) {
+			this.busyTimeoutMillis = busyTimeoutMillis;
+			return this;
+		}
+		
+		
+		/**
+		 * Gets how long a caller waits to borrow a connection before failing
+		 * 
+		 * @return the borrow timeout in milliseconds
+		 */
+		public long getBorrowTimeoutMillis() {
+			return this.borrowTimeoutMillis;
+		}
+		
+		
+		/**
+		 * Sets how long a caller waits to borrow a connection before failing
+		 * 
+		 * @param borrowTimeoutMillis the borrow timeout in milliseconds
+		 * @return this config
+		 */
+		public Config setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+			this.borrowTimeoutMillis = borrowTimeoutMillis;
+			return this;
+		}
+		
+		
+		/**
+		 * Gets the number of compiled statements each connection keeps cached
+		 * 
+		 * @return the statement cache capacity of each connection
+		 */
+		public int getStatementCacheSize() {
+			return this.statementCacheSize;
+		}
+		
+		
+		/**
+		 * Sets the number of compiled statements each connection keeps cached
+		 * 
+		 * @param statementCacheSize the statement cache capacity of each connection, at least 1
+		 * @return this config
+		 */
+		public Config setStatementCacheSize(int statementCacheSize) {
+			this.statementCacheSize = Math.max(1, statementCacheSize);
+			return this;
+		}
+	}
+	
+	
+	/**
+	 * An enumeration of the levels of the synchronous pragma
+	 */
+	public enum Synchronous {
+		OFF,
+		NORMAL,
+		FULL,
+		EXTRA
+	}
+
+}
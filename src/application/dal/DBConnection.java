@@ -1,65 +1,189 @@
 package application.dal;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import application.StartupTimer;
 
 /**
- * Singleton class for connecting to an sqlite database
+ * Singleton class for connecting to an sqlite database.
+ * Each database is opened on first use, on a background thread, so that the login screen
+ * is shown without waiting for the journals database, which is only needed once logged in.
  */
 public class DBConnection {
 	private static final String jdbcPathURL = "jdbc:sqlite:resources/sqlite/";
+	private static final String trigramIndexPath = "resources/sqlite/journals_db.trigrams";
+	
+	// the number of journal entries warmed up, the first block listed by the search screen
+	private static final int WARM_UP_WINDOW = 64;
+	
+	// one thread per database, so both are opened in parallel
+	private static final ExecutorService openExecutor = Executors.newFixedThreadPool(Database.values().length,
+			DBExecutor.daemonThreads("journalicious-db-open"));
 	
 	private static DBConnection dbConnection = new DBConnection();
-	private static Connection userInfoDBConnection;
-	private static Connection journalsDBConnection;
+	private static final Map<Database, CompletableFuture<ConnectionPool>> pools = new EnumMap<>(Database.class);
 	
 	
 	/**
-	 * Constructs singleton by getting connections to specified databases
+	 * Constructs singleton, the connection pools are opened lazily by openAsync
 	 */
 	private DBConnection() {
+	}
+	
+	/**
+	 * Gets the singleton instance of the DBConnection class
+	 * 
+	 * @return an instance of the DBConnection Singleton
+	 */
+	public static DBConnection getDBConnectionSingletonInstance() {
+		return dbConnection;
+	}
+	
+	
+	/**
+	 * Starts opening the databases in the background, then warms up the journal store
+	 * so the first screens after logging in do not pay for opening it. The journals database
+	 * is only opened if journal entries are kept in it.
+	 * 
+	 * @return a future completed once the journal store is warmed up
+	 */
+	public static CompletableFuture<Void> warmUpAsync() {
+		openAsync(Database.USER_INFO);
+		
+		CompletableFuture<Boolean> isStoreReady = CompletableFuture.completedFuture(true);
+		if (JournalStores.Backend.fromSystemProperties() == JournalStores.Backend.SQLITE) {
+			isStoreReady = openAsync(Database.JOURNALS).thenApply(pool -> pool != null);
+		}
+		
+		return isStoreReady.thenAcceptAsync(isReady -> {
+			if (!isReady) {
+				return;
+			}
+			
+			// replays the journal log if journal entries are kept in one
+			JournalStore journalStore = StartupTimer.time("open journal store", JournalStores::get);
+			
+			// prepares and caches the statements listing journal entries, reading the pages of the chronological index on the way
+			StartupTimer.time("warm up journal store", () -> {
+				journalStore.countJournals();
+				journalStore.getJournalSummaryWindow(0, WARM_UP_WINDOW);
+			});
+		}, openExecutor);
+	}
+	
+	
+	/**
+	 * Opens the connection pool of a given database in the background, unless it is already opened or being opened
+	 * 
+	 * @param db One of the database options provided by the Database enum
+	 * @return a future completed with the connection pool, or null if it could not be opened
+	 */
+	public static synchronized CompletableFuture<ConnectionPool> openAsync(Database db) {
+		return pools.computeIfAbsent(db, key -> CompletableFuture.supplyAsync(() -> open(key), openExecutor));
+	}
+	
+	
+	/**
+	 * Opens a connection pool to a given database, bringing the journals database up to date
+	 * and loading its search indexes
+	 * 
+	 * @param db One of the database options provided by the Database enum
+	 * @return the connection pool of the database, or null if it could not be opened
+	 */
+	private static ConnectionPool open(Database db) {
 		try {
-			// get a connection to each database
-			userInfoDBConnection = DriverManager.getConnection(jdbcPathURL + Database.USER_INFO.getValue());
-			journalsDBConnection = DriverManager.getConnection(jdbcPathURL + Database.JOURNALS.getValue());
+			ConnectionPool.Config config = ConnectionPool.Config.fromSystemProperties();
+			
+			if (db == Database.USER_INFO) {
+				// user info is a single row that is only read at login, so one reader is plenty
+				ConnectionPool.Config userInfoConfig = config.setReaderCount(1);
+				return StartupTimer.time("open user info database", () -> connect(db, userInfoConfig));
+			}
+			
+			ConnectionPool journalsDBPool = StartupTimer.time("open journals database", () -> connect(db, config));
+			
+			// apply the migrations the journals database has not had yet, the shipped database has none
+			StartupTimer.time("migrate journals database", () -> JournalSchema.migrate(journalsDBPool));
+			
+			// load the index that narrows down substring searches, building it if it was not saved
+			StartupTimer.time("load trigram index", () -> TrigramIndex.open(journalsDBPool, Paths.get(trigramIndexPath)));
+			
+			// build the dictionary of terms for fuzzy searches in the background
+			if (JournalSchema.isFullTextAvailable()) {
+				FuzzyTermIndex.open(journalsDBPool);
+			}
+			
+			return journalsDBPool;
 			
 		} catch (Exception ex) {
 			System.out.println("Failed to connect to SQLite database");
 			ex.printStackTrace();
+			return null;
 		}
 	}
 	
+	
 	/**
-	 * Gets the singleton instance of the DBConnection class
+	 * Opens the connections of a pool, rethrowing failures unchecked so it can be timed
 	 * 
-	 * @return an instance of the DBConnection Singleton
+	 * @param db One of the database options provided by the Database enum
+	 * @param config the pool size and pragma settings of the database
+	 * @return the connection pool of the database
 	 */
-	public static DBConnection getDBConnectionSingletonInstance() {
-		return dbConnection;
+	private static ConnectionPool connect(Database db, ConnectionPool.Config config) {
+		try {
+			return new ConnectionPool(jdbcPathURL + db.getValue(), config);
+		} catch (SQLException ex) {
+			throw new IllegalStateException("Failed to open " + db.getValue(), ex);
+		}
 	}
 	
 	
 	/**
-	 * Gets a connection to a given database
+	 * Gets the connection pool of a given database, waiting for it to be opened if it is not yet
 	 * 
 	 * @param db One of the database options provided by the Database enum
-	 * @return a connection to a chosen database
-	 * @throws Exception if the database selection is not one of the supported databases from the Database enum
+	 * @return the connection pool of a chosen database
+	 * @throws SQLException if no connection to the database could be opened
 	 */
-	public static Connection getDBConnection(Database db) throws Exception {
-		Connection connection = null;
-		switch (db) {
-			case USER_INFO:
-				connection = userInfoDBConnection;
-				break;
-			case JOURNALS:
-				connection = journalsDBConnection;
-				break;
-			default:
-				throw new Exception("The database you wish to connect to is not supported!");
+	public static ConnectionPool getConnectionPool(Database db) throws SQLException {
+		ConnectionPool pool = openAsync(db).join();
+		
+		if (pool == null) {
+			throw new SQLException("No connection to " + db.getValue() + " could be opened!");
 		}
 		
-		return connection;
+		return pool;
+	}
+	
+	
+	/**
+	 * Borrows a read-only connection to a given database, several reads may run at once
+	 * 
+	 * @param db One of the database options provided by the Database enum
+	 * @return a lease on a reader connection that must be closed once the read is done
+	 * @throws SQLException if the database is not supported or no reader became available
+	 */
+	public static ConnectionPool.Lease borrowReader(Database db) throws SQLException {
+		return getConnectionPool(db).borrowReader();
+	}
+	
+	
+	/**
+	 * Borrows the single writer connection to a given database, writes are serialized
+	 * 
+	 * @param db One of the database options provided by the Database enum
+	 * @return a lease on the writer connection that must be closed once the write is done
+	 * @throws SQLException if the database is not supported or the writer did not become available
+	 */
+	public static ConnectionPool.Lease borrowWriter(Database db) throws SQLException {
+		return getConnectionPool(db).borrowWriter();
 	}
 	
 	
@@ -0,0 +1,96 @@
+package application.dal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs data access off the JavaFX Application Thread. Writes run one at a time on a single
+ * writer thread, mirroring the single writer connection, while reads share a pool of threads
+ * sized to the reader connections so they never queue behind a write.
+ */
+public class DBExecutor {
+	private static final int READER_THREADS = ConnectionPool.Config.fromSystemProperties().getReaderCount();
+	
+	// how long shutdown waits for queued writes to reach the DB
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+	
+	private static final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(daemonThreads("journalicious-db-writer"));
+	private static final ExecutorService readExecutor = Executors.newFixedThreadPool(READER_THREADS, daemonThreads("journalicious-db-reader"));
+	
+	
+	/**
+	 * Runs a read on the reader threads
+	 * 
+	 * @param task the read to run
+	 * @return a future completed with the result of the read
+	 */
+	public static <T> CompletableFuture<T> read(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, readExecutor);
+	}
+	
+	
+	/**
+	 * Runs a write on the writer thread, after every write submitted before it
+	 * 
+	 * @param task the write to run
+	 * @return a future completed with the result of the write
+	 */
+	public static <T> CompletableFuture<T> write(Supplier<T> task) {
+		return CompletableFuture.supplyAsync(task, writeExecutor);
+	}
+	
+	
+	/**
+	 * Runs a write without a result on the writer thread, after every write submitted before it
+	 * 
+	 * @param task the write to run
+	 * @return a future completed once the write has run
+	 */
+	public static CompletableFuture<Void> write(Runnable task) {
+		return CompletableFuture.runAsync(task, writeExecutor);
+	}
+	
+	
+	/**
+	 * Stops accepting new work and waits for every already submitted write to finish
+	 */
+	public static void shutdown() {
+		readExecutor.shutdownNow();
+		writeExecutor.shutdown();
+		
+		try {
+			if (!writeExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				System.out.println("Gave up waiting for pending journal writes!");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		
+		// no more journals are written, so the trigram index can be saved for the next run
+		TrigramIndex.close();
+		JournalStores.close();
+	}
+	
+	
+	/**
+	 * Creates a factory of named daemon threads, so pending DB work never keeps the application alive
+	 * 
+	 * @param name the prefix of the name of every thread
+	 * @return a factory of daemon threads
+	 */
+	static ThreadFactory daemonThreads(String name) {
+		AtomicInteger count = new AtomicInteger();
+		
+		return task -> {
+			Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,416 @@
+package application.dal;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import application.models.JournalChange;
+import application.models.JournalChangeListener;
+
+/**
+ * A dictionary of every term in the full-text index that finds the terms within a small edit distance
+ * of a misspelled word without comparing it against every term. Each term is indexed under every string
+ * that can be made by deleting up to two characters from its first few characters, as done by SymSpell.
+ * Two words within the edit distance share at least one such deletion, so looking up the deletions of a
+ * word gives a handful of candidate terms whose distance is then checked exactly.
+ * <p>
+ * The deletions are kept as a sorted array of their hashes paired with term numbers, so the index stays
+ * compact. Hash collisions only add candidates that fail the distance check. Terms added since the array
+ * was built are kept in a small map until there are enough of them to rebuild the array.
+ */
+class FuzzyTermIndex implements JournalChangeListener {
+	// the number of leading characters of a term whose deletions are indexed
+	private static final int PREFIX_LENGTH = 7;
+	private static final int MAX_EDIT_DISTANCE = 2;
+	
+	// the most terms a misspelled word is expanded to, closest first
+	private static final int MAX_EXPANSIONS = 10;
+	private static final int MAX_PENDING_TERMS = 10000;
+	
+	static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	
+	private static volatile FuzzyTermIndex instance;
+	
+	private final ConnectionPool pool;
+	// completed once the build finishes, whether or not it succeeded
+	private final CompletableFuture<Void> built;
+	
+	private final ArrayList<String> terms;
+	private final HashMap<String, Integer> termNumbers;
+	// each deletion hash in the upper 32 bits and the number of its term in the lower 32 bits, sorted
+	private long[] deletions;
+	// deletions of terms added since the array was built
+	private final HashMap<Integer, List<Integer>> pendingDeletions;
+	private int pendingTerms;
+	
+	
+	/**
+	 * Constructs an empty index
+	 * 
+	 * @param pool the connection pool of the journals database
+	 */
+	private FuzzyTermIndex(ConnectionPool pool) {
+		this.pool = pool;
+		this.built = new CompletableFuture<>();
+		this.terms = new ArrayList<>();
+		this.termNumbers = new HashMap<>();
+		this.deletions = new long[0];
+		this.pendingDeletions = new HashMap<>();
+		this.pendingTerms = 0;
+	}
+	
+	
+	/**
+	 * Builds the index from the vocabulary of the full-text index in the background,
+	 * then keeps it up to date with every journal write
+	 * 
+	 * @param pool the connection pool of the journals database
+	 */
+	static void open(ConnectionPool pool) {
+		FuzzyTermIndex index = new FuzzyTermIndex(pool);
+		
+		// listen before building, adding a term twice is harmless but missing one is not
+		JournalEvents.addListener(index);
+		// published before the build starts, so a build that fails straight away is not undone
+		instance = index;
+		
+		// built on its own thread, since the reader threads may all be busy with searches
+		DBExecutor.daemonThreads("journalicious-fuzzy-index").newThread(() -> {
+			try {
+				index.build();
+			} catch (SQLException ex) {
+				instance = null;
+				JournalEvents.removeListener(index);
+				System.out.println("Failed to build the fuzzy term index, fuzzy searches will match exactly!");
+				ex.printStackTrace();
+			} finally {
+				index.built.complete(null);
+			}
+		}).start();
+	}
+	
+	
+	/**
+	 * Builds an FTS5 match expression that matches every word of a keyword, or any term in the
+	 * full-text index within a small edit distance of it
+	 * 
+	 * @param keyword the possibly misspelled keyword
+	 * @return a match expression, or null if the keyword has no words or the index is unavailable or still being built
+	 */
+	static String toMatchExpression(String keyword) {
+		// searches made while the index is built match exactly rather than wait for it
+		FuzzyTermIndex index = instance;
+		if (index == null || !index.built.isDone()) {
+			return null;
+		}
+		
+		StringBuilder expression = new StringBuilder();
+		for (String token : TOKEN_SEPARATOR.split(normalize(keyword))) {
+			if (token.isEmpty()) {
+				continue;
+			}
+			
+			// FTS5 only joins parenthesized groups with an explicit AND
+			if (expression.length() > 0) {
+				expression.append(" AND ");
+			}
+			expression.append('(');
+			
+			List<String> expansions = index.findSimilarTerms(token);
+			for (int i = 0; i < expansions.size(); i++) {
+				if (i > 0) {
+					expression.append(" OR ");
+				}
+				expression.append('"').append(expansions.get(i)).append('"');
+			}
+			expression.append(')');
+		}
+		
+		return expression.length() > 0 ? expression.toString() : null;
+	}
+	
+	
+	/**
+	 * Finds the terms within the allowed edit distance of a word, always including the word itself
+	 * 
+	 * @param word a normalized word
+	 * @return the word followed by up to MAX_EXPANSIONS similar terms, closest first
+	 */
+	private synchronized List<String> findSimilarTerms(String word) {
+		int maxDistance = maxDistance(word);
+		
+		Set<Integer> candidates = new HashSet<>();
+		for (String deletion : deletionsOf(word, maxDistance)) {
+			int hash = deletion.hashCode();
+			
+			int position = Arrays.binarySearch(this.deletions, (long) hash << 32);
+			for (position = position < 0 ? -position - 1 : position; position < this.deletions.length; position++) {
+				if ((int) (this.deletions[position] >>> 32) != hash) {
+					break;
+				}
+				candidates.add((int) this.deletions[position]);
+			}
+			
+			List<Integer> pending = this.pendingDeletions.get(hash);
+			if (pending != null) {
+				candidates.addAll(pending);
+			}
+		}
+		
+		// keep the candidates that really are close, ignoring the word itself which is always searched for
+		HashMap<String, Integer> distances = new HashMap<>();
+		for (int candidate : candidates) {
+			String term = this.terms.get(candidate);
+			int distance = editDistance(word, term, maxDistance);
+			if (distance > 0 && distance <= maxDistance) {
+				distances.put(term, distance);
+			}
+		}
+		
+		List<String> similar = new ArrayList<>(distances.keySet());
+		similar.sort(Comparator.comparing((String term) -> distances.get(term)).thenComparing(Comparator.naturalOrder()));
+		
+		List<String> expansions = new ArrayList<>();
+		expansions.add(word);
+		expansions.addAll(similar.subList(0, Math.min(similar.size(), MAX_EXPANSIONS)));
+		
+		return expansions;
+	}
+	
+	
+	/**
+	 * Adds the terms of created and updated journal entries to the index
+	 * 
+	 * @param change the journal entries that changed and how
+	 */
+	@Override
+	public void onJournalChanged(JournalChange change) {
+		// terms of deleted entries are kept, expanding to a term no entry has just matches nothing
+		if (change.getType() == JournalChange.Type.DELETED) {
+			return;
+		}
+		
+		try (ConnectionPool.Lease lease = this.pool.borrowReader()) {
+			PreparedStatement statement = lease.prepare("SELECT title, context FROM journal WHERE id IN (SELECT value FROM json_each(?))");
+			statement.setString(1, change.getIDs().toString());
+			
+			try (ResultSet results = statement.executeQuery()) {
+				synchronized (this) {
+					while (results.next()) {
+						this.addText(results.getString("title"));
+						this.addText(results.getString("context"));
+					}
+					
+					if (this.pendingTerms > MAX_PENDING_TERMS) {
+						this.rebuildDeletions();
+					}
+				}
+			}
+		} catch (SQLException ex) {
+			System.out.println("Failed to add new terms to the fuzzy term index!");
+			ex.printStackTrace();
+		}
+	}
+	
+	
+	/**
+	 * Reads every term of the full-text index and indexes its deletions
+	 * 
+	 * @throws SQLException if the vocabulary could not be read
+	 */
+	private synchronized void build() throws SQLException {
+		try (ConnectionPool.Lease lease = this.pool.borrowReader();
+				PreparedStatement statement = lease.getConnection().prepareStatement("SELECT term FROM journal_fts_vocab")) {
+			statement.setFetchSize(JournalDAO.DEFAULT_FETCH_SIZE);
+			
+			try (ResultSet results = statement.executeQuery()) {
+				while (results.next()) {
+					this.addTerm(results.getString("term"));
+				}
+			}
+		}
+		
+		this.rebuildDeletions();
+	}
+	
+	
+	/**
+	 * Splits a text into terms the same way the full-text index does and adds any new ones
+	 * 
+	 * @param text the text to add, may be null
+	 */
+	private void addText(String text) {
+		if (text == null) {
+			return;
+		}
+		
+		for (String term : TOKEN_SEPARATOR.split(normalize(text))) {
+			if (!term.isEmpty() && this.addTerm(term)) {
+				int number = this.termNumbers.get(term);
+				for (String deletion : deletionsOf(term, MAX_EDIT_DISTANCE)) {
+					this.pendingDeletions.computeIfAbsent(deletion.hashCode(), key -> new ArrayList<>()).add(number);
+				}
+				this.pendingTerms++;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Numbers a term if it is new
+	 * 
+	 * @param term a normalized term
+	 * @return true if the term was new
+	 */
+	private boolean addTerm(String term) {
+		if (this.termNumbers.containsKey(term)) {
+			return false;
+		}
+		
+		this.termNumbers.put(term, this.terms.size());
+		this.terms.add(term);
+		return true;
+	}
+	
+	
+	/**
+	 * Rebuilds the sorted array of deletions from every term, emptying the pending deletions
+	 */
+	private void rebuildDeletions() {
+		long[] rebuilt = new long[this.terms.size() * 8];
+		int count = 0;
+		
+		for (int number = 0; number < this.terms.size(); number++) {
+			for (String deletion : deletionsOf(this.terms.get(number), MAX_EDIT_DISTANCE)) {
+				if (count == rebuilt.length) {
+					rebuilt = Arrays.copyOf(rebuilt, rebuilt.length * 2);
+				}
+				rebuilt[count++] = ((long) deletion.hashCode() << 32) | number;
+			}
+		}
+		
+		rebuilt = Arrays.copyOf(rebuilt, count);
+		Arrays.sort(rebuilt);
+		
+		this.deletions = rebuilt;
+		this.pendingDeletions.clear();
+		this.pendingTerms = 0;
+	}
+	
+	
+	/**
+	 * Gets how many edits a word may be away from a term, fewer for short words where
+	 * a couple of edits would match almost anything
+	 * 
+	 * @param word a normalized word
+	 * @return the maximum edit distance
+	 */
+	static int maxDistance(String word) {
+		if (word.length() <= 2) {
+			return 0;
+		}
+		return word.length() <= 5 ? 1 : MAX_EDIT_DISTANCE;
+	}
+	
+	
+	/**
+	 * Gets every string made by deleting up to a number of characters from the start of a word
+	 * 
+	 * @param word a normalized word
+	 * @param maxDeletions the most characters deleted
+	 * @return the start of the word and every deletion from it
+	 */
+	private static Set<String> deletionsOf(String word, int maxDeletions) {
+		Set<String> deletions = new HashSet<>();
+		String prefix = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+		deletions.add(prefix);
+		
+		Set<String> previous = deletions;
+		for (int deleted = 1; deleted <= maxDeletions; deleted++) {
+			Set<String> next = new HashSet<>();
+			for (String variant : previous) {
+				for (int i = 0; i < variant.length(); i++) {
+					next.add(variant.substring(0, i) + variant.substring(i + 1));
+				}
+			}
+			deletions.addAll(next);
+			previous = next;
+		}
+		
+		return deletions;
+	}
+	
+	
+	/**
+	 * Computes the number of insertions, deletions, substitutions and adjacent transpositions
+	 * needed to turn one word into another, giving up once it exceeds a maximum
+	 * 
+	 * @param a the first word
+	 * @param b the second word
+	 * @param max the largest distance of interest
+	 * @return the edit distance, or max + 1 if it is larger than max
+	 */
+	static int editDistance(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max) {
+			return max + 1;
+		}
+		
+		int[] beforePrevious = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMinimum = current[0];
+			
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+				}
+				rowMinimum = Math.min(rowMinimum, current[j]);
+			}
+			
+			if (rowMinimum > max) {
+				return max + 1;
+			}
+			
+			int[] recycled = beforePrevious;
+			beforePrevious = previous;
+			previous = current;
+			current = recycled;
+		}
+		
+		return previous[b.length()];
+	}
+	
+	
+	/**
+	 * Folds a text the way the unicode61 tokenizer of the full-text index does, lower casing it and removing diacritics
+	 * 
+	 * @param text the text to fold
+	 * @return the folded text
+	 */
+	static String normalize(String text) {
+		String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+		return DIACRITICS.matcher(decomposed).replaceAll("");
+	}
+
+}
\ No newline at end of file
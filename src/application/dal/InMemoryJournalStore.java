@@ -0,0 +1,837 @@
+package application.dal;
+
+import java.io.IOException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import application.models.JournalChange;
+import application.models.JournalEntry;
+import application.models.JournalModel;
+import application.models.JournalPage;
+import application.models.JournalSummary;
+
+/**
+ * A JournalStore that keeps every journal entry in memory, for tests and as a baseline to benchmark the other stores against.
+ * Journal entries are ordered the same way as in the journals database and searches match words the way
+ * the full-text index does, scanning every journal entry rather than looking them up in an index.
+ * Nothing outlives the application unless a subclass persists the writes.
+ */
+public class InMemoryJournalStore implements JournalStore {
+	// the same order as the chronological index of the journals database, where a missing date sorts first
+	private static final Comparator<Row> CHRONOLOGICAL = Comparator
+			.comparing((Row row) -> row.date, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+			.thenComparingInt(row -> row.hour)
+			.thenComparingInt(row -> row.minute)
+			.thenComparingInt(row -> row.id);
+	private static final Comparator<Row> BY_TIMESTAMP = Comparator.comparingLong((Row row) -> row.timestamp)
+			.thenComparingInt(row -> row.id);
+	
+	// also held by subclasses that change how journal entries are kept, such as moving them within a log
+	final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<Integer, Row> rows = new TreeMap<>();
+	private final TreeSet<Row> chronological = new TreeSet<>(CHRONOLOGICAL);
+	// only the journal entries with a well formed date have a timestamp, like the ts column
+	private final TreeSet<Row> timeline = new TreeSet<>(BY_TIMESTAMP);
+	
+	// ids are never reused, even after the newest journal entry is deleted
+	private int lastID;
+	
+	
+	@Override
+	public int createJournal(String title, String date, int hour, int minute, String context) {
+		int id = -1;
+		
+		this.lock.writeLock().lock();
+		try {
+			Row row = new Row(this.lastID + 1, title, date, hour, minute, context);
+			if (this.commit(Collections.singletonList(row), Collections.emptyList())) {
+				id = row.id;
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		if (id != -1) {
+			JournalEvents.publish(JournalChange.Type.CREATED, Collections.singletonList(id));
+		}
+		
+		return id;
+	}
+	
+	
+	@Override
+	public int[] createJournals(Collection<JournalModel> journals) {
+		int[] outcomes = new int[journals.size()];
+		ArrayList<Integer> ids = new ArrayList<>();
+		
+		this.lock.writeLock().lock();
+		try {
+			ArrayList<Row> written = new ArrayList<>();
+			for (JournalModel journal : journals) {
+				written.add(new Row(this.lastID + written.size() + 1, journal.getTitle(), journal.getDate(),
+						journal.getHour(), journal.getMinute(), journal.getContext()));
+			}
+			
+			if (this.commit(written, Collections.emptyList())) {
+				Arrays.fill(outcomes, 1);
+				for (Row row : written) {
+					ids.add(row.id);
+				}
+			}
+			else {
+				Arrays.fill(outcomes, Statement.EXECUTE_FAILED);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		JournalEvents.publish(JournalChange.Type.CREATED, ids);
+		return outcomes;
+	}
+	
+	
+	@Override
+	public void updateJournal(JournalModel journal) {
+		this.updateJournals(Collections.singletonList(journal));
+	}
+	
+	
+	@Override
+	public int[] updateJournals(Collection<JournalModel> journals) {
+		int[] outcomes = new int[journals.size()];
+		ArrayList<Integer> ids = new ArrayList<>();
+		
+		this.lock.writeLock().lock();
+		try {
+			// journal entries that no longer exist are skipped, like an UPDATE matching no row
+			ArrayList<Row> written = new ArrayList<>();
+			int i = 0;
+			for (JournalModel journal : journals) {
+				if (this.rows.containsKey(journal.getID())) {
+					written.add(new Row(journal.getID(), journal.getTitle(), journal.getDate(),
+							journal.getHour(), journal.getMinute(), journal.getContext()));
+					outcomes[i] = 1;
+				}
+				i++;
+			}
+			
+			if (this.commit(written, Collections.emptyList())) {
+				for (Row row : written) {
+					ids.add(row.id);
+				}
+			}
+			else {
+				Arrays.fill(outcomes, Statement.EXECUTE_FAILED);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		JournalEvents.publish(JournalChange.Type.UPDATED, ids);
+		return outcomes;
+	}
+	
+	
+	@Override
+	public void deleteJournal(int id) {
+		this.deleteJournals(Collections.singletonList(id));
+	}
+	
+	
+	@Override
+	public int[] deleteJournals(Collection<Integer> ids) {
+		int[] outcomes = new int[ids.size()];
+		ArrayList<Integer> deleted = new ArrayList<>();
+		
+		this.lock.writeLock().lock();
+		try {
+			// an id given twice is only deleted the first time
+			Set<Integer> found = new LinkedHashSet<>();
+			int i = 0;
+			for (int id : ids) {
+				if (this.rows.containsKey(id) && found.add(id)) {
+					outcomes[i] = 1;
+				}
+				i++;
+			}
+			
+			if (this.commit(Collections.emptyList(), new ArrayList<>(found))) {
+				deleted.addAll(found);
+			}
+			else {
+				Arrays.fill(outcomes, Statement.EXECUTE_FAILED);
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		JournalEvents.publish(JournalChange.Type.DELETED, deleted);
+		return outcomes;
+	}
+	
+	
+	/**
+	 * Makes a set of writes, persisting them first so that either all of them are made or none are.
+	 * Must be called while holding the write lock.
+	 * 
+	 * @param written the journal entries created or updated
+	 * @param deleted the ids of the journal entries deleted
+	 * @return true if the writes were made, false if they could not be persisted and nothing changed
+	 */
+	private boolean commit(List<Row> written, List<Integer> deleted) {
+		if (written.isEmpty() && deleted.isEmpty()) {
+			return true;
+		}
+		
+		List<Row> kept;
+		try {
+			kept = this.persist(written, deleted);
+		} catch (IOException ex) {
+			System.out.println("Failed to save " + (written.size() + deleted.size()) + " journal changes!");
+			ex.printStackTrace();
+			return false;
+		}
+		
+		for (Row row : kept) {
+			this.put(row);
+		}
+		for (int id : deleted) {
+			this.remove(id);
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Persists a set of writes before they are made in memory, all or nothing.
+	 * Kept in memory only, the writes are not persisted anywhere.
+	 * 
+	 * @param written the journal entries created or updated
+	 * @param deleted the ids of the journal entries deleted
+	 * @return the rows kept in memory for the written journal entries, in their place
+	 * @throws IOException if the writes could not be persisted
+	 */
+	List<Row> persist(List<Row> written, List<Integer> deleted) throws IOException {
+		return written;
+	}
+	
+	
+	/**
+	 * Adds or replaces a journal entry in memory, without persisting or publishing the change
+	 * 
+	 * @param row the journal entry
+	 * @return the row it replaced, or null if the journal entry is new
+	 */
+	Row put(Row row) {
+		Row previous = this.rows.put(row.id, row);
+		if (previous != null) {
+			this.chronological.remove(previous);
+			if (previous.timestamp != null) {
+				this.timeline.remove(previous);
+			}
+		}
+		
+		this.chronological.add(row);
+		if (row.timestamp != null) {
+			this.timeline.add(row);
+		}
+		this.lastID = Math.max(this.lastID, row.id);
+		return previous;
+	}
+	
+	
+	/**
+	 * Removes a journal entry from memory, without persisting or publishing the change
+	 * 
+	 * @param id the id of the journal entry
+	 * @return the row removed, or null if there was no such journal entry
+	 */
+	Row remove(int id) {
+		Row previous = this.rows.remove(id);
+		if (previous != null) {
+			this.chronological.remove(previous);
+			if (previous.timestamp != null) {
+				this.timeline.remove(previous);
+			}
+		}
+		this.lastID = Math.max(this.lastID, id);
+		return previous;
+	}
+	
+	
+	/**
+	 * Gets the row of every journal entry in id order. Must be called while holding the lock.
+	 * 
+	 * @return a view of the rows kept in memory
+	 */
+	Collection<Row> currentRows() {
+		return this.rows.values();
+	}
+	
+	
+	/**
+	 * Gets the row of a journal entry. Must be called while holding the lock.
+	 * 
+	 * @param id the id of the journal entry
+	 * @return the row kept in memory, or null if there is no such journal entry
+	 */
+	Row currentRow(int id) {
+		return this.rows.get(id);
+	}
+	
+	
+	/**
+	 * Gets the highest id assigned so far. Must be called while holding the lock.
+	 * 
+	 * @return the id of the newest journal entry, even if it was deleted since
+	 */
+	int getLastID() {
+		return this.lastID;
+	}
+	
+	
+	@Override
+	public JournalModel getJournal(int id) {
+		this.lock.readLock().lock();
+		try {
+			Row row = this.rows.get(id);
+			return row == null ? null : row.toJournal();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	
+	@Override
+	public ArrayList<JournalModel> getJournals() {
+		return this.collect(this.rows.values(), Row::toJournal, Integer.MAX_VALUE);
+	}
+	
+	
+	/**
+	 * Streams every journal entry in id order. Every journal entry is already in memory,
+	 * so the stream is over a copy taken when it is opened and the fetch size is ignored.
+	 * 
+	 * @param fetchSize the number of journal entries to read at a time
+	 * @return a stream of every journal entry
+	 */
+	@Override
+	public Stream<JournalModel> streamJournals(int fetchSize) {
+		return this.getJournals().stream();
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> getJournalSummaries() {
+		return this.collect(this.rows.values(), Row::toSummary, Integer.MAX_VALUE);
+	}
+	
+	
+	@Override
+	public ArrayList<JournalModel> getJournals(String keyword, SearchMode mode) {
+		ArrayList<JournalModel> journals = new ArrayList<>();
+		for (Match match : this.search(keyword, mode, JournalDAO.DEFAULT_SEARCH_LIMIT)) {
+			journals.add(match.row.toJournal());
+		}
+		return journals;
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> getJournalSummaries(String keyword, SearchMode mode) {
+		return toRankedSummaries(this.search(keyword, mode, JournalDAO.DEFAULT_SEARCH_LIMIT));
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> streamJournalSummaries(String keyword, SearchMode mode, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation) {
+		if (cancellation.isCancelled()) {
+			return null;
+		}
+		
+		List<Match> matches = this.search(keyword, mode, JournalDAO.DEFAULT_SEARCH_LIMIT);
+		return handOver(toRankedSummaries(matches), batchSize, batches, cancellation);
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> streamJournalSummaries(JournalQuery journalQuery, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation) {
+		if (cancellation.isCancelled()) {
+			return null;
+		}
+		
+		List<Match> matches = new ArrayList<>();
+		this.lock.readLock().lock();
+		try {
+			for (Row row : this.chronological.descendingSet()) {
+				double score = journalQuery.score(row.getTitleText(), row.getContextText(), row.date, row.hour, row.minute);
+				if (score >= 0) {
+					matches.add(new Match(row, score));
+				}
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		
+		return handOver(toRankedSummaries(mostRelevant(matches, JournalDAO.DEFAULT_SEARCH_LIMIT)), batchSize, batches, cancellation);
+	}
+	
+	
+	/**
+	 * Finds the most relevant journal entries matching a keyword, scoring each with the weights of the
+	 * full-text ranking for every word found in its title and context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @param limit the maximum number of journal entries returned
+	 * @return the most relevant matches, most relevant and then newest first
+	 */
+	private List<Match> search(String keyword, SearchMode mode, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Search limit must be positive: " + limit);
+		}
+		
+		// keywords without any words can only be matched by substring, as in the journals database
+		String[] words = TokenizedText.split(keyword);
+		boolean isSubstring = mode == SearchMode.SUBSTRING || words.length == 0;
+		String substring = keyword.toLowerCase(Locale.ROOT);
+		
+		List<Match> matches = new ArrayList<>();
+		this.lock.readLock().lock();
+		try {
+			// walking newest first lets the stable sort by score keep ties newest first
+			for (Row row : this.chronological.descendingSet()) {
+				double score = isSubstring ? row.scoreSubstring(substring) : row.scoreWords(words, mode);
+				if (score > 0) {
+					matches.add(new Match(row, score));
+				}
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		
+		return mostRelevant(matches, limit);
+	}
+	
+	
+	private static List<Match> mostRelevant(List<Match> matches, int limit) {
+		matches.sort(Comparator.comparingDouble((Match match) -> match.score).reversed());
+		return matches.size() > limit ? matches.subList(0, limit) : matches;
+	}
+	
+	
+	private static ArrayList<JournalSummary> toRankedSummaries(List<Match> matches) {
+		ArrayList<JournalSummary> journals = new ArrayList<>();
+		for (Match match : matches) {
+			journals.add(match.row.toSummary(match.score));
+		}
+		return journals;
+	}
+	
+	
+	/**
+	 * Hands the results of a search over in batches, stopping if the search is cancelled in between
+	 * 
+	 * @param found every summary found by the search
+	 * @param batchSize the number of summaries in each batch but the last
+	 * @param batches receives each batch of summaries
+	 * @param cancellation cancels the search from another thread
+	 * @return the summaries found, or null if the search was cancelled
+	 */
+	private static ArrayList<JournalSummary> handOver(ArrayList<JournalSummary> found, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation) {
+		int start = 0;
+		do {
+			if (cancellation.isCancelled()) {
+				return null;
+			}
+			
+			batches.accept(new ArrayList<>(found.subList(start, Math.min(start + batchSize, found.size()))));
+			start += batchSize;
+		} while (start < found.size());
+		
+		return found;
+	}
+	
+	
+	@Override
+	public int countJournals() {
+		this.lock.readLock().lock();
+		try {
+			return this.rows.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	
+	/**
+	 * Gets the summaries of a window of journal entries by position, ordered from newest to oldest.
+	 * The chronological order has no positions, so the entries before the window are walked over.
+	 * 
+	 * @param offset the position of the first journal entry of the window
+	 * @param limit the maximum number of journal entries in the window
+	 * @return an ArrayList containing the summaries of the journal entries in the window
+	 */
+	@Override
+	public ArrayList<JournalSummary> getJournalSummaryWindow(int offset, int limit) {
+		this.lock.readLock().lock();
+		try {
+			Iterator<Row> newestFirst = this.chronological.descendingIterator();
+			for (int skipped = 0; skipped < offset && newestFirst.hasNext(); skipped++) {
+				newestFirst.next();
+			}
+			
+			ArrayList<JournalSummary> journals = new ArrayList<>();
+			while (journals.size() < limit && newestFirst.hasNext()) {
+				journals.add(newestFirst.next().toSummary());
+			}
+			return journals;
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> getJournalSummariesBetween(LocalDateTime from, LocalDateTime to, boolean isNewestFirst, int limit) {
+		this.lock.readLock().lock();
+		try {
+			NavigableSet<Row> between = this.timeline.subSet(Row.probe(JournalDAO.toTimestamp(from)), true,
+					Row.probe(JournalDAO.toTimestamp(to)), false);
+			return this.collect(isNewestFirst ? between.descendingSet() : between, Row::toSummary, limit);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> getNewestJournalSummaries(int limit) {
+		return this.collect(this.timeline.descendingSet(), Row::toSummary, limit);
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> getOldestJournalSummaries(int limit) {
+		return this.collect(this.timeline, Row::toSummary, limit);
+	}
+	
+	
+	@Override
+	public ArrayList<JournalSummary> getJournalSummariesOnThisDay(MonthDay day, int limit) {
+		ArrayList<JournalSummary> journals = new ArrayList<>();
+		
+		this.lock.readLock().lock();
+		try {
+			for (Row row : this.timeline.descendingSet()) {
+				if (journals.size() >= limit) {
+					break;
+				}
+				if (MonthDay.from(JournalDAO.toDateTime(row.timestamp)).equals(day)) {
+					journals.add(row.toSummary());
+				}
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		
+		return journals;
+	}
+	
+	
+	@Override
+	public JournalPage<JournalModel> getJournalPage(String pageToken, int pageSize) {
+		return this.page(Row::toJournal, pageToken, pageSize);
+	}
+	
+	
+	@Override
+	public JournalPage<JournalSummary> getJournalSummaryPage(String pageToken, int pageSize) {
+		return this.page(Row::toSummary, pageToken, pageSize);
+	}
+	
+	
+	/**
+	 * Gets a page of journal entries ordered from newest to oldest, starting after the position in the token
+	 * 
+	 * @param reader converts each journal entry on the page
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of at most pageSize journal entries and the token of the following page
+	 */
+	private <T extends JournalEntry> JournalPage<T> page(Function<Row, T> reader, String pageToken, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		
+		PageToken position = (pageToken != null) ? PageToken.decode(pageToken) : null;
+		
+		this.lock.readLock().lock();
+		try {
+			NavigableSet<Row> older = this.chronological;
+			if (position != null) {
+				Row last = new Row(position.getID(), null, position.getDate(), position.getHour(), position.getMinute(), null);
+				older = this.chronological.headSet(last, false);
+			}
+			
+			// collect one extra entry to find out whether there is a following page
+			return JournalDAO.toPage(this.collect(older.descendingSet(), reader, pageSize + 1), pageSize);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	
+	/**
+	 * Converts the first journal entries of a collection while holding the read lock
+	 * 
+	 * @param rows the journal entries in the order they are returned
+	 * @param reader converts each journal entry
+	 * @param limit the maximum number of journal entries converted
+	 * @return an ArrayList containing the converted journal entries
+	 */
+	private <T> ArrayList<T> collect(Collection<Row> rows, Function<Row, T> reader, int limit) {
+		ArrayList<T> journals = new ArrayList<>();
+		
+		this.lock.readLock().lock();
+		try {
+			for (Row row : rows) {
+				if (journals.size() >= limit) {
+					break;
+				}
+				journals.add(reader.apply(row));
+			}
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		
+		return journals;
+	}
+	
+	
+	
+	/**
+	 * An immutable copy of a journal entry as it is stored, so that changes to a JournalModel
+	 * are only seen by the store once they are written. Subclasses may read the title and context from elsewhere.
+	 */
+	static class Row {
+		final int id;
+		private final String title;
+		final String date;
+		final int hour;
+		final int minute;
+		private final String context;
+		// the minutes since the epoch as in the ts column, or null if the date is malformed
+		final Long timestamp;
+		
+		// the words of the title and context, split the first time the journal entry is searched
+		private volatile TokenizedText titleText;
+		private volatile TokenizedText contextText;
+		
+		Row(int id, String title, String date, int hour, int minute, String context) {
+			this.id = id;
+			this.title = title;
+			this.date = date;
+			this.hour = hour;
+			this.minute = minute;
+			this.context = context;
+			this.timestamp = timestampOf(date, hour, minute);
+		}
+		
+		
+		private Row(long timestamp) {
+			this.id = Integer.MIN_VALUE;
+			this.title = null;
+			this.date = null;
+			this.hour = 0;
+			this.minute = 0;
+			this.context = null;
+			this.timestamp = timestamp;
+		}
+		
+		
+		/**
+		 * Creates a row that sorts before every journal entry written at a given time, for looking up ranges of time
+		 * 
+		 * @param timestamp the minutes since the epoch
+		 * @return a row holding only the timestamp
+		 */
+		private static Row probe(long timestamp) {
+			return new Row(timestamp);
+		}
+		
+		
+		/**
+		 * Packs a date and time into the minutes since the epoch like JournalSchema.timestampOf
+		 * 
+		 * @param date the date in the format yyyy-MM-dd
+		 * @param hour the hour
+		 * @param minute the minute
+		 * @return the timestamp, or null if the date is malformed
+		 */
+		private static Long timestampOf(String date, int hour, int minute) {
+			if (date == null) {
+				return null;
+			}
+			
+			try {
+				return LocalDate.parse(date).toEpochDay() * JournalDAO.MINUTES_PER_DAY + hour * 60 + minute;
+			} catch (DateTimeParseException ex) {
+				return null;
+			}
+		}
+		
+		
+		String getTitle() {
+			return this.title;
+		}
+		
+		
+		String getContext() {
+			return this.context;
+		}
+		
+		
+		TokenizedText getTitleText() {
+			if (this.titleText == null) {
+				this.titleText = new TokenizedText(this.getTitle());
+			}
+			return this.titleText;
+		}
+		
+		
+		TokenizedText getContextText() {
+			if (this.contextText == null) {
+				this.contextText = new TokenizedText(this.getContext());
+			}
+			return this.contextText;
+		}
+		
+		
+		/**
+		 * Scores the journal entry by where every word of a keyword is found
+		 * 
+		 * @param words the words of the keyword
+		 * @param mode how each word is matched
+		 * @return the sum of the weights of the title and context for every word found in them, or 0 if a word is missing
+		 */
+		private double scoreWords(String[] words, SearchMode mode) {
+			double score = 0;
+			TokenizedText title = this.getTitleText();
+			TokenizedText context = this.getContextText();
+			
+			for (String word : words) {
+				boolean isInTitle = title.contains(word, mode);
+				boolean isInContext = context.contains(word, mode);
+				if (!isInTitle && !isInContext) {
+					return 0;
+				}
+				score += (isInTitle ? JournalSchema.TITLE_WEIGHT : 0) + (isInContext ? JournalSchema.CONTEXT_WEIGHT : 0);
+			}
+			
+			return score;
+		}
+		
+		
+		/**
+		 * Scores the journal entry by where a keyword is found as a substring, ignoring case
+		 * 
+		 * @param substring the lower cased keyword
+		 * @return the sum of the weights of the title and context if they contain the keyword
+		 */
+		private double scoreSubstring(String substring) {
+			double score = 0;
+			String title = this.getTitle();
+			if (title != null && title.toLowerCase(Locale.ROOT).contains(substring)) {
+				score += JournalSchema.TITLE_WEIGHT;
+			}
+			String context = this.getContext();
+			if (context != null && context.toLowerCase(Locale.ROOT).contains(substring)) {
+				score += JournalSchema.CONTEXT_WEIGHT;
+			}
+			return score;
+		}
+		
+		
+		JournalModel toJournal() {
+			return new JournalModel(this.id, this.getTitle(), this.date, this.hour, this.minute, this.getContext());
+		}
+		
+		
+		JournalSummary toSummary() {
+			return new JournalSummary(this.id, this.getTitle(), this.date, this.hour, this.minute, this.getPreview());
+		}
+		
+		
+		JournalSummary toSummary(double score) {
+			return new JournalSummary(this.id, this.getTitle(), this.date, this.hour, this.minute, this.getPreview(), score);
+		}
+		
+		
+		/**
+		 * Gets the start of the context shown when listing journal entries, counting characters like substr does
+		 * 
+		 * @return the first JournalDAO.PREVIEW_LENGTH characters of the context
+		 */
+		String getPreview() {
+			return previewOf(this.getContext());
+		}
+		
+		
+		/**
+		 * Cuts a context down to its first JournalDAO.PREVIEW_LENGTH characters, counting characters like substr does
+		 * 
+		 * @param context the context, or the start of it
+		 * @return the start of the context shown when listing journal entries
+		 */
+		static String previewOf(String context) {
+			if (context == null || context.length() <= JournalDAO.PREVIEW_LENGTH) {
+				return context;
+			}
+			
+			int end = 0;
+			for (int i = 0; i < JournalDAO.PREVIEW_LENGTH && end < context.length(); i++) {
+				end += Character.charCount(context.codePointAt(end));
+			}
+			return context.substring(0, end);
+		}
+	}
+	
+	
+	/**
+	 * A journal entry found by a search and its relevance to the search
+	 */
+	private static class Match {
+		private final Row row;
+		private final double score;
+		
+		private Match(Row row, double score) {
+			this.row = row;
+			this.score = score;
+		}
+	}
+
+}
\ No newline at end of file
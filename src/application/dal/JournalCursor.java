@@ -0,0 +1,155 @@
+package application.dal;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A forward-only cursor over the rows of a live query. Rows are converted one at a time as they are
+ * read, so a whole-journal pass runs in constant memory and can start before the query finishes.
+ * The cursor holds a reader connection until it is closed, so it must be used with try-with-resources.
+ * 
+ * @param <T> the type of journal entry produced by the cursor
+ */
+public class JournalCursor<T> implements Iterator<T>, AutoCloseable {
+	private final ConnectionPool.Lease lease;
+	private final PreparedStatement statement;
+	private final ResultSet results;
+	private final JournalDAO.RowReader<T> reader;
+	
+	private boolean hasPeeked;
+	private boolean hasRow;
+	private boolean isClosed;
+	
+	
+	/**
+	 * Opens a cursor over the result of a query
+	 * 
+	 * @param lease a lease on the reader connection that the cursor takes ownership of
+	 * @param query the query to run
+	 * @param fetchSize the number of rows to fetch at a time
+	 * @param reader converts each row into a journal entry
+	 * @throws SQLException if the query could not be run, in which case the lease is released
+	 */
+	JournalCursor(ConnectionPool.Lease lease, String query, int fetchSize, JournalDAO.RowReader<T> reader) throws SQLException {
+		this.lease = lease;
+		this.reader = reader;
+		this.hasPeeked = false;
+		this.hasRow = false;
+		this.isClosed = false;
+		
+		PreparedStatement statement = null;
+		try {
+			// a dedicated statement, since the cached one could be reused while this cursor is still open
+			statement = lease.getConnection().prepareStatement(query);
+			statement.setFetchSize(fetchSize);
+			this.statement = statement;
+			this.results = statement.executeQuery();
+		
+		} catch (SQLException ex) {
+			if (statement != null) {
+				statement.close();
+			}
+			lease.close();
+			throw ex;
+		}
+	}
+	
+	
+	/**
+	 * Checks whether the query has another row, closing the cursor once every row has been read
+	 * 
+	 * @return a boolean indicating whether next will return another journal entry
+	 * @throws IllegalStateException if the next row could not be read
+	 */
+	@Override
+	public boolean hasNext() {
+		if (this.isClosed) {
+			return false;
+		}
+		
+		if (!this.hasPeeked) {
+			try {
+				this.hasRow = this.results.next();
+				this.hasPeeked = true;
+			
+			} catch (SQLException ex) {
+				this.close();
+				throw new IllegalStateException("Failed to read the next journal entry!", ex);
+			}
+			
+			// give the connection back as soon as the query is exhausted
+			if (!this.hasRow) {
+				this.close();
+			}
+		}
+		
+		return this.hasRow;
+	}
+	
+	
+	/**
+	 * Reads the next row of the query
+	 * 
+	 * @return the journal entry of the next row
+	 * @throws NoSuchElementException if every row has been read
+	 * @throws IllegalStateException if the row could not be read
+	 */
+	@Override
+	public T next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		this.hasPeeked = false;
+		
+		try {
+			return this.reader.read(this.results);
+		
+		} catch (SQLException ex) {
+			this.close();
+			throw new IllegalStateException("Failed to read journal entry!", ex);
+		}
+	}
+	
+	
+	/**
+	 * Gets a sequential stream over the remaining rows of the cursor, closing the stream closes the cursor
+	 * 
+	 * @return a stream of the remaining journal entries
+	 */
+	public Stream<T> stream() {
+		Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+		return StreamSupport.stream(spliterator, false).onClose(this::close);
+	}
+	
+	
+	/**
+	 * Closes the query and returns the reader connection to its pool, only the first call has any effect
+	 */
+	@Override
+	public void close() {
+		if (this.isClosed) {
+			return;
+		}
+		this.isClosed = true;
+		
+		try {
+			this.results.close();
+			this.statement.close();
+		
+		} catch (SQLException ex) {
+			System.out.println("Failed to close journal cursor!");
+			ex.printStackTrace();
+		
+		} finally {
+			this.lease.close();
+		}
+	}
+
+}
\ No newline at end of file
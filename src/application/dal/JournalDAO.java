@@ -3,16 +3,51 @@ package application.dal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.MonthDay;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import application.dal.DBConnection.Database;
+import application.models.JournalChange;
+import application.models.JournalEntry;
 import application.models.JournalModel;
+import application.models.JournalPage;
+import application.models.JournalSummary;
 
 /**
  * A class that facilitates interacting with and manipulating journal data
  */
-public class JournalDAO {
+public class JournalDAO implements JournalStore {
+	// splits keywords on the same boundaries as the unicode61 tokenizer of the full-text index
+	private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	
+	// the number of characters of context shown when listing journal entries
+	public static final int PREVIEW_LENGTH = 200;
+	
+	// the number of rows a cursor fetches at a time unless told otherwise
+	public static final int DEFAULT_FETCH_SIZE = 256;
+	
+	static final long MINUTES_PER_DAY = 24 * 60;
+	
+	// the number of most relevant matches a search returns unless told otherwise
+	public static final int DEFAULT_SEARCH_LIMIT = 200;
+	
+	private static final String JOURNAL_COLUMNS = "journal.*";
+	private static final String SUMMARY_COLUMNS = "journal.id, journal.title, journal.date, journal.hour, journal.minute, "
+			+ "substr(journal.context, 1, " + PREVIEW_LENGTH + ") AS preview";
+	
+	
 	/**
 	 * Creates a journal entry and inserts it into the journals database
 	 * 
@@ -21,14 +56,17 @@ public class JournalDAO {
 	 * @param hour the hour of the time the journal entry was created in integer format
 	 * @param minute the minute of the time the journal entry was created in integer format
 	 * @param context the context of the journal entry in string format
+	 * @return the id assigned to the new journal entry, or -1 if it could not be added
 	 */
-	public void createJournal(String title, String date, int hour, int minute, String context) {
-		String updateQuery = "INSERT INTO journal (title, date, hour, minute, context) VALUES (?, ?, ?, ?, ?)";
+	@Override
+	public int createJournal(String title, String date, int hour, int minute, String context) {
+		String updateQuery = "INSERT INTO journal (title, date, hour, minute, context, ts) VALUES (?1, ?2, ?3, ?4, ?5, "
+				+ JournalSchema.timestampOf("?2", "?3", "?4") + ")";
+		int id = -1;
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.JOURNALS);
-			PreparedStatement statement = connection.prepareStatement(updateQuery);
+		try (ConnectionPool.Lease lease = DBConnection.borrowWriter(Database.JOURNALS)) {
+			// get cached statement from DB connection
+			PreparedStatement statement = lease.prepare(updateQuery);
 			
 			// configure query
 			statement.setString(1, title);
@@ -43,45 +81,362 @@ public class JournalDAO {
 			}
 			else {
 				System.out.println("Added journal to DB!");	
+				id = getLastInsertID(lease);
 			}
-			
+		
 		} catch (Exception ex) {
 			System.out.println("Failed to add journal to database!");
 			ex.printStackTrace();
 		}
+		
+		if (id != -1) {
+			JournalEvents.publish(JournalChange.Type.CREATED, Collections.singletonList(id));
+		}
+		
+		return id;
 	}
 	
-
+	
+	/**
+	 * Gets the id of the last row inserted on the writer connection
+	 * 
+	 * @param lease a lease on the writer connection that made the insert
+	 * @return the id of the last inserted row
+	 * @throws SQLException if the id could not be read
+	 */
+	private static int getLastInsertID(ConnectionPool.Lease lease) throws SQLException {
+		try (ResultSet results = lease.prepare("SELECT last_insert_rowid()").executeQuery()) {
+			results.next();
+			return results.getInt(1);
+		}
+	}
+	
+	
+	/**
+	 * Inserts many journal entries into the DB in a single transaction.
+	 * The ids of the given models are ignored, new ids are assigned by the DB.
+	 * 
+	 * @param journals the journal entries to insert
+	 * @return the number of rows inserted for each journal entry in order, or Statement.EXECUTE_FAILED
+	 * for every entry if the batch failed and was rolled back
+	 */
+	@Override
+	public int[] createJournals(Collection<JournalModel> journals) {
+		String updateQuery = "INSERT INTO journal (title, date, hour, minute, context, ts) VALUES (?1, ?2, ?3, ?4, ?5, "
+				+ JournalSchema.timestampOf("?2", "?3", "?4") + ")";
+		
+		int[] lastID = { -1 };
+		int[] outcomes = this.executeBatch(updateQuery, journals, (statement, journal) -> {
+			statement.setString(1, journal.getTitle());
+			statement.setString(2, journal.getDate());
+			statement.setInt(3, journal.getHour());
+			statement.setInt(4, journal.getMinute());
+			statement.setString(5, journal.getContext());
+		}, lease -> lastID[0] = getLastInsertID(lease));
+		
+		// a single writer inserting in one transaction with AUTOINCREMENT gets consecutive ids
+		ArrayList<Integer> ids = new ArrayList<>();
+		if (lastID[0] != -1) {
+			for (int id = lastID[0] - journals.size() + 1; id <= lastID[0]; id++) {
+				ids.add(id);
+			}
+		}
+		JournalEvents.publish(JournalChange.Type.CREATED, ids);
+		
+		return outcomes;
+	}
+	
+	
+	/**
+	 * Updates many existing journal entries within the DB in a single transaction
+	 * 
+	 * @param journals the JournalModels representing the journals to update in the DB
+	 * @return the number of rows updated for each journal entry in order, 0 if it no longer exists,
+	 * or Statement.EXECUTE_FAILED for every entry if the batch failed and was rolled back
+	 */
+	@Override
+	public int[] updateJournals(Collection<JournalModel> journals) {
+		String updateQuery = "UPDATE journal SET title = ?1, date = ?2, hour = ?3, minute = ?4, context = ?5, "
+				+ "ts = " + JournalSchema.timestampOf("?2", "?3", "?4") + " WHERE id = ?6";
+		
+		int[] outcomes = this.executeBatch(updateQuery, journals, (statement, journal) -> {
+			statement.setString(1, journal.getTitle());
+			statement.setString(2, journal.getDate());
+			statement.setInt(3, journal.getHour());
+			statement.setInt(4, journal.getMinute());
+			statement.setString(5, journal.getContext());
+			statement.setInt(6, journal.getID());
+		}, null);
+		
+		ArrayList<Integer> ids = new ArrayList<>();
+		for (JournalModel journal : journals) {
+			ids.add(journal.getID());
+		}
+		JournalEvents.publish(JournalChange.Type.UPDATED, changedIDs(ids, outcomes));
+		
+		return outcomes;
+	}
+	
+	
+	/**
+	 * Deletes many journal entries from the DB in a single transaction
+	 * 
+	 * @param ids the ids of the journal entries to delete
+	 * @return the number of rows deleted for each id in order, 0 if it no longer exists,
+	 * or Statement.EXECUTE_FAILED for every id if the batch failed and was rolled back
+	 */
+	@Override
+	public int[] deleteJournals(Collection<Integer> ids) {
+		String updateQuery = "DELETE FROM journal WHERE id = ?";
+		
+		int[] outcomes = this.executeBatch(updateQuery, ids, (statement, id) -> statement.setInt(1, id), null);
+		JournalEvents.publish(JournalChange.Type.DELETED, changedIDs(ids, outcomes));
+		
+		return outcomes;
+	}
+	
+	
+	/**
+	 * Picks out the ids whose statement in a batch changed a row
+	 * 
+	 * @param ids the ids bound to the batch, in order
+	 * @param outcomes the number of rows changed by each statement of the batch
+	 * @return the ids of the journal entries that were changed
+	 */
+	private static List<Integer> changedIDs(Collection<Integer> ids, int[] outcomes) {
+		ArrayList<Integer> changed = new ArrayList<>();
+		Iterator<Integer> iterator = ids.iterator();
+		
+		for (int i = 0; i < outcomes.length && iterator.hasNext(); i++) {
+			int id = iterator.next();
+			if (outcomes[i] > 0 || outcomes[i] == Statement.SUCCESS_NO_INFO) {
+				changed.add(id);
+			}
+		}
+		
+		return changed;
+	}
+	
+	
+	/**
+	 * Runs a statement once for every item as a single batch inside one transaction,
+	 * so the whole batch costs one sync to disk rather than one per row
+	 * 
+	 * @param updateQuery the statement to run for every item
+	 * @param items the items to bind to the statement, one execution each
+	 * @param binder sets the parameters of the statement for one item
+	 * @param beforeCommit runs on the writer connection after the batch and before it is committed, may be null
+	 * @return the number of rows changed by each execution in order, or Statement.EXECUTE_FAILED
+	 * for every item if the batch failed and was rolled back
+	 */
+	private <E> int[] executeBatch(String updateQuery, Collection<E> items, BatchBinder<E> binder, BatchHook beforeCommit) {
+		int[] outcomes = new int[items.size()];
+		if (items.isEmpty()) {
+			return outcomes;
+		}
+		
+		try (ConnectionPool.Lease lease = DBConnection.borrowWriter(Database.JOURNALS)) {
+			Connection connection = lease.getConnection();
+			PreparedStatement statement = lease.prepare(updateQuery);
+			
+			connection.setAutoCommit(false);
+			try {
+				for (E item : items) {
+					binder.bind(statement, item);
+					statement.addBatch();
+				}
+				
+				outcomes = statement.executeBatch();
+				if (beforeCommit != null) {
+					beforeCommit.run(lease);
+				}
+				connection.commit();
+				
+			} catch (SQLException ex) {
+				// the batch is all or nothing, so no row was changed
+				statement.clearBatch();
+				connection.rollback();
+				throw ex;
+				
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (Exception ex) {
+			System.out.println("Failed to run batch of " + items.size() + " journal changes!");
+			ex.printStackTrace();
+			Arrays.fill(outcomes, Statement.EXECUTE_FAILED);
+		}
+		
+		return outcomes;
+	}
+	
+	
+	/**
+	 * Gets the journal entry with a given id from the DB
+	 * 
+	 * @param id the id of the journal entry
+	 * @return a JournalModel of the journal entry, or null if no entry has the given id
+	 */
+	@Override
+	public JournalModel getJournal(int id) {
+		String query = "SELECT * FROM journal WHERE id = ?";
+		
+		ArrayList<JournalModel> journals = this.query(query, JournalDAO::readJournal, id);
+		return journals.isEmpty() ? null : journals.get(0);
+	}
+	
+	
 	/**
 	 * Gets all journal entries that are stored in the DB
 	 * 
 	 * @return an ArrayList containing a JournalModel for every journal in the DB
 	 */
+	@Override
 	public ArrayList<JournalModel> getJournals() {
-		ArrayList<JournalModel> journals = new ArrayList<>();
-		String query = "SELECT * FROM journal";
+		String query = "SELECT " + JOURNAL_COLUMNS + " FROM journal";
+		return this.query(query, JournalDAO::readJournal);
+	}
+	
+	
+	/**
+	 * Opens a cursor over every journal entry in the DB, in id order.
+	 * The cursor holds a reader connection until it is closed.
+	 * 
+	 * @param fetchSize the number of rows to fetch from the DB at a time
+	 * @return an open cursor over every journal entry
+	 * @throws SQLException if the query could not be started
+	 */
+	public JournalCursor<JournalModel> openJournalCursor(int fetchSize) throws SQLException {
+		String query = "SELECT " + JOURNAL_COLUMNS + " FROM journal ORDER BY id";
 		
+		ConnectionPool.Lease lease = DBConnection.borrowReader(Database.JOURNALS);
+		return new JournalCursor<>(lease, query, fetchSize, JournalDAO::readJournal);
+	}
+	
+	
+	/**
+	 * Streams every journal entry in the DB in id order through a cursor, so they are never all in memory at once.
+	 * The stream holds a reader connection until it is closed.
+	 * 
+	 * @param fetchSize the number of rows to fetch from the DB at a time
+	 * @return a stream of every journal entry, empty if the DB could not be read
+	 */
+	@Override
+	public Stream<JournalModel> streamJournals(int fetchSize) {
 		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.JOURNALS);
-			Statement statement = connection.createStatement();
+			return this.openJournalCursor(fetchSize).stream();
 			
-			// iterate through every row in journals db
-			ResultSet results = statement.executeQuery(query);
-			while (results.next()) {
-				// get all fields from the row of the db
-				int id = results.getInt("id");
-				String title = results.getString("title");
-				String date = results.getString("date");
-				int hour = results.getInt("hour");
-				int minute = results.getInt("minute");
-				String context = results.getString("context");
+		} catch (Exception ex) {
+			System.out.println("Failed to stream journal entries!");
+			ex.printStackTrace();
+			return Stream.empty();
+		}
+	}
+	
+	
+	/**
+	 * Gets a summary of every journal entry that is stored in the DB, without loading their full context
+	 * 
+	 * @return an ArrayList containing a JournalSummary for every journal in the DB
+	 */
+	@Override
+	public ArrayList<JournalSummary> getJournalSummaries() {
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM journal";
+		return this.query(query, JournalDAO::readSummary);
+	}
+	
+	
+	/**
+	 * Finds the summaries of the most relevant journal entries matching a given keyword, handing them over in batches
+	 * as they are read so the first matches can be shown before the search finishes
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against journal entries
+	 * @param batchSize the number of summaries in each batch but the last
+	 * @param batches receives each batch of summaries on the thread running the search
+	 * @param cancellation cancels the search from another thread
+	 * @return an ArrayList containing every summary found, or null if the search was cancelled
+	 */
+	@Override
+	public ArrayList<JournalSummary> streamJournalSummaries(String keyword, SearchMode mode, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation) {
+		ArrayList<Object> params = new ArrayList<>();
+		String query = searchQuery(SUMMARY_COLUMNS, keyword, mode, DEFAULT_SEARCH_LIMIT, params);
+		
+		return this.streamSummaries(query, params, batchSize, batches, cancellation);
+	}
+	
+	
+	/**
+	 * Finds the summaries of the most relevant journal entries matching a query, handing them over in batches
+	 * as they are read so the first matches can be shown before the search finishes
+	 * 
+	 * @param journalQuery the parsed query that a journal entry must match
+	 * @param batchSize the number of summaries in each batch but the last
+	 * @param batches receives each batch of summaries on the thread running the search
+	 * @param cancellation cancels the search from another thread
+	 * @return an ArrayList containing every summary found, or null if the search was cancelled
+	 */
+	@Override
+	public ArrayList<JournalSummary> streamJournalSummaries(JournalQuery journalQuery, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation) {
+		ArrayList<Object> params = new ArrayList<>();
+		String query = journalQuery.toSql(SUMMARY_COLUMNS, DEFAULT_SEARCH_LIMIT, params);
+		
+		return this.streamSummaries(query, params, batchSize, batches, cancellation);
+	}
+	
+	
+	/**
+	 * Runs a search for scored journal summaries, handing them over in batches as they are read
+	 * 
+	 * @param query the SQL of the search
+	 * @param params the parameters of the search, in order
+	 * @param batchSize the number of summaries in each batch but the last
+	 * @param batches receives each batch of summaries on the thread running the search
+	 * @param cancellation cancels the search from another thread
+	 * @return an ArrayList containing every summary found, or null if the search was cancelled
+	 */
+	private ArrayList<JournalSummary> streamSummaries(String query, List<Object> params, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation) {
+		ArrayList<JournalSummary> journals = new ArrayList<>();
+		try (ConnectionPool.Lease lease = DBConnection.borrowReader(Database.JOURNALS)) {
+			PreparedStatement statement = lease.prepare(query);
+			for (int i = 0; i < params.size(); i++) {
+				statement.setObject(i + 1, params.get(i));
+			}
+			
+			if (!cancellation.attach(statement)) {
+				return null;
+			}
+			try (ResultSet results = statement.executeQuery()) {
+				ArrayList<JournalSummary> batch = new ArrayList<>(batchSize);
+				while (results.next()) {
+					batch.add(readRankedSummary(results));
+					
+					if (batch.size() == batchSize) {
+						if (cancellation.isCancelled()) {
+							return null;
+						}
+						journals.addAll(batch);
+						batches.accept(batch);
+						batch = new ArrayList<>(batchSize);
+					}
+				}
 				
-				// create a new JournalModel and add it to output list
-				JournalModel newJournal = new JournalModel(id, title, date, hour, minute, context);
-				journals.add(newJournal);
+				if (cancellation.isCancelled()) {
+					return null;
+				}
+				journals.addAll(batch);
+				batches.accept(batch);
+			} finally {
+				cancellation.detach();
 			}
 		} catch (Exception ex) {
+			// an interrupted search fails, which is expected once it is cancelled
+			if (cancellation.isCancelled()) {
+				return null;
+			}
 			System.out.println("Failed to retrieve journal entries!");
 			ex.printStackTrace();
 		}
@@ -89,40 +444,418 @@ public class JournalDAO {
 		return journals;
 	}
 	
+	
+	/**
+	 * Counts the journal entries stored in the DB
+	 * 
+	 * @return the number of journal entries, or 0 if they could not be counted
+	 */
+	@Override
+	public int countJournals() {
+		String query = "SELECT count(*) FROM journal";
+		
+		ArrayList<Integer> counts = this.query(query, results -> results.getInt(1));
+		return counts.isEmpty() ? 0 : counts.get(0);
+	}
+	
+	
+	/**
+	 * Gets the summaries of a window of journal entries by position, ordered from newest to oldest.
+	 * The window is found by walking the chronological index alone, so skipping over
+	 * entries before the window never reads their rows.
+	 * 
+	 * @param offset the position of the first journal entry of the window
+	 * @param limit the maximum number of journal entries in the window
+	 * @return an ArrayList containing the summaries of the journal entries in the window
+	 */
+	@Override
+	public ArrayList<JournalSummary> getJournalSummaryWindow(int offset, int limit) {
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM journal WHERE id IN ("
+				+ "SELECT id FROM journal ORDER BY date DESC, hour DESC, minute DESC, id DESC LIMIT ? OFFSET ?) "
+				+ "ORDER BY date DESC, hour DESC, minute DESC, id DESC";
+		
+		return this.query(query, JournalDAO::readSummary, limit, offset);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the journal entries written within a range of time
+	 * 
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, exclusive
+	 * @param isNewestFirst whether the newest journal entries come first, otherwise the oldest do
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the journal entries written within the range
+	 */
+	@Override
+	public ArrayList<JournalSummary> getJournalSummariesBetween(LocalDateTime from, LocalDateTime to, boolean isNewestFirst, int limit) {
+		String order = isNewestFirst ? "DESC" : "ASC";
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM journal WHERE ts >= ? AND ts < ? "
+				+ "ORDER BY ts " + order + ", id " + order + " LIMIT ?";
+		
+		return this.query(query, JournalDAO::readSummary, toTimestamp(from), toTimestamp(to), limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the most recently written journal entries
+	 * 
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the newest journal entries, newest first
+	 */
+	@Override
+	public ArrayList<JournalSummary> getNewestJournalSummaries(int limit) {
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM journal WHERE ts IS NOT NULL ORDER BY ts DESC, id DESC LIMIT ?";
+		
+		return this.query(query, JournalDAO::readSummary, limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the earliest written journal entries
+	 * 
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the oldest journal entries, oldest first
+	 */
+	@Override
+	public ArrayList<JournalSummary> getOldestJournalSummaries(int limit) {
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM journal WHERE ts IS NOT NULL ORDER BY ts ASC, id ASC LIMIT ?";
+		
+		return this.query(query, JournalDAO::readSummary, limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the journal entries written on a day of the year in any year, such as every March 10th
+	 * 
+	 * @param day the month and day of the month
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the journal entries written on the day, newest first
+	 */
+	@Override
+	public ArrayList<JournalSummary> getJournalSummariesOnThisDay(MonthDay day, int limit) {
+		// each min and max is its own subquery so both are read from the end of the index
+		String rangeQuery = "SELECT (SELECT min(ts) FROM journal), (SELECT max(ts) FROM journal)";
+		ArrayList<long[]> ranges = this.query(rangeQuery, results -> new long[] { results.getLong(1), results.getLong(2) });
+		if (ranges.isEmpty() || ranges.get(0)[1] == 0) {
+			return new ArrayList<>();
+		}
+		
+		// look the day up once per year, skipping February 29th in years that do not have one
+		int firstYear = toDateTime(ranges.get(0)[0]).getYear();
+		int lastYear = toDateTime(ranges.get(0)[1]).getYear();
+		ArrayList<Long> dayStarts = new ArrayList<>();
+		for (int year = firstYear; year <= lastYear; year++) {
+			if (day.isValidYear(year)) {
+				dayStarts.add(toTimestamp(day.atYear(year).atStartOfDay()));
+			}
+		}
+		
+		// CROSS JOIN keeps the days as the outer loop, so each day is a range scan of the timestamp index
+		String query = "SELECT " + SUMMARY_COLUMNS + " FROM json_each(?) AS day CROSS JOIN journal "
+				+ "ON journal.ts >= day.value AND journal.ts < day.value + " + MINUTES_PER_DAY + " "
+				+ "ORDER BY journal.ts DESC, journal.id DESC LIMIT ?";
+		return this.query(query, JournalDAO::readSummary, dayStarts.toString(), limit);
+	}
+	
+	
+	/**
+	 * Gets a page of journal entries ordered from newest to oldest.
+	 * Pages are keyed on the position of the last entry rather than an offset,
+	 * so every page costs the same no matter how deep into the journal it is.
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of at most pageSize journal entries and the token of the following page
+	 * @throws IllegalArgumentException if the page size is not positive or the token is invalid
+	 */
+	@Override
+	public JournalPage<JournalModel> getJournalPage(String pageToken, int pageSize) {
+		return this.queryPage(JOURNAL_COLUMNS, JournalDAO::readJournal, pageToken, pageSize);
+	}
+	
+	
 	/**
-	 * Gets all journal entries in the DB that contain a given keyword in the title or context
+	 * Gets a page of journal entry summaries ordered from newest to oldest
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of at most pageSize journal entry summaries and the token of the following page
+	 * @throws IllegalArgumentException if the page size is not positive or the token is invalid
+	 */
+	@Override
+	public JournalPage<JournalSummary> getJournalSummaryPage(String pageToken, int pageSize) {
+		return this.queryPage(SUMMARY_COLUMNS, JournalDAO::readSummary, pageToken, pageSize);
+	}
+	
+	
+	/**
+	 * Gets a page of journal entries ordered from newest to oldest, reading the given columns of each row
+	 * 
+	 * @param columns the columns to select from the journal table
+	 * @param reader converts each row into a journal entry
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of at most pageSize journal entries and the token of the following page
+	 */
+	private <T extends JournalEntry> JournalPage<T> queryPage(String columns, RowReader<T> reader, String pageToken, int pageSize) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		
+		PageToken position = (pageToken != null) ? PageToken.decode(pageToken) : null;
+		
+		// fetch one extra row to find out whether there is a following page
+		ArrayList<T> journals;
+		if (position == null) {
+			String query = "SELECT " + columns + " FROM journal "
+					+ "ORDER BY date DESC, hour DESC, minute DESC, id DESC LIMIT ?";
+			journals = this.query(query, reader, pageSize + 1);
+		}
+		else {
+			// start after the last entry of the previous page
+			String query = "SELECT " + columns + " FROM journal WHERE (date, hour, minute, id) < (?, ?, ?, ?) "
+					+ "ORDER BY date DESC, hour DESC, minute DESC, id DESC LIMIT ?";
+			journals = this.query(query, reader, position.getDate(), position.getHour(), position.getMinute(),
+					position.getID(), pageSize + 1);
+		}
+		
+		return toPage(journals, pageSize);
+	}
+	
+	
+	/**
+	 * Trims a list of journal entries fetched with one extra row into a page
+	 * 
+	 * @param journals the journal entries, holding at most pageSize + 1 entries
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page holding the first pageSize entries
+	 */
+	static <T extends JournalEntry> JournalPage<T> toPage(List<T> journals, int pageSize) {
+		if (journals.size() <= pageSize) {
+			return new JournalPage<>(journals, null);
+		}
+		
+		List<T> items = journals.subList(0, pageSize);
+		T last = items.get(pageSize - 1);
+		String nextPageToken = new PageToken(last.getDate(), last.getHour(), last.getMinute(), last.getID()).encode();
+		
+		return new JournalPage<>(items, nextPageToken);
+	}
+	
+	
+	/**
+	 * Gets the most relevant journal entries in the DB with a word starting with each word of a given keyword
 	 * 
 	 * @param keyword the keyword that a journal entry must contain
-	 * @return an ArrayList containing a JournalModel for every journal entry in the DB that contains the given keyword
+	 * @return an ArrayList containing a JournalModel for each of the most relevant journal entries that contain the given keyword
 	 */
 	public ArrayList<JournalModel> getJournals(String keyword) {
-		ArrayList<JournalModel> journals = new ArrayList<>();
-		String updateQuery = "SELECT * FROM journal WHERE title LIKE ? OR context LIKE ?";
+		return this.getJournals(keyword, SearchMode.PREFIX);
+	}
+	
+	
+	/**
+	 * Gets the most relevant journal entries in the DB that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @return an ArrayList containing a JournalModel for each of the DEFAULT_SEARCH_LIMIT most relevant matches, most relevant first
+	 */
+	@Override
+	public ArrayList<JournalModel> getJournals(String keyword, SearchMode mode) {
+		return this.getJournals(keyword, mode, DEFAULT_SEARCH_LIMIT);
+	}
+	
+	
+	/**
+	 * Gets the most relevant journal entries in the DB that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @param limit the maximum number of journal entries returned
+	 * @return an ArrayList containing a JournalModel for each of the most relevant matches, most relevant first
+	 */
+	public ArrayList<JournalModel> getJournals(String keyword, SearchMode mode, int limit) {
+		return this.search(JOURNAL_COLUMNS, JournalDAO::readJournal, keyword, mode, limit);
+	}
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries in the DB with a word starting with each word of a given keyword
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @return an ArrayList containing a scored JournalSummary for each of the most relevant journal entries that contain the given keyword
+	 */
+	public ArrayList<JournalSummary> getJournalSummaries(String keyword) {
+		return this.getJournalSummaries(keyword, SearchMode.PREFIX);
+	}
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries in the DB that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @return an ArrayList containing a scored JournalSummary for each of the DEFAULT_SEARCH_LIMIT most relevant matches, most relevant first
+	 */
+	@Override
+	public ArrayList<JournalSummary> getJournalSummaries(String keyword, SearchMode mode) {
+		return this.getJournalSummaries(keyword, mode, DEFAULT_SEARCH_LIMIT);
+	}
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries in the DB that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing a scored JournalSummary for each of the most relevant matches, most relevant first
+	 */
+	public ArrayList<JournalSummary> getJournalSummaries(String keyword, SearchMode mode, int limit) {
+		return this.search(SUMMARY_COLUMNS, JournalDAO::readRankedSummary, keyword, mode, limit);
+	}
+	
+	
+	/**
+	 * Gets the most relevant journal entries in the DB that match a query
+	 * 
+	 * @param journalQuery the parsed query that a journal entry must match
+	 * @param limit the maximum number of journal entries returned
+	 * @return an ArrayList containing a JournalModel for each of the most relevant matches, most relevant first
+	 */
+	public ArrayList<JournalModel> getJournals(JournalQuery journalQuery, int limit) {
+		ArrayList<Object> params = new ArrayList<>();
+		String query = journalQuery.toSql(JOURNAL_COLUMNS, limit, params);
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.JOURNALS);
-			PreparedStatement statement = connection.prepareStatement(updateQuery);
+		return this.query(query, JournalDAO::readJournal, params.toArray());
+	}
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries in the DB that match a query
+	 * 
+	 * @param journalQuery the parsed query that a journal entry must match
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing a scored JournalSummary for each of the most relevant matches, most relevant first
+	 */
+	public ArrayList<JournalSummary> getJournalSummaries(JournalQuery journalQuery, int limit) {
+		ArrayList<Object> params = new ArrayList<>();
+		String query = journalQuery.toSql(SUMMARY_COLUMNS, limit, params);
+		
+		return this.query(query, JournalDAO::readRankedSummary, params.toArray());
+	}
+	
+	
+	/**
+	 * Gets the most relevant journal entries in the DB that match a given keyword, reading the given columns of each row
+	 * 
+	 * @param columns the columns to select from the journal table
+	 * @param reader converts each row into a journal entry
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @param limit the maximum number of journal entries returned
+	 * @return an ArrayList containing the most relevant journal entries that match the given keyword, most relevant first
+	 */
+	private <T> ArrayList<T> search(String columns, RowReader<T> reader, String keyword, SearchMode mode, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Search limit must be positive: " + limit);
+		}
+		
+		ArrayList<Object> params = new ArrayList<>();
+		String query = searchQuery(columns, keyword, mode, limit, params);
+		
+		return this.query(query, reader, params.toArray());
+	}
+	
+	
+	/**
+	 * Escapes the wildcards of LIKE in a keyword, so that it is matched as a plain substring
+	 * 
+	 * @param keyword the keyword to escape
+	 * @return the keyword with every %, _ and \\ escaped by a \\
+	 */
+	private static String escapeLike(String keyword) {
+		return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+	
+	
+	/**
+	 * Builds the query that finds the most relevant journal entries matching a given keyword.
+	 * Besides the given columns, each row has a score column where a higher score is more relevant.
+	 * 
+	 * @param columns the columns selected for each matching journal entry
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against journal entries
+	 * @param limit the maximum number of journal entries the query returns
+	 * @param params receives the parameters of the query, in order
+	 * @return the SQL of the query
+	 */
+	private static String searchQuery(String columns, String keyword, SearchMode mode, int limit, List<Object> params) {
+		String matchExpression = null;
+		if (JournalSchema.isFullTextAvailable()) {
+			if (mode == SearchMode.FUZZY) {
+				matchExpression = FuzzyTermIndex.toMatchExpression(keyword);
+			}
+			if (matchExpression == null && mode != SearchMode.SUBSTRING) {
+				matchExpression = toMatchExpression(keyword, mode == SearchMode.PREFIX);
+			}
+		}
+		
+		// keywords without any words, or a missing index, can only be matched by substring
+		if (matchExpression == null) {
+			// set up query to check if entry has any substring containing keyword,
+			// scoring it by where the keyword was found with the same weights as the full-text ranking
+			String keywordSearch = "%" + escapeLike(keyword) + "%";
+			Collections.addAll(params, keywordSearch, keywordSearch);
+			String query = "SELECT " + columns + ", (CASE WHEN title LIKE ? ESCAPE '\\' THEN " + JournalSchema.TITLE_WEIGHT + " ELSE 0 END) "
+					+ "+ (CASE WHEN context LIKE ? ESCAPE '\\' THEN " + JournalSchema.CONTEXT_WEIGHT + " ELSE 0 END) AS score FROM journal WHERE ";
 			
-			// set up query to check if entry has any substring containing keyword
-			String keywordSearch = "%" + keyword + "%";
-			statement.setString(1, keywordSearch);
-			statement.setString(2, keywordSearch);
+			// only check the entries that contain every trigram of the keyword, if the keyword has any
+			int[] candidates = TrigramIndex.findCandidates(keyword);
+			if (candidates != null) {
+				params.add(Arrays.toString(candidates));
+				query += "id IN (SELECT value FROM json_each(?)) AND ";
+			}
 			
-			// iterate through every row in journals db
-			ResultSet results = statement.executeQuery();
-			while (results.next()) {
-				// get column data from row in db
-				int id = results.getInt("id");
-				String title = results.getString("title");
-				String date = results.getString("date");
-				int hour = results.getInt("hour");
-				int minute = results.getInt("minute");
-				String context = results.getString("context");
-				
-				// create a new journal model and add it to output list
-				JournalModel newJournal = new JournalModel(id, title, date, hour, minute, context);
-				journals.add(newJournal);
+			Collections.addAll(params, keywordSearch, keywordSearch, limit);
+			return query + "(title LIKE ? ESCAPE '\\' OR context LIKE ? ESCAPE '\\') "
+					+ "ORDER BY score DESC, date DESC, hour DESC, minute DESC, id DESC LIMIT ?";
+		}
+		
+		// rank and limit inside the index so only the top matches are joined with their rows,
+		// the BM25 rank is negated so that a higher score is more relevant
+		Collections.addAll(params, matchExpression, limit);
+		return "SELECT " + columns + ", ranked.score AS score FROM ("
+				+ "SELECT rowid, -rank AS score FROM journal_fts WHERE journal_fts MATCH ? ORDER BY rank LIMIT ?) AS ranked "
+				+ "JOIN journal ON journal.id = ranked.rowid ORDER BY ranked.score DESC";
+	}
+	
+	
+	/**
+	 * Runs a query on a reader connection and converts every row of its result
+	 * 
+	 * @param query the query to run
+	 * @param reader converts each row into a journal entry
+	 * @param params the values of the query's parameters, in order
+	 * @return an ArrayList containing the converted rows, empty if the query failed
+	 */
+	private <T> ArrayList<T> query(String query, RowReader<T> reader, Object... params) {
+		ArrayList<T> journals = new ArrayList<>();
+		
+		try (ConnectionPool.Lease lease = DBConnection.borrowReader(Database.JOURNALS)) {
+			// get cached statement from DB connection
+			PreparedStatement statement = lease.prepare(query);
+			for (int i = 0; i < params.length; i++) {
+				statement.setObject(i + 1, params[i]);
+			}
+			
+			// iterate through every row returned by the query
+			try (ResultSet results = statement.executeQuery()) {
+				while (results.next()) {
+					journals.add(reader.read(results));
+				}
 			}
 		} catch (Exception ex) {
 			System.out.println("Failed to retrieve journal entries!");
@@ -132,25 +865,148 @@ public class JournalDAO {
 		return journals;
 	}
 	
+	
+	/**
+	 * Converts a keyword into an FTS5 match expression requiring every word of the keyword.
+	 * Each word is quoted so that FTS5 operators typed by the user are matched literally.
+	 * 
+	 * @param keyword the keyword entered by the user
+	 * @param isPrefix whether each word may match the start of a longer word
+	 * @return the match expression, or null if the keyword has no words
+	 */
+	static String toMatchExpression(String keyword, boolean isPrefix) {
+		StringBuilder expression = new StringBuilder();
+		
+		for (String token : TOKEN_SEPARATOR.split(keyword)) {
+			if (token.isEmpty()) {
+				continue;
+			}
+			
+			if (expression.length() > 0) {
+				expression.append(' ');
+			}
+			expression.append('"').append(token).append('"');
+			if (isPrefix) {
+				expression.append('*');
+			}
+		}
+		
+		return expression.length() > 0 ? expression.toString() : null;
+	}
+	
+	
+	/**
+	 * Packs a date and time into the minutes since the epoch, as stored in the ts column
+	 * 
+	 * @param dateTime the date and time
+	 * @return the timestamp of the date and time
+	 */
+	static long toTimestamp(LocalDateTime dateTime) {
+		return dateTime.toLocalDate().toEpochDay() * MINUTES_PER_DAY + dateTime.getHour() * 60 + dateTime.getMinute();
+	}
+	
+	
+	/**
+	 * Unpacks a timestamp from the ts column into a date and time
+	 * 
+	 * @param timestamp the minutes since the epoch
+	 * @return the date and time of the timestamp
+	 */
+	static LocalDateTime toDateTime(long timestamp) {
+		LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(timestamp, MINUTES_PER_DAY));
+		return date.atStartOfDay().plusMinutes(Math.floorMod(timestamp, MINUTES_PER_DAY));
+	}
+	
+	
+	/**
+	 * Creates a JournalModel from the row that a result set is currently on
+	 * 
+	 * @param results a result set positioned on a row of the journal table
+	 * @return a JournalModel holding every column of the row
+	 * @throws SQLException if a column could not be read
+	 */
+	private static JournalModel readJournal(ResultSet results) throws SQLException {
+		// get column data from row in db
+		int id = results.getInt("id");
+		String title = results.getString("title");
+		String date = results.getString("date");
+		int hour = results.getInt("hour");
+		int minute = results.getInt("minute");
+		String context = results.getString("context");
+		
+		return new JournalModel(id, title, date, hour, minute, context);
+	}
+	
+	
+	/**
+	 * Creates a JournalSummary from the row that a result set is currently on
+	 * 
+	 * @param results a result set positioned on a row selected with the summary columns
+	 * @return a JournalSummary holding the row
+	 * @throws SQLException if a column could not be read
+	 */
+	private static JournalSummary readSummary(ResultSet results) throws SQLException {
+		int id = results.getInt("id");
+		String title = results.getString("title");
+		String date = results.getString("date");
+		int hour = results.getInt("hour");
+		int minute = results.getInt("minute");
+		String preview = results.getString("preview");
+		
+		return new JournalSummary(id, title, date, hour, minute, preview);
+	}
+	
+	
+	/**
+	 * Creates a scored JournalSummary from the row of a search that a result set is currently on
+	 * 
+	 * @param results a result set positioned on a row selected with the summary columns and a score column
+	 * @return a JournalSummary holding the row and its relevance to the search
+	 * @throws SQLException if a column could not be read
+	 */
+	private static JournalSummary readRankedSummary(ResultSet results) throws SQLException {
+		int id = results.getInt("id");
+		String title = results.getString("title");
+		String date = results.getString("date");
+		int hour = results.getInt("hour");
+		int minute = results.getInt("minute");
+		String preview = results.getString("preview");
+		double score = results.getDouble("score");
+		
+		return new JournalSummary(id, title, date, hour, minute, preview, score);
+	}
+	
+	
 	/**
 	 * Deletes a journal entry from the DB given its JournalModel
 	 * 
 	 * @param journal the JournalModel representation of a journal entry
 	 */
 	public void deleteJournal(JournalModel journal) {
+		this.deleteJournal(journal.getID());
+	}
+	
+	
+	/**
+	 * Deletes a journal entry from the DB given its id
+	 * 
+	 * @param id the id of the journal entry
+	 */
+	@Override
+	public void deleteJournal(int id) {
 		String updateQuery = "DELETE FROM journal WHERE id = ?";
-		int id = journal.getID();
+		boolean isDeleted = false;
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.JOURNALS);
-			PreparedStatement statement = connection.prepareStatement(updateQuery);
+		try (ConnectionPool.Lease lease = DBConnection.borrowWriter(Database.JOURNALS)) {
+			// get cached statement from DB connection
+			PreparedStatement statement = lease.prepare(updateQuery);
 			
 			statement.setInt(1,  id);
 			
 			int rowsDeleted = statement.executeUpdate();
 			if (rowsDeleted > 0) {
 				System.out.println("Deleted entry from DB!");
+				isDeleted = true;
 			}
 			else {
 				System.out.println("Could not delete journal from DB!");
@@ -159,6 +1015,10 @@ public class JournalDAO {
 			System.out.println("Failed to delete journal entry from DB!");
 			ex.printStackTrace();
 		}
+		
+		if (isDeleted) {
+			JournalEvents.publish(JournalChange.Type.DELETED, Collections.singletonList(id));
+		}
 	}
 	
 	/**
@@ -166,13 +1026,15 @@ public class JournalDAO {
 	 * 
 	 * @param journal the JournalModel representing the journal we would like to update in the DB
 	 */
+	@Override
 	public void updateJournal(JournalModel journal) {
-		String updateQuery = "UPDATE journal SET title = ?, date = ?, hour = ?, minute = ?, context = ? WHERE id = ?";
+		String updateQuery = "UPDATE journal SET title = ?1, date = ?2, hour = ?3, minute = ?4, context = ?5, "
+				+ "ts = " + JournalSchema.timestampOf("?2", "?3", "?4") + " WHERE id = ?6";
+		boolean isUpdated = false;
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.JOURNALS);
-			PreparedStatement statement = connection.prepareStatement(updateQuery);
+		try (ConnectionPool.Lease lease = DBConnection.borrowWriter(Database.JOURNALS)) {
+			// get cached statement from DB connection
+			PreparedStatement statement = lease.prepare(updateQuery);
 			
 			// configure query
 			statement.setString(1, journal.getTitle());
@@ -185,6 +1047,7 @@ public class JournalDAO {
 			int rowsAdded = statement.executeUpdate();
 			if (rowsAdded > 0) {
 				System.out.println("Updated journal in DB!");	
+				isUpdated = true;
 			}
 			else {
 				System.out.println("Could not update journal!");
@@ -193,6 +1056,41 @@ public class JournalDAO {
 			System.out.println("Failed to add journal to database!");
 			ex.printStackTrace();
 		}
+		
+		if (isUpdated) {
+			JournalEvents.publish(JournalChange.Type.UPDATED, Collections.singletonList(journal.getID()));
+		}
+	}
+	
+	
+	/**
+	 * Sets the parameters of a batched statement for one item of the batch
+	 * 
+	 * @param <E> the type of item bound to the statement
+	 */
+	@FunctionalInterface
+	private interface BatchBinder<E> {
+		void bind(PreparedStatement statement, E item) throws SQLException;
+	}
+	
+	
+	/**
+	 * Runs extra work inside the transaction of a batch
+	 */
+	@FunctionalInterface
+	private interface BatchHook {
+		void run(ConnectionPool.Lease lease) throws SQLException;
+	}
+	
+	
+	/**
+	 * Converts the row that a result set is currently on into a journal entry
+	 * 
+	 * @param <T> the type of journal entry produced
+	 */
+	@FunctionalInterface
+	interface RowReader<T> {
+		T read(ResultSet results) throws SQLException;
 	}
 	
-}
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package application.dal;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import application.models.JournalChange;
+import application.models.JournalChangeListener;
+
+/**
+ * Publishes a JournalChange to every registered listener whenever a JournalStore commits a write
+ */
+public class JournalEvents {
+	private static final CopyOnWriteArrayList<JournalChangeListener> listeners = new CopyOnWriteArrayList<>();
+	
+	
+	/**
+	 * Registers a listener to be told about every committed journal write
+	 * 
+	 * @param listener the listener to register
+	 */
+	public static void addListener(JournalChangeListener listener) {
+		listeners.addIfAbsent(listener);
+	}
+	
+	
+	/**
+	 * Stops telling a listener about journal writes
+	 * 
+	 * @param listener the listener to unregister
+	 */
+	public static void removeListener(JournalChangeListener listener) {
+		listeners.remove(listener);
+	}
+	
+	
+	/**
+	 * Tells every listener that journal entries changed, doing nothing if no entries changed
+	 * 
+	 * @param type what happened to the journal entries
+	 * @param ids the ids of the journal entries that changed
+	 */
+	static void publish(JournalChange.Type type, List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		
+		JournalChange change = new JournalChange(type, ids);
+		for (JournalChangeListener listener : listeners) {
+			try {
+				listener.onJournalChanged(change);
+			
+			} catch (RuntimeException ex) {
+				// one broken listener must not keep the others from hearing about the change
+				System.out.println("Journal change listener failed!");
+				ex.printStackTrace();
+			}
+		}
+	}
+
+}
\ No newline at end of file
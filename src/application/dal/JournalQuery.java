@@ -0,0 +1,766 @@
+package application.dal;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import application.models.JournalModel;
+
+/**
+ * A search query over journal entries, parsed from the query language of the search box and compiled
+ * into a single parameterized SQL query. The language is made up of:
+ * <ul>
+ * <li>words, matching entries with a word starting with them, and "quoted phrases" matching the exact phrase</li>
+ * <li>title:word and title:"phrase", matching only the title</li>
+ * <li>before:date and after:date, where a date is 2024, 2024-03 or 2024-03-15, matching entries written
+ * before the start of the date or from the start of the date on</li>
+ * <li>time:range, where a range is 9-17, 09:30-12:00 or a single hour like 14, matching entries written
+ * at a time of day within it, wrapping past midnight if it ends before it starts</li>
+ * <li>AND, OR and NOT, or a leading - for NOT, along with parentheses for grouping.
+ * Terms next to each other are joined by AND, which binds tighter than OR.</li>
+ * </ul>
+ * Text is matched through the full-text index, with as much of the query as possible pushed into a single
+ * ranked MATCH. Dates are compared against the chronological index.
+ */
+public class JournalQuery {
+	private static final String[] FIELDS = { "title", "before", "after", "time" };
+	// the most parentheses and NOTs nested inside each other, so a hostile query cannot overflow the stack
+	static final int MAX_DEPTH = 64;
+	
+	private final Node root;
+	
+	
+	private JournalQuery(Node root) {
+		this.root = root;
+	}
+	
+	
+	/**
+	 * Parses a query written in the query language
+	 * 
+	 * @param text the query
+	 * @return the parsed query
+	 * @throws IllegalArgumentException if the query is malformed, with a message describing the problem
+	 */
+	public static JournalQuery parse(String text) {
+		Parser parser = new Parser(tokenize(text));
+		return new JournalQuery(parser.parseQuery());
+	}
+	
+	
+	/**
+	 * Checks whether the query is nothing more than words to find, so it can be searched for as a plain keyword
+	 * 
+	 * @return true if the query has no operators, phrases, fields or parentheses
+	 */
+	public boolean isPlainKeyword() {
+		if (this.root instanceof Text) {
+			return ((Text) this.root).isPlainWord();
+		}
+		if (this.root instanceof And) {
+			for (Node child : ((And) this.root).children) {
+				if (!(child instanceof Text) || !((Text) child).isPlainWord()) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Checks whether a journal entry could be found by searching for a keyword, without running the search.
+	 * A query is scored against the journal entry the way the full-text index matches it, a plain keyword is matched
+	 * by substring, or word by word allowing for the typos of the fuzzy fallback.
+	 * 
+	 * @param keyword the keyword entered in the search box
+	 * @param journal the journal entry
+	 * @return false only if searching for the keyword cannot find the journal entry
+	 */
+	public static boolean mayMatch(String keyword, JournalModel journal) {
+		TokenizedText title = new TokenizedText(journal.getTitle());
+		TokenizedText context = new TokenizedText(journal.getContext());
+		
+		// malformed queries are searched for as plain keywords
+		try {
+			JournalQuery query = parse(keyword);
+			if (!query.isPlainKeyword()) {
+				// without the full-text index text is matched by substring, which scoring does not cover
+				return !JournalSchema.isFullTextAvailable()
+						|| query.score(title, context, journal.getDate(), journal.getHour(), journal.getMinute()) >= 0;
+			}
+		} catch (IllegalArgumentException ex) {
+			// matched as a plain keyword below
+		}
+		
+		String substring = keyword.toLowerCase(Locale.ROOT);
+		if ((journal.getTitle() != null && journal.getTitle().toLowerCase(Locale.ROOT).contains(substring))
+				|| (journal.getContext() != null && journal.getContext().toLowerCase(Locale.ROOT).contains(substring))) {
+			return true;
+		}
+		
+		String[] words = TokenizedText.split(keyword);
+		for (String word : words) {
+			boolean isFound = title.contains(word, SearchMode.PREFIX) || context.contains(word, SearchMode.PREFIX)
+					|| title.contains(word, SearchMode.FUZZY) || context.contains(word, SearchMode.FUZZY);
+			if (!isFound) {
+				return false;
+			}
+		}
+		return words.length > 0;
+	}
+	
+	
+	/**
+	 * Compiles the query into SQL selecting the most relevant matching journal entries. Besides the given columns,
+	 * each row has a score column where a higher score is more relevant. Queries without any text to match
+	 * are ordered from newest to oldest with a score of 0.
+	 * 
+	 * @param columns the columns selected for each matching journal entry
+	 * @param limit the maximum number of journal entries the query returns
+	 * @param params receives the parameters of the query, in order
+	 * @return the SQL of the query
+	 */
+	String toSql(String columns, int limit, List<Object> params) {
+		return this.toSql(columns, limit, params, JournalSchema.isFullTextAvailable());
+	}
+	
+	
+	/**
+	 * Compiles the query into SQL like toSql, given whether the full-text index is there to match text with
+	 * 
+	 * @param columns the columns selected for each matching journal entry
+	 * @param limit the maximum number of journal entries the query returns
+	 * @param params receives the parameters of the query, in order
+	 * @param isFullTextAvailable whether text is matched through the full-text index
+	 * @return the SQL of the query
+	 */
+	String toSql(String columns, int limit, List<Object> params, boolean isFullTextAvailable) {
+		// pull the parts of a top-level AND that the full-text index can answer into one ranked MATCH
+		List<Node> textParts = new ArrayList<>();
+		List<Node> otherParts = new ArrayList<>();
+		List<Node> parts = this.root instanceof And ? ((And) this.root).children : singleton(this.root);
+		for (Node part : parts) {
+			boolean isText = isFullTextAvailable && (isFullText(part) || (part instanceof Not && isFullText(((Not) part).child)));
+			(isText ? textParts : otherParts).add(part);
+		}
+		
+		// the full-text index cannot answer a query made only of NOTs, since it has nothing to exclude them from
+		if (!isFullText(new And(textParts))) {
+			otherParts.addAll(textParts);
+			textParts.clear();
+		}
+		
+		List<Object> filterParams = new ArrayList<>();
+		String filter = otherParts.isEmpty() ? null : compile(new And(otherParts), filterParams, isFullTextAvailable);
+		
+		if (textParts.isEmpty()) {
+			params.addAll(filterParams);
+			params.add(limit);
+			return "SELECT " + columns + ", 0 AS score FROM journal" + (filter == null ? "" : " WHERE " + filter)
+					+ " ORDER BY journal.date DESC, journal.hour DESC, journal.minute DESC, journal.id DESC LIMIT ?";
+		}
+		
+		params.add(toFullText(new And(textParts)));
+		params.addAll(filterParams);
+		params.add(limit);
+		return "SELECT " + columns + ", -journal_fts.rank AS score FROM journal_fts JOIN journal ON journal.id = journal_fts.rowid "
+				+ "WHERE journal_fts MATCH ?" + (filter == null ? "" : " AND " + filter)
+				+ " ORDER BY journal_fts.rank LIMIT ?";
+	}
+	
+	
+	/**
+	 * Scores a journal entry against the query without the DB, for stores that keep journal entries themselves.
+	 * Text is matched the way the full-text index matches it, with a word matching the start of a word
+	 * and a phrase matching whole words in order, and scores the title and context weights where it is found.
+	 * 
+	 * @param title the words of the title of the journal entry
+	 * @param context the words of the context of the journal entry
+	 * @param date the date of the journal entry
+	 * @param hour the hour of the time the journal entry was written
+	 * @param minute the minute of the time the journal entry was written
+	 * @return the score of the journal entry where a higher score is more relevant, or a negative number if it does not match
+	 */
+	double score(TokenizedText title, TokenizedText context, String date, int hour, int minute) {
+		return score(this.root, title, context, date, hour, minute);
+	}
+	
+	
+	private static double score(Node node, TokenizedText title, TokenizedText context, String date, int hour, int minute) {
+		if (node instanceof Text) {
+			Text text = (Text) node;
+			String[] phrase = TokenizedText.split(text.value);
+			
+			double score = 0;
+			if (title.containsPhrase(phrase, !text.isPhrase)) {
+				score += JournalSchema.TITLE_WEIGHT;
+			}
+			if (!text.isTitleOnly && context.containsPhrase(phrase, !text.isPhrase)) {
+				score += JournalSchema.CONTEXT_WEIGHT;
+			}
+			return score > 0 ? score : -1;
+		}
+		if (node instanceof And || node instanceof Or) {
+			boolean isAnd = node instanceof And;
+			List<Node> children = isAnd ? ((And) node).children : ((Or) node).children;
+			if (children.isEmpty()) {
+				return 0;
+			}
+			
+			// an AND needs every child to match and an OR any of them, either scores what matched
+			double score = 0;
+			boolean isAnyMatched = false;
+			for (Node child : children) {
+				double childScore = score(child, title, context, date, hour, minute);
+				if (childScore < 0) {
+					if (isAnd) {
+						return -1;
+					}
+					continue;
+				}
+				score += childScore;
+				isAnyMatched = true;
+			}
+			return isAnyMatched ? score : -1;
+		}
+		if (node instanceof Not) {
+			return score(((Not) node).child, title, context, date, hour, minute) < 0 ? 0 : -1;
+		}
+		if (node instanceof DateBound) {
+			DateBound bound = (DateBound) node;
+			if (date == null) {
+				return -1;
+			}
+			boolean isMatched = bound.isBefore ? date.compareTo(bound.date) < 0 : date.compareTo(bound.date) >= 0;
+			return isMatched ? 0 : -1;
+		}
+		
+		TimeRange range = (TimeRange) node;
+		int minuteOfDay = hour * 60 + minute;
+		boolean isMatched = range.from <= range.to
+				? minuteOfDay >= range.from && minuteOfDay <= range.to
+				: minuteOfDay >= range.from || minuteOfDay <= range.to;
+		return isMatched ? 0 : -1;
+	}
+	
+	
+	/**
+	 * Compiles a node into an SQL condition on the journal table
+	 * 
+	 * @param node the node to compile
+	 * @param params receives the parameters of the condition, in order
+	 * @param isFullTextAvailable whether text is matched through the full-text index
+	 * @return the SQL of the condition
+	 */
+	private static String compile(Node node, List<Object> params, boolean isFullTextAvailable) {
+		if (isFullTextAvailable && isFullText(node)) {
+			params.add(toFullText(node));
+			return "journal.id IN (SELECT rowid FROM journal_fts WHERE journal_fts MATCH ?)";
+		}
+		
+		if (node instanceof Text) {
+			Text text = (Text) node;
+			String pattern = "%" + text.value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+			params.add(pattern);
+			if (text.isTitleOnly) {
+				return "journal.title LIKE ? ESCAPE '\\'";
+			}
+			params.add(pattern);
+			return "(journal.title LIKE ? ESCAPE '\\' OR journal.context LIKE ? ESCAPE '\\')";
+		}
+		if (node instanceof And || node instanceof Or) {
+			List<Node> children = node instanceof And ? ((And) node).children : ((Or) node).children;
+			if (children.isEmpty()) {
+				return "1";
+			}
+			
+			List<String> conditions = new ArrayList<>();
+			for (Node child : children) {
+				conditions.add(compile(child, params, isFullTextAvailable));
+			}
+			return "(" + String.join(node instanceof And ? " AND " : " OR ", conditions) + ")";
+		}
+		if (node instanceof Not) {
+			return "NOT " + compile(((Not) node).child, params, isFullTextAvailable);
+		}
+		if (node instanceof DateBound) {
+			DateBound bound = (DateBound) node;
+			params.add(bound.date);
+			return bound.isBefore ? "journal.date < ?" : "journal.date >= ?";
+		}
+		
+		TimeRange range = (TimeRange) node;
+		params.add(range.from);
+		params.add(range.to);
+		String minuteOfDay = "(journal.hour * 60 + journal.minute)";
+		if (range.from <= range.to) {
+			return minuteOfDay + " BETWEEN ? AND ?";
+		}
+		return "(" + minuteOfDay + " >= ? OR " + minuteOfDay + " <= ?)";
+	}
+	
+	
+	/**
+	 * Checks whether a node can be answered by the full-text index alone.
+	 * A NOT can only be answered as part of an AND that has something for it to exclude from.
+	 * 
+	 * @param node the node to check
+	 * @return true if the node can be written as an FTS5 match expression
+	 */
+	private static boolean isFullText(Node node) {
+		if (node instanceof Text) {
+			return true;
+		}
+		if (node instanceof Or) {
+			for (Node child : ((Or) node).children) {
+				if (!isFullText(child)) {
+					return false;
+				}
+			}
+			return !((Or) node).children.isEmpty();
+		}
+		if (node instanceof And) {
+			boolean hasPositive = false;
+			for (Node child : ((And) node).children) {
+				if (child instanceof Not && isFullText(((Not) child).child)) {
+					continue;
+				}
+				if (!isFullText(child)) {
+					return false;
+				}
+				hasPositive = true;
+			}
+			return hasPositive;
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Writes a node that isFullText accepts as an FTS5 match expression
+	 * 
+	 * @param node the node to write
+	 * @return the match expression
+	 */
+	private static String toFullText(Node node) {
+		if (node instanceof Text) {
+			Text text = (Text) node;
+			String phrase = "\"" + text.value.replace("\"", "\"\"") + "\"" + (text.isPhrase ? "" : "*");
+			return text.isTitleOnly ? "title : " + phrase : phrase;
+		}
+		if (node instanceof Or) {
+			List<String> alternatives = new ArrayList<>();
+			for (Node child : ((Or) node).children) {
+				alternatives.add(toFullText(child));
+			}
+			return "(" + String.join(" OR ", alternatives) + ")";
+		}
+		
+		List<String> required = new ArrayList<>();
+		StringBuilder excluded = new StringBuilder();
+		for (Node child : ((And) node).children) {
+			if (child instanceof Not) {
+				// grouped, since FTS5 reads a NOT b NOT c as (a NOT b) NOT c
+				excluded.append(" NOT (").append(toFullText(((Not) child).child)).append(")");
+			}
+			else {
+				required.add(toFullText(child));
+			}
+		}
+		return "(" + String.join(" AND ", required) + ")" + excluded;
+	}
+	
+	
+	private static List<Node> singleton(Node node) {
+		List<Node> nodes = new ArrayList<>();
+		nodes.add(node);
+		return nodes;
+	}
+	
+	
+	/**
+	 * Splits a query into parentheses, operators, quoted phrases, fields and words
+	 * 
+	 * @param text the query
+	 * @return the tokens of the query in order
+	 */
+	private static List<Token> tokenize(String text) {
+		List<Token> tokens = new ArrayList<>();
+		
+		int i = 0;
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			
+			if (Character.isWhitespace(c)) {
+				i++;
+			}
+			else if (c == '(' || c == ')') {
+				tokens.add(new Token(c == '(' ? TokenType.OPEN : TokenType.CLOSE, null, null));
+				i++;
+			}
+			else if (c == '"') {
+				int end = closingQuote(text, i);
+				tokens.add(new Token(TokenType.PHRASE, null, text.substring(i + 1, end)));
+				i = Math.min(end + 1, text.length());
+			}
+			else if (c == '-' && i + 1 < text.length() && !Character.isWhitespace(text.charAt(i + 1))) {
+				tokens.add(new Token(TokenType.NOT, null, null));
+				i++;
+			}
+			else {
+				int end = i;
+				while (end < text.length() && !Character.isWhitespace(text.charAt(end))
+						&& "()\"".indexOf(text.charAt(end)) < 0) {
+					end++;
+				}
+				String word = text.substring(i, end);
+				i = end;
+				
+				String field = fieldOf(word);
+				if (field != null) {
+					String value = word.substring(field.length() + 1);
+					// a field may be followed by a quoted phrase, as in title:"a day out"
+					if (value.isEmpty() && i < text.length() && text.charAt(i) == '"') {
+						int close = closingQuote(text, i);
+						value = text.substring(i + 1, close);
+						i = Math.min(close + 1, text.length());
+					}
+					tokens.add(new Token(TokenType.FIELD, field, value));
+				}
+				else if (word.equals("AND") || word.equals("OR") || word.equals("NOT")) {
+					tokens.add(new Token(TokenType.valueOf(word), null, null));
+				}
+				else {
+					tokens.add(new Token(TokenType.WORD, null, word));
+				}
+			}
+		}
+		
+		return tokens;
+	}
+	
+	
+	private static int closingQuote(String text, int openingQuote) {
+		int close = text.indexOf('"', openingQuote + 1);
+		return close < 0 ? text.length() : close;
+	}
+	
+	
+	private static String fieldOf(String word) {
+		for (String field : FIELDS) {
+			if (word.length() > field.length() && word.charAt(field.length()) == ':'
+					&& word.substring(0, field.length()).equalsIgnoreCase(field)) {
+				return field;
+			}
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Parses the start of a date given as a year, a month or a day
+	 * 
+	 * @param value the date
+	 * @return the first day of the date in the format journal dates are stored in
+	 */
+	private static String parseDate(String value) {
+		try {
+			if (value.matches("\\d{4}")) {
+				return LocalDate.of(Integer.parseInt(value), 1, 1).toString();
+			}
+			if (value.matches("\\d{4}-\\d{2}")) {
+				return YearMonth.parse(value).atDay(1).toString();
+			}
+			return LocalDate.parse(value).toString();
+		
+		} catch (DateTimeParseException | NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid date: " + value);
+		}
+	}
+	
+	
+	/**
+	 * Parses a range of times of day given as HH, HH:MM, or two of them joined by a -
+	 * 
+	 * @param value the range
+	 * @return the range as minutes of the day
+	 */
+	private static TimeRange parseTimeRange(String value) {
+		String[] bounds = value.split("-", -1);
+		if (bounds.length > 2) {
+			throw new IllegalArgumentException("Invalid time range: " + value);
+		}
+		
+		int from = parseMinuteOfDay(bounds[0], false);
+		int to = parseMinuteOfDay(bounds[bounds.length - 1], true);
+		return new TimeRange(from, to);
+	}
+	
+	
+	private static int parseMinuteOfDay(String value, boolean isEnd) {
+		if (!value.matches("\\d{1,2}(:\\d{2})?")) {
+			throw new IllegalArgumentException("Invalid time: " + value);
+		}
+		
+		String[] parts = value.split(":");
+		int hour = Integer.parseInt(parts[0]);
+		// a bare hour at the end of a range covers the whole hour
+		int minute = parts.length > 1 ? Integer.parseInt(parts[1]) : (isEnd ? 59 : 0);
+		if (hour > 23 || minute > 59) {
+			throw new IllegalArgumentException("Invalid time: " + value);
+		}
+		
+		return hour * 60 + minute;
+	}
+	
+	
+	
+	/**
+	 * Recursive descent parser over the tokens of a query, following the grammar
+	 * <pre>
+	 * query := or
+	 * or    := and ("OR" and)*
+	 * and   := not ("AND"? not)*
+	 * not   := "NOT" not | term
+	 * term  := "(" or ")" | word | phrase | field
+	 * </pre>
+	 * with at most MAX_DEPTH parentheses and NOTs nested inside each other.
+	 */
+	private static class Parser {
+		private final List<Token> tokens;
+		private int position;
+		private int depth;
+		
+		private Parser(List<Token> tokens) {
+			this.tokens = tokens;
+			this.position = 0;
+			this.depth = 0;
+		}
+		
+		
+		private Node parseQuery() {
+			if (this.tokens.isEmpty()) {
+				return new And(new ArrayList<>());
+			}
+			
+			Node query = this.parseOr();
+			if (this.position < this.tokens.size()) {
+				throw new IllegalArgumentException("Unexpected " + this.tokens.get(this.position).describe());
+			}
+			return query;
+		}
+		
+		
+		private Node parseOr() {
+			List<Node> alternatives = new ArrayList<>();
+			alternatives.add(this.parseAnd());
+			while (this.accept(TokenType.OR)) {
+				alternatives.add(this.parseAnd());
+			}
+			return alternatives.size() == 1 ? alternatives.get(0) : new Or(alternatives);
+		}
+		
+		
+		private Node parseAnd() {
+			List<Node> required = new ArrayList<>();
+			required.add(this.parseNot());
+			while (this.position < this.tokens.size()) {
+				TokenType next = this.tokens.get(this.position).type;
+				if (next == TokenType.OR || next == TokenType.CLOSE) {
+					break;
+				}
+				this.accept(TokenType.AND);
+				required.add(this.parseNot());
+			}
+			return required.size() == 1 ? required.get(0) : new And(required);
+		}
+		
+		
+		private Node parseNot() {
+			if (this.accept(TokenType.NOT)) {
+				this.enter();
+				Node negated = new Not(this.parseNot());
+				this.depth--;
+				return negated;
+			}
+			return this.parseTerm();
+		}
+		
+		
+		private Node parseTerm() {
+			if (this.position >= this.tokens.size()) {
+				throw new IllegalArgumentException("Unexpected end of query");
+			}
+			
+			Token token = this.tokens.get(this.position++);
+			switch (token.type) {
+				case OPEN:
+					this.enter();
+					Node group = this.parseOr();
+					if (!this.accept(TokenType.CLOSE)) {
+						throw new IllegalArgumentException("Missing )");
+					}
+					this.depth--;
+					return group;
+				case WORD:
+					return new Text(token.value, false, false);
+				case PHRASE:
+					if (token.value.trim().isEmpty()) {
+						throw new IllegalArgumentException("Empty phrase");
+					}
+					return new Text(token.value, true, false);
+				case FIELD:
+					return this.parseField(token);
+				default:
+					throw new IllegalArgumentException("Unexpected " + token.describe());
+			}
+		}
+		
+		
+		private Node parseField(Token token) {
+			switch (token.field) {
+				case "title":
+					if (token.value.trim().isEmpty()) {
+						throw new IllegalArgumentException("Empty title:");
+					}
+					return new Text(token.value, token.value.contains(" "), true);
+				case "before":
+					return new DateBound(true, parseDate(token.value));
+				case "after":
+					return new DateBound(false, parseDate(token.value));
+				default:
+					return parseTimeRange(token.value);
+			}
+		}
+		
+		
+		private void enter() {
+			if (++this.depth > MAX_DEPTH) {
+				throw new IllegalArgumentException("Query nested more than " + MAX_DEPTH + " deep");
+			}
+		}
+		
+		
+		private boolean accept(TokenType type) {
+			if (this.position < this.tokens.size() && this.tokens.get(this.position).type == type) {
+				this.position++;
+				return true;
+			}
+			return false;
+		}
+	}
+	
+	
+	
+	private enum TokenType {
+		OPEN, CLOSE, AND, OR, NOT, WORD, PHRASE, FIELD
+	}
+	
+	
+	private static class Token {
+		private final TokenType type;
+		private final String field;
+		private final String value;
+		
+		private Token(TokenType type, String field, String value) {
+			this.type = type;
+			this.field = field;
+			this.value = value;
+		}
+		
+		
+		private String describe() {
+			switch (this.type) {
+				case OPEN:
+					return "(";
+				case CLOSE:
+					return ")";
+				case WORD:
+				case PHRASE:
+					return "\"" + this.value + "\"";
+				case FIELD:
+					return this.field + ":" + this.value;
+				default:
+					return this.type.name();
+			}
+		}
+	}
+	
+	
+	
+	private interface Node {
+	}
+	
+	
+	private static class Text implements Node {
+		private final String value;
+		private final boolean isPhrase;
+		private final boolean isTitleOnly;
+		
+		private Text(String value, boolean isPhrase, boolean isTitleOnly) {
+			this.value = value;
+			this.isPhrase = isPhrase;
+			this.isTitleOnly = isTitleOnly;
+		}
+		
+		
+		private boolean isPlainWord() {
+			return !this.isPhrase && !this.isTitleOnly;
+		}
+	}
+	
+	
+	private static class And implements Node {
+		private final List<Node> children;
+		
+		private And(List<Node> children) {
+			this.children = children;
+		}
+	}
+	
+	
+	private static class Or implements Node {
+		private final List<Node> children;
+		
+		private Or(List<Node> children) {
+			this.children = children;
+		}
+	}
+	
+	
+	private static class Not implements Node {
+		private final Node child;
+		
+		private Not(Node child) {
+			this.child = child;
+		}
+	}
+	
+	
+	private static class DateBound implements Node {
+		private final boolean isBefore;
+		private final String date;
+		
+		private DateBound(boolean isBefore, String date) {
+			this.isBefore = isBefore;
+			this.date = date;
+		}
+	}
+	
+	
+	private static class TimeRange implements Node {
+		private final int from;
+		private final int to;
+		
+		private TimeRange(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,258 @@
+package application.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The migrations that create the tables, indexes and triggers the journals database needs on top of the
+ * journal table it ships with. Databases that were updated before migrations were versioned already have some of
+ * these, so every step checks for what it creates.
+ */
+public class JournalSchema {
+	// how much more a keyword found in the title counts towards a journal entry's relevance than one found in its context
+	static final double TITLE_WEIGHT = 10.0;
+	static final double CONTEXT_WEIGHT = 1.0;
+	
+	private static volatile boolean isFullTextAvailable = false;
+	
+	
+	/**
+	 * Brings the journals database up to date with the schema expected by JournalDAO
+	 * 
+	 * @param pool the connection pool of the journals database
+	 */
+	public static void migrate(ConnectionPool pool) {
+		SchemaMigrator.migrate(pool, "journals", migrations());
+		
+		try (ConnectionPool.Lease lease = pool.borrowReader()) {
+			// searches fall back to substring matching if the sqlite build lacks FTS5
+			isFullTextAvailable = tableExists(lease.getConnection(), "journal_fts");
+			if (!isFullTextAvailable) {
+				System.out.println("Full-text index is unavailable, falling back to substring search");
+			}
+		
+		} catch (SQLException ex) {
+			isFullTextAvailable = false;
+			System.out.println("Failed to check for the full-text index!");
+			ex.printStackTrace();
+		}
+	}
+	
+	
+	/**
+	 * Lists the migrations of the journals database, new migrations must be appended with the next version
+	 * 
+	 * @return the migrations in increasing order of version
+	 */
+	static List<Migration> migrations() {
+		return Arrays.asList(
+				Migration.of(1, "index journal entries chronologically", JournalSchema::createChronologicalIndex),
+				Migration.of(2, "create the full-text index", JournalSchema::createFullTextIndex).optional(),
+				Migration.of(3, "rank full-text matches and expose their terms", JournalSchema::configureFullTextIndex).optional(),
+				Migration.of(4, "add the timestamp column", JournalSchema::addTimestampColumn),
+				Migration.of(5, "index the timestamp column", JournalSchema::createTimestampIndex),
+				// before the backfill, so that setting the timestamp does not reindex the text of every journal entry
+				Migration.of(6, "reindex journal entries only when their text is updated", JournalSchema::narrowFullTextUpdateTrigger),
+				// malformed dates have no timestamp, so they are excluded to let the backfill finish
+				Migration.backfill(7, "fill in the timestamp of existing journal entries", "journal",
+						"ts = " + timestampOf("date", "hour", "minute"),
+						"ts IS NULL AND " + timestampOf("date", "hour", "minute") + " IS NOT NULL"));
+	}
+	
+	
+	/**
+	 * Creates the index that orders journal entries chronologically, used for paging through the journal
+	 * 
+	 * @param connection the writer connection of the journals database
+	 * @throws SQLException if the index could not be created
+	 */
+	private static void createChronologicalIndex(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE INDEX IF NOT EXISTS journal_chronological ON journal (date, hour, minute, id)");
+		}
+	}
+	
+	
+	/**
+	 * Adds the ts column holding the minutes since the epoch at which each journal entry was written,
+	 * which is filled in for existing entries by a later backfill
+	 * 
+	 * @param connection the writer connection of the journals database
+	 * @throws SQLException if the column could not be added
+	 */
+	private static void addTimestampColumn(Connection connection) throws SQLException {
+		if (columnExists(connection, "journal", "ts")) {
+			return;
+		}
+		
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("ALTER TABLE journal ADD COLUMN ts INTEGER");
+		}
+	}
+	
+	
+	/**
+	 * Indexes the ts column for range queries in either order. Created before the backfill so that
+	 * each chunk of the backfill finds the entries without a timestamp through the index.
+	 * 
+	 * @param connection the writer connection of the journals database
+	 * @throws SQLException if the index could not be created
+	 */
+	private static void createTimestampIndex(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE INDEX IF NOT EXISTS journal_timestamp ON journal (ts, id)");
+		}
+	}
+	
+	
+	/**
+	 * Builds the SQL expression that packs the date, hour and minute of a journal entry into the minutes since
+	 * the epoch, treating the date as UTC so that every day is 1440 minutes long
+	 * 
+	 * @param date the SQL of the date in the format yyyy-MM-dd
+	 * @param hour the SQL of the hour
+	 * @param minute the SQL of the minute
+	 * @return the SQL expression of the timestamp, which is NULL if the date is malformed
+	 */
+	static String timestampOf(String date, String hour, String minute) {
+		return "(CAST(strftime('%s', " + date + ") AS INTEGER) / 60 + " + hour + " * 60 + " + minute + ")";
+	}
+	
+	
+	/**
+	 * Creates the FTS5 index over the title and context of every journal entry,
+	 * along with the triggers that keep it in sync with the journal table
+	 * 
+	 * @param connection the writer connection of the journals database
+	 * @throws SQLException if the sqlite build lacks FTS5
+	 */
+	private static void createFullTextIndex(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			boolean indexExists = tableExists(connection, "journal_fts");
+			
+			// external content table, the index stores tokens only and reads text back from journal
+			statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS journal_fts USING fts5("
+					+ "title, context, content='journal', content_rowid='id', "
+					+ "tokenize='unicode61 remove_diacritics 2', prefix='2 3')");
+			
+			statement.execute("CREATE TRIGGER IF NOT EXISTS journal_fts_insert AFTER INSERT ON journal BEGIN "
+					+ "INSERT INTO journal_fts (rowid, title, context) VALUES (new.id, new.title, new.context); "
+					+ "END");
+			statement.execute("CREATE TRIGGER IF NOT EXISTS journal_fts_delete AFTER DELETE ON journal BEGIN "
+					+ "INSERT INTO journal_fts (journal_fts, rowid, title, context) VALUES ('delete', old.id, old.title, old.context); "
+					+ "END");
+			createFullTextUpdateTrigger(statement);
+			
+			// index entries that were written before the index existed
+			if (!indexExists) {
+				statement.execute("INSERT INTO journal_fts (journal_fts) VALUES ('rebuild')");
+			}
+		}
+	}
+	
+	
+	/**
+	 * Creates the trigger that reindexes a journal entry once its title or context is updated,
+	 * which does not fire for updates of any other column
+	 * 
+	 * @param statement a statement of the writer connection of the journals database
+	 * @throws SQLException if the trigger could not be created
+	 */
+	private static void createFullTextUpdateTrigger(Statement statement) throws SQLException {
+		statement.execute("CREATE TRIGGER IF NOT EXISTS journal_fts_update AFTER UPDATE OF title, context ON journal BEGIN "
+				+ "INSERT INTO journal_fts (journal_fts, rowid, title, context) VALUES ('delete', old.id, old.title, old.context); "
+				+ "INSERT INTO journal_fts (rowid, title, context) VALUES (new.id, new.title, new.context); "
+				+ "END");
+	}
+	
+	
+	/**
+	 * Recreates the update trigger of the full-text index, which was created to fire for updates of any column
+	 * 
+	 * @param connection the writer connection of the journals database
+	 * @throws SQLException if the trigger could not be recreated
+	 */
+	private static void narrowFullTextUpdateTrigger(Connection connection) throws SQLException {
+		if (!tableExists(connection, "journal_fts")) {
+			return;
+		}
+		
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TRIGGER IF EXISTS journal_fts_update");
+			createFullTextUpdateTrigger(statement);
+		}
+	}
+	
+	
+	/**
+	 * Configures the full-text index to rank matches by relevance and creates the vocabulary table over its terms
+	 * 
+	 * @param connection the writer connection of the journals database
+	 * @throws SQLException if the full-text index does not exist
+	 */
+	private static void configureFullTextIndex(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			// rank matches by BM25 with the title boosted, so ORDER BY rank returns the most relevant first
+			statement.execute("INSERT INTO journal_fts (journal_fts, rank) VALUES ('rank', 'bm25(" + TITLE_WEIGHT + ", " + CONTEXT_WEIGHT + ")')");
+			
+			// expose the terms of the index, read by FuzzyTermIndex to build its dictionary
+			statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS journal_fts_vocab USING fts5vocab(journal_fts, row)");
+		}
+	}
+	
+	
+	/**
+	 * Checks whether a table exists in the database
+	 * 
+	 * @param connection a connection to the database
+	 * @param table the name of the table
+	 * @return a boolean indicating whether the table exists
+	 * @throws SQLException if the schema could not be read
+	 */
+	private static boolean tableExists(Connection connection, String table) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM sqlite_master WHERE name = ?")) {
+			statement.setString(1, table);
+			
+			try (ResultSet results = statement.executeQuery()) {
+				return results.next();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Checks whether a table has a column
+	 * 
+	 * @param connection a connection to the database
+	 * @param table the name of the table
+	 * @param column the name of the column
+	 * @return a boolean indicating whether the column exists
+	 * @throws SQLException if the schema could not be read
+	 */
+	private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM pragma_table_info(?) WHERE name = ?")) {
+			statement.setString(1, table);
+			statement.setString(2, column);
+			
+			try (ResultSet results = statement.executeQuery()) {
+				return results.next();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Checks whether the full-text index was created and can be queried
+	 * 
+	 * @return a boolean indicating whether the full-text index is available
+	 */
+	public static boolean isFullTextAvailable() {
+		return isFullTextAvailable;
+	}
+
+}
\ No newline at end of file
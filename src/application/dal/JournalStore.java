@@ -0,0 +1,253 @@
+package application.dal;
+
+import java.time.LocalDateTime;
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import application.models.JournalModel;
+import application.models.JournalPage;
+import application.models.JournalSummary;
+
+/**
+ * The operations that journal entries are stored and looked up with, whatever they are stored in.
+ * Every store publishes a JournalChange through JournalEvents once a write has been made,
+ * and the store in use is chosen by JournalStores.
+ */
+public interface JournalStore {
+	
+	/**
+	 * Creates a journal entry and adds it to the store
+	 * 
+	 * @param title the title of the journal entry in string format
+	 * @param date the date of the journal entry in string format
+	 * @param hour the hour of the time the journal entry was created in integer format
+	 * @param minute the minute of the time the journal entry was created in integer format
+	 * @param context the context of the journal entry in string format
+	 * @return the id assigned to the new journal entry, or -1 if it could not be added
+	 */
+	int createJournal(String title, String date, int hour, int minute, String context);
+	
+	
+	/**
+	 * Adds many journal entries to the store all at once, or none of them if any could not be added.
+	 * The ids of the given models are ignored, new ids are assigned by the store.
+	 * 
+	 * @param journals the journal entries to add
+	 * @return the number of entries added for each journal entry in order,
+	 * or Statement.EXECUTE_FAILED for every entry if none were added
+	 */
+	int[] createJournals(Collection<JournalModel> journals);
+	
+	
+	/**
+	 * Updates an existing journal entry within the store
+	 * 
+	 * @param journal the JournalModel representing the journal to update
+	 */
+	void updateJournal(JournalModel journal);
+	
+	
+	/**
+	 * Updates many existing journal entries all at once, or none of them if any could not be updated
+	 * 
+	 * @param journals the JournalModels representing the journals to update
+	 * @return the number of entries updated for each journal entry in order, 0 if it no longer exists,
+	 * or Statement.EXECUTE_FAILED for every entry if none were updated
+	 */
+	int[] updateJournals(Collection<JournalModel> journals);
+	
+	
+	/**
+	 * Deletes a journal entry from the store given its id
+	 * 
+	 * @param id the id of the journal entry
+	 */
+	void deleteJournal(int id);
+	
+	
+	/**
+	 * Deletes many journal entries all at once, or none of them if any could not be deleted
+	 * 
+	 * @param ids the ids of the journal entries to delete
+	 * @return the number of entries deleted for each id in order, 0 if it no longer exists,
+	 * or Statement.EXECUTE_FAILED for every id if none were deleted
+	 */
+	int[] deleteJournals(Collection<Integer> ids);
+	
+	
+	/**
+	 * Gets the journal entry with a given id
+	 * 
+	 * @param id the id of the journal entry
+	 * @return a JournalModel of the journal entry, or null if no entry has the given id
+	 */
+	JournalModel getJournal(int id);
+	
+	
+	/**
+	 * Gets every journal entry in the store
+	 * 
+	 * @return an ArrayList containing a JournalModel for every journal entry
+	 */
+	ArrayList<JournalModel> getJournals();
+	
+	
+	/**
+	 * Streams every journal entry in id order without buffering them all at once where the store allows it.
+	 * The stream may hold resources of the store until it is closed.
+	 * 
+	 * @param fetchSize the number of journal entries to read at a time
+	 * @return a stream of every journal entry, empty if they could not be read
+	 */
+	Stream<JournalModel> streamJournals(int fetchSize);
+	
+	
+	/**
+	 * Gets a summary of every journal entry in the store, without loading their full context
+	 * 
+	 * @return an ArrayList containing a JournalSummary for every journal entry
+	 */
+	ArrayList<JournalSummary> getJournalSummaries();
+	
+	
+	/**
+	 * Gets the most relevant journal entries that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @return an ArrayList containing a JournalModel for each of the JournalDAO.DEFAULT_SEARCH_LIMIT most relevant matches, most relevant first
+	 */
+	ArrayList<JournalModel> getJournals(String keyword, SearchMode mode);
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against each journal entry
+	 * @return an ArrayList containing a scored JournalSummary for each of the JournalDAO.DEFAULT_SEARCH_LIMIT most relevant matches, most relevant first
+	 */
+	ArrayList<JournalSummary> getJournalSummaries(String keyword, SearchMode mode);
+	
+	
+	/**
+	 * Finds the summaries of the most relevant journal entries matching a given keyword, handing them over in batches
+	 * so the first matches can be shown before the search finishes
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched against journal entries
+	 * @param batchSize the number of summaries in each batch but the last
+	 * @param batches receives each batch of summaries on the thread running the search
+	 * @param cancellation cancels the search from another thread
+	 * @return an ArrayList containing every summary found, or null if the search was cancelled
+	 */
+	ArrayList<JournalSummary> streamJournalSummaries(String keyword, SearchMode mode, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation);
+	
+	
+	/**
+	 * Finds the summaries of the most relevant journal entries matching a query, handing them over in batches
+	 * so the first matches can be shown before the search finishes
+	 * 
+	 * @param journalQuery the parsed query that a journal entry must match
+	 * @param batchSize the number of summaries in each batch but the last
+	 * @param batches receives each batch of summaries on the thread running the search
+	 * @param cancellation cancels the search from another thread
+	 * @return an ArrayList containing every summary found, or null if the search was cancelled
+	 */
+	ArrayList<JournalSummary> streamJournalSummaries(JournalQuery journalQuery, int batchSize,
+			Consumer<List<JournalSummary>> batches, QueryCancellation cancellation);
+	
+	
+	/**
+	 * Counts the journal entries in the store
+	 * 
+	 * @return the number of journal entries, or 0 if they could not be counted
+	 */
+	int countJournals();
+	
+	
+	/**
+	 * Gets the summaries of a window of journal entries by position, ordered from newest to oldest
+	 * 
+	 * @param offset the position of the first journal entry of the window
+	 * @param limit the maximum number of journal entries in the window
+	 * @return an ArrayList containing the summaries of the journal entries in the window
+	 */
+	ArrayList<JournalSummary> getJournalSummaryWindow(int offset, int limit);
+	
+	
+	/**
+	 * Gets the summaries of the journal entries written within a range of time
+	 * 
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, exclusive
+	 * @param isNewestFirst whether the newest journal entries come first, otherwise the oldest do
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the journal entries written within the range
+	 */
+	ArrayList<JournalSummary> getJournalSummariesBetween(LocalDateTime from, LocalDateTime to, boolean isNewestFirst, int limit);
+	
+	
+	/**
+	 * Gets the summaries of the most recently written journal entries
+	 * 
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the newest journal entries, newest first
+	 */
+	ArrayList<JournalSummary> getNewestJournalSummaries(int limit);
+	
+	
+	/**
+	 * Gets the summaries of the earliest written journal entries
+	 * 
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the oldest journal entries, oldest first
+	 */
+	ArrayList<JournalSummary> getOldestJournalSummaries(int limit);
+	
+	
+	/**
+	 * Gets the summaries of the journal entries written on a day of the year in any year, such as every March 10th
+	 * 
+	 * @param day the month and day of the month
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the journal entries written on the day, newest first
+	 */
+	ArrayList<JournalSummary> getJournalSummariesOnThisDay(MonthDay day, int limit);
+	
+	
+	/**
+	 * Gets a page of journal entries ordered from newest to oldest
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of at most pageSize journal entries and the token of the following page
+	 * @throws IllegalArgumentException if the page size is not positive or the token is invalid
+	 */
+	JournalPage<JournalModel> getJournalPage(String pageToken, int pageSize);
+	
+	
+	/**
+	 * Gets a page of journal entry summaries ordered from newest to oldest
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of at most pageSize journal entry summaries and the token of the following page
+	 * @throws IllegalArgumentException if the page size is not positive or the token is invalid
+	 */
+	JournalPage<JournalSummary> getJournalSummaryPage(String pageToken, int pageSize);
+	
+	
+	/**
+	 * Releases what the store holds on to, once no more journal entries will be read or written.
+	 * Stores that share their resources with the rest of the application have nothing to release.
+	 */
+	default void close() {
+	}
+
+}
\ No newline at end of file
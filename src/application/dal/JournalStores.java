@@ -0,0 +1,99 @@
+package application.dal;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Chooses the JournalStore that journal entries are kept in, so the same workload can be run against each of them.
+ * The store is set by the journalicious.store system property:
+ * <ul>
+ * <li>sqlite, the default, keeps them in the journals database</li>
+ * <li>memory keeps them in memory only, losing them once the application closes</li>
+ * <li>log appends every write to memory-mapped segment files in the directory set by journalicious.store.log,
+ * each journalicious.store.segmentSize bytes, syncing each write to disk unless journalicious.store.sync is false</li>
+ * </ul>
+ */
+public class JournalStores {
+	private static final String defaultLogPath = "resources/log";
+	
+	private static JournalStore store;
+	
+	
+	/**
+	 * Gets the store that journal entries are kept in, opening it the first time it is asked for
+	 * 
+	 * @return the journal store chosen by the system properties
+	 * @throws IllegalArgumentException if the system properties name an unknown store
+	 * @throws IllegalStateException if the store could not be opened
+	 */
+	public static synchronized JournalStore get() {
+		if (store == null) {
+			store = open(Backend.fromSystemProperties());
+		}
+		
+		return store;
+	}
+	
+	
+	/**
+	 * Opens a new journal store of a given kind
+	 * 
+	 * @param backend the kind of store to open
+	 * @return the opened journal store
+	 * @throws IllegalStateException if the store could not be opened
+	 */
+	public static JournalStore open(Backend backend) {
+		switch (backend) {
+			case MEMORY:
+				return new InMemoryJournalStore();
+			case LOG:
+				String path = System.getProperty("journalicious.store.log", defaultLogPath);
+				int segmentSize = Integer.getInteger("journalicious.store.segmentSize", LogJournalStore.DEFAULT_SEGMENT_SIZE);
+				if (segmentSize <= LogSegment.HEADER_SIZE) {
+					System.out.println("Invalid journal log segment size " + segmentSize + ", using " + LogJournalStore.DEFAULT_SEGMENT_SIZE + " bytes");
+					segmentSize = LogJournalStore.DEFAULT_SEGMENT_SIZE;
+				}
+				boolean isSynced = Boolean.parseBoolean(System.getProperty("journalicious.store.sync", "true"));
+				try {
+					return new LogJournalStore(Paths.get(path), segmentSize, isSynced);
+				} catch (IOException ex) {
+					throw new IllegalStateException("Failed to open the journal log " + path, ex);
+				}
+			default:
+				return new JournalDAO();
+		}
+	}
+	
+	
+	/**
+	 * Closes the journal store if it was opened, once no more journal entries will be read or written
+	 */
+	public static synchronized void close() {
+		if (store != null) {
+			store.close();
+			store = null;
+		}
+	}
+	
+	
+	/**
+	 * An enumeration of the kinds of store journal entries can be kept in
+	 */
+	public enum Backend {
+		SQLITE,
+		MEMORY,
+		LOG;
+		
+		/**
+		 * Gets the kind of store set by the journalicious.store system property
+		 * 
+		 * @return the kind of store, SQLITE if the property is not set
+		 * @throws IllegalArgumentException if the property names an unknown store
+		 */
+		public static Backend fromSystemProperties() {
+			return Backend.valueOf(System.getProperty("journalicious.store", "sqlite").toUpperCase(Locale.ROOT));
+		}
+	}
+
+}
\ No newline at end of file
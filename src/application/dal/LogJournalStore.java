@@ -0,0 +1,663 @@
+package application.dal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * A JournalStore that appends every write to a log of memory-mapped segment files before making it,
+ * keeping in memory only where the current record of each journal entry is in the log.
+ * Titles and contexts are decoded straight from the mapped files whenever they are read.
+ * <p>
+ * Every record is its length and a CRC32 checksum followed by its body, which is the write of a journal entry,
+ * the tombstone of a deleted one, or the commit that ends a batch of writes. A batch is only made once its commit
+ * is read, and the checksum catches a record that was only partly written, so opening the store after a crash
+ * rebuilds the index by scanning every segment and drops the batch that was cut short.
+ * Once a segment is full a new one is started, and full segments are merged in the background,
+ * dropping the records of journal entries that were written again or deleted since.
+ */
+public class LogJournalStore extends InMemoryJournalStore {
+	public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+	
+	// the kinds of record, each followed by the id of the journal entry, or by the number of records for a commit
+	private static final byte WRITE_RECORD = 1;
+	private static final byte DELETE_RECORD = 2;
+	private static final byte COMMIT_RECORD = 3;
+	
+	// the length and checksum before the body of every record
+	private static final int RECORD_HEADER_SIZE = 8;
+	// the body of a tombstone or commit, a kind and an int
+	private static final int SHORT_RECORD_SIZE = RECORD_HEADER_SIZE + 1 + 4;
+	// a write also has the hour, the minute, and a length before each of the date, title and context
+	private static final int WRITE_RECORD_SIZE = SHORT_RECORD_SIZE + 4 + 4 + 3 * 4;
+	
+	// full segments are merged once there are this many, or once they hold more dead records than live ones
+	private static final int MAX_FULL_SEGMENTS = 8;
+	
+	private final Path directory;
+	private final int segmentSize;
+	// whether every write reaches the disk before it is made, rather than when the OS flushes it
+	private final boolean isSynced;
+	
+	// every segment in the order its records are replayed, the last one being appended to; guarded by the lock
+	private final List<LogSegment> segments = new ArrayList<>();
+	
+	private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(
+			DBExecutor.daemonThreads("journalicious-log-compaction"));
+	private final AtomicBoolean isCompacting = new AtomicBoolean();
+	
+	
+	/**
+	 * Opens the log of journal entries in a given directory, creating it if it does not exist yet
+	 * 
+	 * @param directory the directory of the segment files
+	 * @param segmentSize the size in bytes of each new segment file
+	 * @param isSynced whether every write is synced to disk before it is made
+	 * @throws IOException if the segment files could not be read or created
+	 */
+	public LogJournalStore(Path directory, int segmentSize, boolean isSynced) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.isSynced = isSynced;
+		
+		Files.createDirectories(directory);
+		try {
+			for (LogSegment segment : this.openSegments()) {
+				this.segments.add(segment);
+				this.replay(segment);
+			}
+			if (this.segments.isEmpty()) {
+				this.segments.add(LogSegment.create(LogSegment.pathOf(directory, 1, 0), 1, 0, segmentSize));
+			}
+		} catch (IOException | RuntimeException ex) {
+			this.segments.forEach(LogSegment::close);
+			throw ex;
+		}
+	}
+	
+	
+	/**
+	 * Opens every segment of the log in order, deleting what an interrupted compaction left behind:
+	 * a merged segment that was never finished, or the segments that a finished one was merged from.
+	 * A new segment is only given its name once its header is written, so one cut short is a .tmp file too.
+	 * 
+	 * @return the segments of the log ordered by sequence
+	 * @throws IOException if the directory could not be listed or a segment could not be opened
+	 */
+	private List<LogSegment> openSegments() throws IOException {
+		List<LogSegment> found = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+			for (Path file : files) {
+				if (file.getFileName().toString().endsWith(".tmp")) {
+					Files.delete(file);
+				}
+				else if (LogSegment.isSegment(file)) {
+					found.add(LogSegment.open(file));
+				}
+			}
+		} catch (IOException | RuntimeException ex) {
+			found.forEach(LogSegment::close);
+			throw ex;
+		}
+		
+		List<LogSegment> opened = new ArrayList<>();
+		for (LogSegment segment : found) {
+			if (found.stream().anyMatch(other -> other.supersedes(segment))) {
+				segment.close();
+				delete(segment);
+			}
+			else {
+				opened.add(segment);
+			}
+		}
+		opened.sort(Comparator.comparingInt(segment -> segment.sequence));
+		return opened;
+	}
+	
+	
+	/**
+	 * Rebuilds the index from the records of a segment, making each batch of writes once its commit is read.
+	 * The records after one that fails its checksum, or after the last commit, were cut short by a crash,
+	 * so they are dropped and erased so that they are not mistaken for the records appended over them.
+	 * 
+	 * @param segment the segment, which is the last one opened so far
+	 */
+	private void replay(LogSegment segment) {
+		ByteBuffer log = segment.buffer.duplicate();
+		List<Runnable> pending = new ArrayList<>();
+		int position = LogSegment.HEADER_SIZE;
+		segment.end = position;
+		
+		while (position <= segment.capacity() - RECORD_HEADER_SIZE) {
+			int length = log.getInt(position);
+			if (length == 0) {
+				break;
+			}
+			int body = position + RECORD_HEADER_SIZE;
+			if (length < SHORT_RECORD_SIZE - RECORD_HEADER_SIZE || length > segment.capacity() - body
+					|| log.getInt(position + 4) != checksumOf(log, body, length)) {
+				break;
+			}
+			
+			byte kind = log.get(body);
+			int id = log.getInt(body + 1);
+			if (kind == WRITE_RECORD) {
+				SegmentRow row = readWrite(segment, position, length);
+				if (row == null) {
+					break;
+				}
+				pending.add(() -> this.put(row));
+			}
+			else if (kind == DELETE_RECORD) {
+				pending.add(() -> this.remove(id));
+			}
+			else if (kind == COMMIT_RECORD && id == pending.size()) {
+				pending.forEach(Runnable::run);
+				pending.clear();
+				segment.end = body + length;
+			}
+			else {
+				break;
+			}
+			position = body + length;
+		}
+		
+		// a torn record may have its length still zero but the rest of its bytes written, so every byte after the end is checked
+		int written = segment.endOfWritten(segment.end);
+		if (written > segment.end) {
+			System.out.println("Dropped the journal log records cut short at offset " + segment.end + " of " + segment.getPath() + "!");
+			segment.erase(segment.end, written);
+			segment.force();
+		}
+	}
+	
+	
+	/**
+	 * Reads the write of a journal entry into a row pointing at its title and context in the segment
+	 * 
+	 * @param segment the segment holding the record
+	 * @param offset the offset of the record
+	 * @param length the length of the body of the record
+	 * @return the row, or null if the strings of the record do not fit in it
+	 */
+	private static SegmentRow readWrite(LogSegment segment, int offset, int length) {
+		ByteBuffer log = segment.buffer;
+		int body = offset + RECORD_HEADER_SIZE;
+		int end = body + length;
+		if (length < WRITE_RECORD_SIZE - RECORD_HEADER_SIZE) {
+			return null;
+		}
+		
+		int id = log.getInt(body + 1);
+		int hour = log.getInt(body + 5);
+		int minute = log.getInt(body + 9);
+		int[] strings = new int[6];
+		int position = body + 13;
+		for (int i = 0; i < strings.length; i += 2) {
+			int stringLength = log.getInt(position);
+			position += 4;
+			if (stringLength > end - position) {
+				return null;
+			}
+			strings[i] = position;
+			strings[i + 1] = stringLength;
+			position += Math.max(stringLength, 0);
+		}
+		
+		return new SegmentRow(id, segment.decode(strings[0], strings[1]), hour, minute, segment,
+				offset, RECORD_HEADER_SIZE + length, strings[2], strings[3], strings[4], strings[5]);
+	}
+	
+	
+	/**
+	 * Appends a batch of writes followed by its commit to the segment being appended to,
+	 * starting a new segment first if the batch does not fit, and syncs it to disk if the store is synced
+	 * 
+	 * @param written the journal entries created or updated
+	 * @param deleted the ids of the journal entries deleted
+	 * @return rows pointing at the written journal entries in the log
+	 * @throws IOException if a new segment could not be created
+	 */
+	@Override
+	List<Row> persist(List<Row> written, List<Integer> deleted) throws IOException {
+		List<byte[][]> encoded = new ArrayList<>(written.size());
+		int size = (deleted.size() + 1) * SHORT_RECORD_SIZE;
+		for (Row row : written) {
+			byte[][] strings = { encode(row.date), encode(row.getTitle()), encode(row.getContext()) };
+			encoded.add(strings);
+			size += WRITE_RECORD_SIZE + length(strings[0]) + length(strings[1]) + length(strings[2]);
+		}
+		
+		LogSegment segment = this.segmentWithRoomFor(size);
+		ByteBuffer out = segment.buffer.duplicate();
+		out.position(segment.end);
+		List<Row> located = new ArrayList<>(written.size());
+		try {
+			for (int i = 0; i < written.size(); i++) {
+				located.add(appendWrite(out, segment, written.get(i), encoded.get(i)));
+			}
+			for (int id : deleted) {
+				appendShort(out, DELETE_RECORD, id);
+			}
+			appendShort(out, COMMIT_RECORD, written.size() + deleted.size());
+		} catch (RuntimeException ex) {
+			// a later batch is appended over this one, so none of it may be left to be read after that batch
+			segment.erase(segment.end, out.position());
+			throw ex;
+		}
+		
+		if (this.isSynced) {
+			segment.force();
+		}
+		segment.end = out.position();
+		this.compactIfNeeded();
+		return located;
+	}
+	
+	
+	/**
+	 * Gets the segment to append a batch to, sealing the current one and starting a new one if it is too full
+	 * 
+	 * @param size the size in bytes of the batch
+	 * @return the segment being appended to
+	 * @throws IOException if a new segment could not be created
+	 */
+	private LogSegment segmentWithRoomFor(int size) throws IOException {
+		LogSegment active = this.segments.get(this.segments.size() - 1);
+		if (size <= active.capacity() - active.end) {
+			return active;
+		}
+		
+		active.force();
+		int sequence = active.sequence + 1;
+		LogSegment next = LogSegment.create(LogSegment.pathOf(this.directory, sequence, 0), sequence, 0,
+				Math.max(this.segmentSize, LogSegment.HEADER_SIZE + size));
+		this.segments.add(next);
+		return next;
+	}
+	
+	
+	/**
+	 * Appends the write of a journal entry
+	 * 
+	 * @param out the segment, positioned where the record is appended
+	 * @param segment the segment
+	 * @param row the journal entry
+	 * @param strings the date, title and context encoded by encode
+	 * @return a row pointing at the journal entry in the segment
+	 */
+	private static SegmentRow appendWrite(ByteBuffer out, LogSegment segment, Row row, byte[][] strings) {
+		int offset = out.position();
+		out.position(offset + RECORD_HEADER_SIZE);
+		out.put(WRITE_RECORD);
+		out.putInt(row.id);
+		out.putInt(row.hour);
+		out.putInt(row.minute);
+		int[] stringOffsets = new int[strings.length];
+		for (int i = 0; i < strings.length; i++) {
+			out.putInt(strings[i] == null ? -1 : strings[i].length);
+			stringOffsets[i] = out.position();
+			if (strings[i] != null) {
+				out.put(strings[i]);
+			}
+		}
+		finishRecord(out, offset);
+		
+		return new SegmentRow(row.id, row.date, row.hour, row.minute, segment, offset, out.position() - offset,
+				stringOffsets[1], length(strings[1]), stringOffsets[2], length(strings[2]));
+	}
+	
+	
+	/**
+	 * Appends a tombstone or commit
+	 * 
+	 * @param out the segment, positioned where the record is appended
+	 * @param kind the kind of record
+	 * @param value the id of the deleted journal entry, or the number of records committed
+	 */
+	private static void appendShort(ByteBuffer out, byte kind, int value) {
+		int offset = out.position();
+		out.position(offset + RECORD_HEADER_SIZE);
+		out.put(kind);
+		out.putInt(value);
+		finishRecord(out, offset);
+	}
+	
+	
+	/**
+	 * Fills in the length and checksum of a record once its body is appended.
+	 * The length is written last, since a length of zero marks the end of the records.
+	 * 
+	 * @param out the segment, positioned after the body of the record
+	 * @param offset the offset of the record
+	 */
+	private static void finishRecord(ByteBuffer out, int offset) {
+		int body = offset + RECORD_HEADER_SIZE;
+		int length = out.position() - body;
+		out.putInt(offset + 4, checksumOf(out, body, length));
+		out.putInt(offset, length);
+	}
+	
+	
+	private static int checksumOf(ByteBuffer log, int offset, int length) {
+		ByteBuffer body = log.duplicate();
+		body.position(offset);
+		body.limit(offset + length);
+		CRC32 checksum = new CRC32();
+		checksum.update(body);
+		return (int) checksum.getValue();
+	}
+	
+	
+	private static byte[] encode(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+	
+	
+	private static int length(byte[] encoded) {
+		return encoded == null ? -1 : encoded.length;
+	}
+	
+	
+	/**
+	 * Keeps count of the live bytes of each segment as journal entries are moved around the log
+	 */
+	@Override
+	Row put(Row row) {
+		Row previous = super.put(row);
+		countLive(previous, -1);
+		countLive(row, 1);
+		return previous;
+	}
+	
+	
+	@Override
+	Row remove(int id) {
+		Row previous = super.remove(id);
+		countLive(previous, -1);
+		return previous;
+	}
+	
+	
+	private static void countLive(Row row, int sign) {
+		if (row instanceof SegmentRow) {
+			SegmentRow located = (SegmentRow) row;
+			located.segment.liveBytes += sign * located.recordLength;
+		}
+	}
+	
+	
+	/**
+	 * Starts a compaction in the background if the full segments are many or mostly dead records.
+	 * Must be called while holding the write lock.
+	 */
+	private void compactIfNeeded() {
+		List<LogSegment> full = this.segments.subList(0, this.segments.size() - 1);
+		if (full.isEmpty() || this.isCompacting.get()) {
+			return;
+		}
+		
+		long total = 0;
+		long live = 0;
+		for (LogSegment segment : full) {
+			total += segment.end - LogSegment.HEADER_SIZE;
+			live += segment.liveBytes;
+		}
+		if ((full.size() >= MAX_FULL_SEGMENTS || live < total - live) && this.isCompacting.compareAndSet(false, true)) {
+			try {
+				this.compactionExecutor.execute(this::runCompaction);
+			} catch (RejectedExecutionException ex) {
+				// the store is closing
+				this.isCompacting.set(false);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Merges every full segment into a single segment holding only their current records,
+	 * while writes carry on being appended to the last segment
+	 * 
+	 * @return true if the segments were merged, false if a compaction was already running or it failed
+	 */
+	public boolean compact() {
+		return this.isCompacting.compareAndSet(false, true) && this.runCompaction();
+	}
+	
+	
+	/**
+	 * Runs a compaction claimed by setting isCompacting, clearing it once done
+	 * 
+	 * @return true if the segments were merged, false if it failed
+	 */
+	private boolean runCompaction() {
+		try {
+			this.mergeFullSegments();
+			return true;
+		} catch (IOException ex) {
+			System.out.println("Failed to compact the journal log!");
+			ex.printStackTrace();
+			return false;
+		} finally {
+			this.isCompacting.set(false);
+		}
+	}
+	
+	
+	/**
+	 * Copies the current records of the full segments into a new segment, renames it into place once complete,
+	 * then points the index at the copies and deletes the merged segments.
+	 * The full segments are never appended to, so they are copied without holding the lock.
+	 * 
+	 * @throws IOException if the merged segment could not be written
+	 */
+	private void mergeFullSegments() throws IOException {
+		List<LogSegment> merged;
+		List<SegmentRow> live = new ArrayList<>();
+		int lastID;
+		
+		this.lock.readLock().lock();
+		try {
+			merged = new ArrayList<>(this.segments.subList(0, this.segments.size() - 1));
+			Set<LogSegment> mergedSet = new HashSet<>(merged);
+			for (Row row : this.currentRows()) {
+				if (row instanceof SegmentRow && mergedSet.contains(((SegmentRow) row).segment)) {
+					live.add((SegmentRow) row);
+				}
+			}
+			lastID = this.getLastID();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+		if (merged.isEmpty()) {
+			return;
+		}
+		
+		int size = LogSegment.HEADER_SIZE + 2 * SHORT_RECORD_SIZE;
+		int generation = 0;
+		for (SegmentRow row : live) {
+			size += row.recordLength;
+		}
+		for (LogSegment segment : merged) {
+			generation = Math.max(generation, segment.generation + 1);
+		}
+		int sequence = merged.get(merged.size() - 1).sequence;
+		Path target = LogSegment.pathOf(this.directory, sequence, generation);
+		
+		LogSegment output = LogSegment.create(target.resolveSibling(target.getFileName() + ".tmp"), sequence, generation, size);
+		List<SegmentRow> moved = new ArrayList<>(live.size());
+		try {
+			ByteBuffer out = output.buffer.duplicate();
+			out.position(LogSegment.HEADER_SIZE);
+			// the newest journal entry may be dropped, so its id is kept from being assigned again
+			appendShort(out, DELETE_RECORD, lastID);
+			for (SegmentRow row : live) {
+				int offset = out.position();
+				ByteBuffer record = row.segment.buffer.duplicate();
+				record.position(row.recordOffset);
+				record.limit(row.recordOffset + row.recordLength);
+				out.put(record);
+				moved.add(row.movedTo(output, offset));
+			}
+			appendShort(out, COMMIT_RECORD, live.size() + 1);
+			output.end = out.position();
+			output.force();
+			output.moveTo(target);
+		} catch (IOException | RuntimeException ex) {
+			output.close();
+			Files.deleteIfExists(output.getPath());
+			throw ex;
+		}
+		
+		this.lock.writeLock().lock();
+		try {
+			// journal entries written again or deleted since were copied, but their newer records are kept
+			for (int i = 0; i < live.size(); i++) {
+				if (this.currentRow(live.get(i).id) == live.get(i)) {
+					this.put(moved.get(i));
+				}
+			}
+			this.segments.removeAll(merged);
+			this.segments.add(0, output);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		
+		for (LogSegment segment : merged) {
+			segment.close();
+			delete(segment);
+		}
+		System.out.println("Compacted " + merged.size() + " journal log segments into " + target.getFileName() + "!");
+	}
+	
+	
+	/**
+	 * Deletes a segment file that is no longer part of the log. If the file is still in use it is left
+	 * for the next time the log is opened, which deletes it since the segment that replaced it supersedes it.
+	 * 
+	 * @param segment the closed segment
+	 */
+	private static void delete(LogSegment segment) {
+		try {
+			Files.deleteIfExists(segment.getPath());
+		} catch (IOException ex) {
+			System.out.println("Failed to delete the journal log segment " + segment.getPath() + ", it is deleted once the log is opened again!");
+		}
+	}
+	
+	
+	/**
+	 * Waits for a running compaction, then syncs and closes every segment once no more journal entries will be written
+	 */
+	@Override
+	public void close() {
+		this.compactionExecutor.shutdown();
+		try {
+			this.compactionExecutor.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		
+		this.lock.writeLock().lock();
+		try {
+			for (LogSegment segment : this.segments) {
+				segment.force();
+				segment.close();
+			}
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	
+	
+	/**
+	 * A journal entry whose title and context are read from its record in a segment whenever they are needed,
+	 * so only the fields that journal entries are ordered by are kept in memory
+	 */
+	private static class SegmentRow extends Row {
+		private final LogSegment segment;
+		private final int recordOffset;
+		private final int recordLength;
+		private final int titleOffset;
+		private final int titleLength;
+		private final int contextOffset;
+		private final int contextLength;
+		
+		private SegmentRow(int id, String date, int hour, int minute, LogSegment segment, int recordOffset, int recordLength,
+				int titleOffset, int titleLength, int contextOffset, int contextLength) {
+			super(id, null, date, hour, minute, null);
+			this.segment = segment;
+			this.recordOffset = recordOffset;
+			this.recordLength = recordLength;
+			this.titleOffset = titleOffset;
+			this.titleLength = titleLength;
+			this.contextOffset = contextOffset;
+			this.contextLength = contextLength;
+		}
+		
+		
+		/**
+		 * Points at a copy of the record of the journal entry in another segment
+		 * 
+		 * @param target the segment the record was copied to
+		 * @param offset the offset of the copy
+		 * @return a row reading the journal entry from the copy
+		 */
+		private SegmentRow movedTo(LogSegment target, int offset) {
+			int shift = offset - this.recordOffset;
+			return new SegmentRow(this.id, this.date, this.hour, this.minute, target, offset, this.recordLength,
+					this.titleOffset + shift, this.titleLength, this.contextOffset + shift, this.contextLength);
+		}
+		
+		
+		@Override
+		String getTitle() {
+			return this.segment.decode(this.titleOffset, this.titleLength);
+		}
+		
+		
+		@Override
+		String getContext() {
+			return this.segment.decode(this.contextOffset, this.contextLength);
+		}
+		
+		
+		// the words are split again for every search rather than keeping a copy of the text in memory
+		@Override
+		TokenizedText getTitleText() {
+			return new TokenizedText(this.getTitle());
+		}
+		
+		
+		@Override
+		TokenizedText getContextText() {
+			return new TokenizedText(this.getContext());
+		}
+		
+		
+		/**
+		 * Decodes only as much of the context as the preview can show, since a character is at most 4 bytes
+		 */
+		@Override
+		String getPreview() {
+			int length = this.contextLength < 0 ? -1 : Math.min(this.contextLength, 4 * JournalDAO.PREVIEW_LENGTH);
+			return previewOf(this.segment.decode(this.contextOffset, length));
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+package application.dal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A segment file of the journal log, mapped into memory so that records are appended and read
+ * straight through the mapping rather than with a system call each.
+ * Segments are named journals-sequence-generation.segment, the sequence ordering the segments of the log
+ * and the generation counting how many times the records in it were merged by compaction.
+ */
+class LogSegment {
+	// "JLOG" followed by the version of the record format
+	private static final int MAGIC = 0x4A4C4F47;
+	private static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	
+	private static final Pattern FILE_NAME = Pattern.compile("journals-(\\d+)-(\\d+)\\.segment");
+	// new segments are filled with zeros in blocks of this size, so running out of disk fails here and not partway through a write
+	private static final int ZERO_BLOCK_SIZE = 64 * 1024;
+	
+	private Path path;
+	final int sequence;
+	final int generation;
+	private final FileChannel channel;
+	final MappedByteBuffer buffer;
+	
+	// the offset the next record is appended at, which is also where the records end
+	int end = HEADER_SIZE;
+	// the bytes of the records that hold the current version of a journal entry, which compaction keeps
+	long liveBytes;
+	
+	
+	private LogSegment(Path path, int sequence, int generation, FileChannel channel) throws IOException {
+		this.path = path;
+		this.sequence = sequence;
+		this.generation = generation;
+		this.channel = channel;
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+	}
+	
+	
+	/**
+	 * Creates a new empty segment file of a given size, replacing any file at the path.
+	 * The file is filled in under a temporary name and only renamed to the path once its header is on disk,
+	 * so a segment file is never found without its header.
+	 * 
+	 * @param path the path of the segment file
+	 * @param sequence the position of the segment in the log
+	 * @param generation the number of times the records in the segment were merged
+	 * @param capacity the size of the segment file in bytes, header included
+	 * @return the segment, mapped into memory
+	 * @throws IOException if the segment file could not be created
+	 */
+	static LogSegment create(Path path, int sequence, int generation, int capacity) throws IOException {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer zeros = ByteBuffer.allocate(ZERO_BLOCK_SIZE);
+			for (long position = 0; position < capacity; position += ZERO_BLOCK_SIZE) {
+				zeros.clear();
+				zeros.limit((int) Math.min(ZERO_BLOCK_SIZE, capacity - position));
+				while (zeros.hasRemaining()) {
+					channel.write(zeros, position + zeros.position());
+				}
+			}
+			
+			LogSegment segment = new LogSegment(temporary, sequence, generation, channel);
+			segment.buffer.putInt(0, MAGIC);
+			segment.buffer.putInt(4, VERSION);
+			segment.buffer.force();
+			segment.moveTo(path);
+			return segment;
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			Files.deleteIfExists(temporary);
+			throw ex;
+		}
+	}
+	
+	
+	/**
+	 * Opens an existing segment file, named by pathOf
+	 * 
+	 * @param path the path of the segment file
+	 * @return the segment, mapped into memory, with no records read yet
+	 * @throws IOException if the segment file could not be opened or is not a segment of the journal log
+	 */
+	static LogSegment open(Path path) throws IOException {
+		Matcher name = FILE_NAME.matcher(path.getFileName().toString());
+		if (!name.matches()) {
+			throw new IOException(path + " is not named like a journal log segment");
+		}
+		
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(path + " is not a journal log segment");
+			}
+			
+			LogSegment segment = new LogSegment(path, Integer.parseInt(name.group(1)), Integer.parseInt(name.group(2)), channel);
+			if (segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(4) != VERSION) {
+				throw new IOException(path + " is not a journal log segment of version " + VERSION);
+			}
+			return segment;
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	
+	/**
+	 * Gets the path of a segment file in the directory of the journal log
+	 * 
+	 * @param directory the directory of the journal log
+	 * @param sequence the position of the segment in the log
+	 * @param generation the number of times the records in the segment were merged
+	 * @return the path of the segment file
+	 */
+	static Path pathOf(Path directory, int sequence, int generation) {
+		return directory.resolve(String.format("journals-%06d-%d.segment", sequence, generation));
+	}
+	
+	
+	/**
+	 * Checks whether a file is named like a segment file
+	 * 
+	 * @param path the path of the file
+	 * @return true if the file name was made by pathOf
+	 */
+	static boolean isSegment(Path path) {
+		return FILE_NAME.matcher(path.getFileName().toString()).matches();
+	}
+	
+	
+	/**
+	 * Checks whether compaction merged the records of another segment into this one, so the other is left over
+	 * 
+	 * @param other another segment of the same log
+	 * @return true if this segment holds every current record of the other segment
+	 */
+	boolean supersedes(LogSegment other) {
+		return this.generation > other.generation && this.sequence >= other.sequence;
+	}
+	
+	
+	int capacity() {
+		return this.buffer.capacity();
+	}
+	
+	
+	Path getPath() {
+		return this.path;
+	}
+	
+	
+	/**
+	 * Decodes a string stored in the segment straight from the mapped file, without copying its bytes first
+	 * 
+	 * @param offset the offset of the first byte of the string
+	 * @param length the length of the string in UTF-8 bytes, or -1 for null
+	 * @return the string, or null if the length is negative
+	 */
+	String decode(int offset, int length) {
+		if (length < 0) {
+			return null;
+		}
+		
+		ByteBuffer bytes = this.buffer.duplicate();
+		bytes.position(offset);
+		bytes.limit(offset + length);
+		return StandardCharsets.UTF_8.decode(bytes).toString();
+	}
+	
+	
+	/**
+	 * Finds where the bytes written to the segment end, which a crash may have left past the last record
+	 * 
+	 * @param from the offset to search from
+	 * @return the offset after the last byte that is not zero, or from if every byte after it is zero
+	 */
+	int endOfWritten(int from) {
+		int position = this.capacity();
+		// skip the zeros a long at a time, since most of a segment is usually still empty
+		while (position - 8 >= from && this.buffer.getLong(position - 8) == 0) {
+			position -= 8;
+		}
+		while (position > from && this.buffer.get(position - 1) == 0) {
+			position--;
+		}
+		return position;
+	}
+	
+	
+	/**
+	 * Overwrites part of the segment with zeros, so what was there is no longer read as records
+	 * 
+	 * @param from the offset of the first byte, inclusive
+	 * @param to the offset of the last byte, exclusive
+	 */
+	void erase(int from, int to) {
+		for (int i = from; i < to; i++) {
+			this.buffer.put(i, (byte) 0);
+		}
+	}
+	
+	
+	/**
+	 * Syncs every change to the mapped file to disk
+	 */
+	void force() {
+		this.buffer.force();
+	}
+	
+	
+	/**
+	 * Renames the segment file in a single step, so it is either found under its old name or its new one
+	 * 
+	 * @param target the new path of the segment file
+	 * @throws IOException if the segment file could not be renamed
+	 */
+	void moveTo(Path target) throws IOException {
+		Files.move(this.path, target, StandardCopyOption.ATOMIC_MOVE);
+		this.path = target;
+	}
+	
+	
+	/**
+	 * Closes the segment file. The mapping stays readable until it is garbage collected,
+	 * so a journal entry read just before a segment is closed can still be read.
+	 */
+	void close() {
+		try {
+			this.channel.close();
+		} catch (IOException ex) {
+			System.out.println("Failed to close the journal log segment " + this.path + "!");
+			ex.printStackTrace();
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package application.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A numbered change to the schema or data of a database, applied by SchemaMigrator
+ * when the database's user_version is below its version. A migration is either a single step run in
+ * one transaction, or a backfill that updates rows in chunks, each committed on its own, so that
+ * a long backfill interrupted by the application closing carries on where it left off.
+ */
+public class Migration {
+	// the number of rows a backfill updates per transaction
+	static final int BACKFILL_CHUNK_SIZE = 1000;
+	
+	private final int version;
+	private final String description;
+	private final Step step;
+	private final String backfillChunk;
+	private final boolean isOptional;
+	
+	
+	private Migration(int version, String description, Step step, String backfillChunk, boolean isOptional) {
+		this.version = version;
+		this.description = description;
+		this.step = step;
+		this.backfillChunk = backfillChunk;
+		this.isOptional = isOptional;
+	}
+	
+	
+	/**
+	 * Creates a migration that runs a step in a single transaction
+	 * 
+	 * @param version the schema version the migration brings the database to
+	 * @param description what the migration changes
+	 * @param step the changes to make
+	 * @return the migration
+	 */
+	public static Migration of(int version, String description, Step step) {
+		return new Migration(version, description, step, null, false);
+	}
+	
+	
+	/**
+	 * Creates a migration that sets columns of every row of a table still matching a condition,
+	 * a chunk of rows at a time. The condition must stop matching a row once it is updated,
+	 * which is what lets an interrupted backfill resume.
+	 * 
+	 * @param version the schema version the migration brings the database to
+	 * @param description what the migration changes
+	 * @param table the table to update
+	 * @param assignments the SET clause of the update
+	 * @param pendingCondition matches the rows still to be updated
+	 * @return the migration
+	 */
+	public static Migration backfill(int version, String description, String table, String assignments, String pendingCondition) {
+		String chunk = "UPDATE " + table + " SET " + assignments + " WHERE rowid IN ("
+				+ "SELECT rowid FROM " + table + " WHERE " + pendingCondition + " LIMIT ?)";
+		return new Migration(version, description, null, chunk, false);
+	}
+	
+	
+	/**
+	 * Marks the migration as optional, so if it fails the database is migrated past it rather than stopping there,
+	 * and it is tried again each time the database is migrated until it succeeds.
+	 * Used for features that the application can do without, such as those needing an sqlite extension.
+	 * 
+	 * @return a copy of the migration that is optional
+	 */
+	public Migration optional() {
+		return new Migration(this.version, this.description, this.step, this.backfillChunk, true);
+	}
+	
+	
+	/**
+	 * Gets the schema version the migration brings the database to
+	 * 
+	 * @return the version
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+	
+	
+	/**
+	 * Gets what the migration changes
+	 * 
+	 * @return the description
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+	
+	
+	/**
+	 * Checks whether the database is migrated past the migration if it fails
+	 * 
+	 * @return a boolean indicating whether the migration is optional
+	 */
+	public boolean isOptional() {
+		return this.isOptional;
+	}
+	
+	
+	/**
+	 * Checks whether the migration is applied in chunks, each in its own transaction
+	 * 
+	 * @return a boolean indicating whether the migration is a backfill
+	 */
+	boolean isBackfill() {
+		return this.backfillChunk != null;
+	}
+	
+	
+	/**
+	 * Runs the step of the migration, within a transaction opened by the caller
+	 * 
+	 * @param connection the connection to the database
+	 * @throws SQLException if the step failed
+	 */
+	void applyStep(Connection connection) throws SQLException {
+		this.step.apply(connection);
+	}
+	
+	
+	/**
+	 * Updates the next chunk of rows of a backfill, within a transaction opened by the caller
+	 * 
+	 * @param connection the connection to the database
+	 * @return the number of rows updated, 0 once the backfill is done
+	 * @throws SQLException if the rows could not be updated
+	 */
+	int applyBackfillChunk(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(this.backfillChunk)) {
+			statement.setInt(1, BACKFILL_CHUNK_SIZE);
+			return statement.executeUpdate();
+		}
+	}
+	
+	
+	
+	/**
+	 * The changes made by a migration
+	 */
+	@FunctionalInterface
+	public interface Step {
+		void apply(Connection connection) throws SQLException;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package application.dal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The position of a journal entry in chronological order, encoded as an opaque continuation token.
+ * Entries are ordered by date, hour, minute and finally id so that every position is unique.
+ */
+class PageToken {
+	private static final String SEPARATOR = "\n";
+	
+	private final String date;
+	private final int hour;
+	private final int minute;
+	private final int id;
+	
+	
+	/**
+	 * Constructs the position of a journal entry
+	 * 
+	 * @param date the date of the journal entry
+	 * @param hour the hour of the journal entry
+	 * @param minute the minute of the journal entry
+	 * @param id the id of the journal entry
+	 */
+	PageToken(String date, int hour, int minute, int id) {
+		this.date = date;
+		this.hour = hour;
+		this.minute = minute;
+		this.id = id;
+	}
+	
+	
+	/**
+	 * Decodes a continuation token produced by encode
+	 * 
+	 * @param token the encoded continuation token
+	 * @return the position held by the token
+	 * @throws IllegalArgumentException if the token was not produced by encode
+	 */
+	static PageToken decode(String token) {
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] fields = decoded.split(SEPARATOR, -1);
+			
+			return new PageToken(fields[0], Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), Integer.parseInt(fields[3]));
+		
+		} catch (RuntimeException ex) {
+			throw new IllegalArgumentException("Invalid page token: " + token, ex);
+		}
+	}
+	
+	
+	/**
+	 * Encodes this position as an opaque, url safe continuation token
+	 * 
+	 * @return the encoded continuation token
+	 */
+	String encode() {
+		String decoded = this.date + SEPARATOR + this.hour + SEPARATOR + this.minute + SEPARATOR + this.id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	String getDate() {
+		return this.date;
+	}
+	
+	
+	int getHour() {
+		return this.hour;
+	}
+	
+	
+	int getMinute() {
+		return this.minute;
+	}
+	
+	
+	int getID() {
+		return this.id;
+	}
+
+}
\ No newline at end of file
@@ -6,11 +6,10 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.Scanner;
 
-import application.models.PasswordModel;
-
 /**
  * A class that facilitates the interaction and manipulation of password data
- * within the flat files
+ * within the flat files. The file holds a single line, which is a password hash written by PasswordHash,
+ * or the password in plain text for files written before passwords were hashed.
  */
 public class PasswordDAO {
 	private static final String passwordPath = "resources/txts/password.txt";
@@ -18,11 +17,11 @@ public class PasswordDAO {
 
 	
 	/**
-	 * Updates the password of the password model to reflect the password stored in flat files
+	 * Gets the password as stored in flat files
 	 * 
-	 * @param passwordModel the PasswordModel to be updated
+	 * @return the stored password hash, or the password itself if it is stored in plain text
 	 */
-	public void updatePassword(PasswordModel passwordModel) {
+	public String getPassword() {
 		String password = "";
 		try (Scanner in = new Scanner(passFile)) {	
 			// get password from file
@@ -35,15 +34,14 @@ public class PasswordDAO {
 			e.printStackTrace();
 		}
 		
-		// update password model
-		passwordModel.setPassword(password);
+		return password;
 	}
 	
 	
 	/**
 	 * Overwrites the password in the file system
 	 * 
-	 * @param newPassword the new password to store in file system
+	 * @param newPassword the new password hash to store in file system
 	 */
 	public void setPassword(String newPassword) {
 		// if newPassword is null, then user entered an empty string
@@ -0,0 +1,200 @@
+package application.dal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A sorted set of journal ids stored compactly as the gaps between consecutive ids,
+ * each written as a variable-length integer of 7 bits per byte. Since ids are mostly added
+ * in increasing order, adding one is usually an append to the end of the encoding.
+ */
+class PostingList {
+	private byte[] bytes;
+	private int length;
+	private int count;
+	private int last;
+	
+	
+	/**
+	 * Constructs an empty posting list
+	 */
+	PostingList() {
+		this.bytes = new byte[4];
+		this.length = 0;
+		this.count = 0;
+		this.last = 0;
+	}
+	
+	
+	/**
+	 * Adds an id to the list, doing nothing if it is already there
+	 * 
+	 * @param id the id of a journal entry, must not be negative
+	 */
+	void add(int id) {
+		if (this.count > 0 && id <= this.last) {
+			if (id != this.last) {
+				this.insert(id);
+			}
+			return;
+		}
+		
+		this.writeGap(this.count == 0 ? id : id - this.last);
+		this.last = id;
+		this.count++;
+	}
+	
+	
+	/**
+	 * Adds an id that is smaller than the last id by re-encoding the whole list
+	 * 
+	 * @param id the id to add
+	 */
+	private void insert(int id) {
+		int[] ids = this.toArray();
+		int position = Arrays.binarySearch(ids, id);
+		if (position >= 0) {
+			return;
+		}
+		position = -position - 1;
+		
+		this.length = 0;
+		this.count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (i == position) {
+				this.add(id);
+			}
+			this.add(ids[i]);
+		}
+	}
+	
+	
+	/**
+	 * Appends the gap to the next id as a variable-length integer
+	 * 
+	 * @param gap the difference between the next id and the last id
+	 */
+	private void writeGap(int gap) {
+		if (this.length + 5 > this.bytes.length) {
+			this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + 5));
+		}
+		
+		while ((gap & ~0x7F) != 0) {
+			this.bytes[this.length++] = (byte) ((gap & 0x7F) | 0x80);
+			gap >>>= 7;
+		}
+		this.bytes[this.length++] = (byte) gap;
+	}
+	
+	
+	/**
+	 * Decodes every id in the list
+	 * 
+	 * @return the ids in increasing order
+	 */
+	int[] toArray() {
+		int[] ids = new int[this.count];
+		
+		int position = 0;
+		int id = 0;
+		for (int i = 0; i < this.count; i++) {
+			int gap = 0;
+			int shift = 0;
+			byte next;
+			do {
+				next = this.bytes[position++];
+				gap |= (next & 0x7F) << shift;
+				shift += 7;
+			} while (next < 0);
+			
+			id += gap;
+			ids[i] = id;
+		}
+		
+		return ids;
+	}
+	
+	
+	/**
+	 * Keeps the ids of a sorted array that are also in this list, decoding the list
+	 * as it goes instead of expanding it into an array first
+	 * 
+	 * @param ids ids in increasing order
+	 * @return the ids found in both, in increasing order
+	 */
+	int[] retainAll(int[] ids) {
+		int[] retained = new int[Math.min(ids.length, this.count)];
+		int retainedCount = 0;
+		
+		int position = 0;
+		int id = 0;
+		int next = 0;
+		for (int i = 0; i < this.count && next < ids.length; i++) {
+			int gap = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.bytes[position++];
+				gap |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			id += gap;
+			
+			while (next < ids.length && ids[next] < id) {
+				next++;
+			}
+			if (next < ids.length && ids[next] == id) {
+				retained[retainedCount++] = id;
+				next++;
+			}
+		}
+		
+		return Arrays.copyOf(retained, retainedCount);
+	}
+	
+	
+	/**
+	 * Gets the number of ids in the list
+	 * 
+	 * @return the number of ids
+	 */
+	int size() {
+		return this.count;
+	}
+	
+	
+	/**
+	 * Writes the list in its encoded form
+	 * 
+	 * @param out the stream to write to
+	 * @throws IOException if the list could not be written
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(this.count);
+		out.writeInt(this.last);
+		out.writeInt(this.length);
+		out.write(this.bytes, 0, this.length);
+	}
+	
+	
+	/**
+	 * Reads a list written by write
+	 * 
+	 * @param in the stream to read from
+	 * @return the list that was written
+	 * @throws IOException if the list could not be read
+	 */
+	static PostingList read(DataInputStream in) throws IOException {
+		PostingList list = new PostingList();
+		list.count = in.readInt();
+		list.last = in.readInt();
+		list.length = in.readInt();
+		list.bytes = new byte[Math.max(list.length, 4)];
+		in.readFully(list.bytes, 0, list.length);
+		
+		return list;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package application.dal;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Lets another thread cancel a query that JournalDAO is running. Cancelling interrupts SQLite
+ * on the connection running the query, so the query stops between rows instead of running to the end.
+ */
+public class QueryCancellation {
+	// the statement currently running the query, only set while it holds its connection
+	private Statement running;
+	private boolean cancelled;
+	
+	
+	/**
+	 * Cancels the query, interrupting it if it is running
+	 */
+	public synchronized void cancel() {
+		this.cancelled = true;
+		
+		if (this.running != null) {
+			try {
+				this.running.cancel();
+			} catch (SQLException ex) {
+				System.out.println("Failed to cancel query!");
+				ex.printStackTrace();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Checks whether the query was cancelled
+	 * 
+	 * @return true if cancel was called
+	 */
+	public synchronized boolean isCancelled() {
+		return this.cancelled;
+	}
+	
+	
+	/**
+	 * Marks a statement as running the query, so cancelling interrupts it
+	 * 
+	 * @param statement the statement about to run the query
+	 * @return false if the query was already cancelled and should not be run
+	 */
+	synchronized boolean attach(Statement statement) {
+		this.running = statement;
+		return !this.cancelled;
+	}
+	
+	
+	/**
+	 * Marks the query as finished, must be called before the connection running it is returned to its pool
+	 * so that cancelling late cannot interrupt another query on the same connection
+	 */
+	synchronized void detach() {
+		this.running = null;
+	}
+
+}
\ No newline at end of file
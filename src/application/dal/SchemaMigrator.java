@@ -0,0 +1,190 @@
+package application.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Brings a database up to date by applying, in order, every migration with a version above the
+ * database's user_version. Each migration is committed together with the new user_version, so a database
+ * is never left half way through a migration, apart from the committed chunks of a backfill.
+ * An optional migration that fails still advances the user_version, and is recorded in the skipped_migrations
+ * table instead, so only it is tried again each time the database is migrated until it succeeds.
+ */
+public class SchemaMigrator {
+	
+	/**
+	 * Applies every migration the database has not had yet, stopping at the first one that fails
+	 * unless it is optional, and tries again the optional migrations that were skipped before
+	 * 
+	 * @param pool the connection pool of the database
+	 * @param name the name of the database, used when reporting progress
+	 * @param migrations the migrations of the database in increasing order of version
+	 * @return the schema version of the database once migrated
+	 */
+	public static int migrate(ConnectionPool pool, String name, List<Migration> migrations) {
+		int version = 0;
+		
+		try (ConnectionPool.Lease lease = pool.borrowWriter()) {
+			Connection connection = lease.getConnection();
+			version = readVersion(connection);
+			Set<Integer> skipped = readSkipped(connection);
+			
+			for (Migration migration : migrations) {
+				boolean isRetry = skipped.contains(migration.getVersion());
+				if (migration.getVersion() <= version && !isRetry) {
+					continue;
+				}
+				
+				try {
+					if (migration.isBackfill()) {
+						backfill(connection, migration);
+					}
+					inTransaction(connection, transaction -> {
+						if (!migration.isBackfill()) {
+							migration.applyStep(transaction);
+						}
+						if (isRetry) {
+							forgetSkipped(transaction, migration.getVersion());
+						}
+						else {
+							writeVersion(transaction, migration.getVersion());
+						}
+					});
+					System.out.println("Migrated " + name + " database to version " + migration.getVersion() + ": " + migration.getDescription());
+				
+				} catch (SQLException ex) {
+					// it was reported when it was first skipped, and is tried again the next time
+					if (isRetry) {
+						continue;
+					}
+					if (!migration.isOptional()) {
+						System.out.println("Failed to migrate " + name + " database to version " + migration.getVersion() + "!");
+						ex.printStackTrace();
+						break;
+					}
+					
+					// the application can do without an optional migration, so later ones still apply
+					System.out.println("Skipped optional migration of " + name + " database to version " + migration.getVersion() + "!");
+					ex.printStackTrace();
+					inTransaction(connection, transaction -> {
+						rememberSkipped(transaction, migration.getVersion());
+						writeVersion(transaction, migration.getVersion());
+					});
+				}
+				version = Math.max(version, migration.getVersion());
+			}
+		
+		} catch (SQLException ex) {
+			System.out.println("Failed to migrate " + name + " database!");
+			ex.printStackTrace();
+		}
+		
+		return version;
+	}
+	
+	
+	/**
+	 * Runs a backfill to completion, committing each chunk of rows on its own
+	 * 
+	 * @param connection the connection to the database
+	 * @param migration the backfill
+	 * @throws SQLException if a chunk could not be updated, chunks already committed are kept
+	 */
+	private static void backfill(Connection connection, Migration migration) throws SQLException {
+		int[] updated = { 0 };
+		do {
+			inTransaction(connection, transaction -> updated[0] = migration.applyBackfillChunk(transaction));
+		} while (updated[0] > 0);
+	}
+	
+	
+	/**
+	 * Runs changes in a transaction, rolling them back if they fail
+	 * 
+	 * @param connection the connection to the database
+	 * @param changes the changes to make
+	 * @throws SQLException if the changes failed and were rolled back
+	 */
+	private static void inTransaction(Connection connection, Migration.Step changes) throws SQLException {
+		connection.setAutoCommit(false);
+		try {
+			changes.apply(connection);
+			connection.commit();
+		
+		} catch (SQLException ex) {
+			connection.rollback();
+			throw ex;
+		
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+	
+	
+	private static int readVersion(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet results = statement.executeQuery("PRAGMA user_version")) {
+			return results.next() ? results.getInt(1) : 0;
+		}
+	}
+	
+	
+	/**
+	 * Reads the versions of the optional migrations that were skipped
+	 * 
+	 * @param connection the connection to the database
+	 * @return the versions of the skipped migrations, empty if none were ever skipped
+	 * @throws SQLException if the versions could not be read
+	 */
+	private static Set<Integer> readSkipped(Connection connection) throws SQLException {
+		Set<Integer> skipped = new HashSet<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet results = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = 'skipped_migrations'")) {
+			if (!results.next()) {
+				return skipped;
+			}
+		}
+		
+		try (Statement statement = connection.createStatement();
+				ResultSet results = statement.executeQuery("SELECT version FROM skipped_migrations")) {
+			while (results.next()) {
+				skipped.add(results.getInt(1));
+			}
+		}
+		return skipped;
+	}
+	
+	
+	private static void rememberSkipped(Connection connection, int version) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS skipped_migrations (version INTEGER PRIMARY KEY)");
+		}
+		try (PreparedStatement statement = connection.prepareStatement("INSERT OR IGNORE INTO skipped_migrations (version) VALUES (?)")) {
+			statement.setInt(1, version);
+			statement.executeUpdate();
+		}
+	}
+	
+	
+	private static void forgetSkipped(Connection connection, int version) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("DELETE FROM skipped_migrations WHERE version = ?")) {
+			statement.setInt(1, version);
+			statement.executeUpdate();
+		}
+	}
+	
+	
+	private static void writeVersion(Connection connection, int version) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			// pragmas cannot take parameters, the version is an int so it is safe to inline
+			statement.execute("PRAGMA user_version = " + version);
+		}
+	}
+
+}
\ No newline at end of file
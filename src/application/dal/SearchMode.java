@@ -0,0 +1,28 @@
+package application.dal;
+
+/**
+ * An enumeration of the ways a keyword can be matched against journal entries
+ */
+public enum SearchMode {
+	/**
+	 * Matches entries containing every word of the keyword, using the full-text index
+	 */
+	TOKEN,
+	
+	/**
+	 * Matches entries containing a word starting with each word of the keyword, using the full-text index
+	 */
+	PREFIX,
+	
+	/**
+	 * Matches entries containing the keyword anywhere in the title or context, using the trigram index
+	 * to narrow down the entries checked when the keyword is at least three characters long
+	 */
+	SUBSTRING,
+	
+	/**
+	 * Matches entries containing every word of the keyword or a term within one or two typos of it,
+	 * using the full-text index
+	 */
+	FUZZY
+}
\ No newline at end of file
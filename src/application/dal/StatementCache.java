@@ -0,0 +1,131 @@
+package application.dal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A least recently used cache of compiled statements for a single connection.
+ * Statements are owned by the cache, callers must close their result sets but never the statements themselves.
+ */
+public class StatementCache {
+	private final Connection connection;
+	private final int capacity;
+	private final LinkedHashMap<String, PreparedStatement> statements;
+	
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+	
+	
+	/**
+	 * Creates an empty statement cache for a connection
+	 * 
+	 * @param connection the connection that statements are prepared on
+	 * @param capacity the maximum number of statements kept compiled at once, at least 1 so a statement is never evicted before it is handed back
+	 */
+	public StatementCache(Connection connection, int capacity) {
+		this.connection = connection;
+		this.capacity = Math.max(1, capacity);
+		// access ordered so that iteration starts at the least recently used statement
+		this.statements = new LinkedHashMap<>(16, 0.75f, true);
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+	
+	
+	/**
+	 * Gets a compiled statement for a query, preparing and caching it if it has not been used recently.
+	 * Parameters left over from a previous use are cleared.
+	 * 
+	 * @param sql the query to compile
+	 * @return a compiled statement for the query
+	 * @throws SQLException if the query could not be compiled
+	 */
+	public PreparedStatement prepare(String sql) throws SQLException {
+		PreparedStatement statement = this.statements.get(sql);
+		
+		if (statement != null && !statement.isClosed()) {
+			try {
+				statement.clearParameters();
+				this.hits.incrementAndGet();
+				return statement;
+			} catch (SQLException ex) {
+				// the driver finalizes a statement whose execution failed without marking it closed,
+				// so it can only be replaced
+				statement.close();
+			}
+		}
+		
+		this.misses.incrementAndGet();
+		statement = this.connection.prepareStatement(sql);
+		this.statements.put(sql, statement);
+		this.evictOverflow();
+		
+		return statement;
+	}
+	
+	
+	/**
+	 * Closes the least recently used statements until the cache is within its capacity
+	 */
+	private void evictOverflow() {
+		Iterator<Map.Entry<String, PreparedStatement>> iterator = this.statements.entrySet().iterator();
+		
+		while (this.statements.size() > this.capacity && iterator.hasNext()) {
+			PreparedStatement evicted = iterator.next().getValue();
+			iterator.remove();
+			closeQuietly(evicted);
+		}
+	}
+	
+	
+	/**
+	 * Closes and forgets every cached statement
+	 */
+	public void clear() {
+		for (PreparedStatement statement : this.statements.values()) {
+			closeQuietly(statement);
+		}
+		this.statements.clear();
+	}
+	
+	
+	/**
+	 * Closes a statement, logging rather than throwing on failure
+	 * 
+	 * @param statement the statement to close
+	 */
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException ex) {
+			System.out.println("Failed to close cached statement!");
+			ex.printStackTrace();
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of times a compiled statement was reused
+	 * 
+	 * @return the number of cache hits
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+	
+	
+	/**
+	 * Gets the number of times a statement had to be compiled
+	 * 
+	 * @return the number of cache misses
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package application.dal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The words of a title or context, folded and split the way the full-text index does,
+ * so that stores without the index match words the same way the journals database does
+ */
+class TokenizedText {
+	private static final String[] NO_WORDS = new String[0];
+	
+	private final String[] words;
+	
+	
+	/**
+	 * Splits a text into its words
+	 * 
+	 * @param text the text to split, may be null
+	 */
+	TokenizedText(String text) {
+		this.words = split(text);
+	}
+	
+	
+	/**
+	 * Lower cases a text, removes its diacritics and splits it into words
+	 * 
+	 * @param text the text to split, may be null
+	 * @return the words of the text in order
+	 */
+	static String[] split(String text) {
+		if (text == null) {
+			return NO_WORDS;
+		}
+		
+		List<String> words = new ArrayList<>();
+		for (String word : FuzzyTermIndex.TOKEN_SEPARATOR.split(FuzzyTermIndex.normalize(text))) {
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words.toArray(NO_WORDS);
+	}
+	
+	
+	/**
+	 * Checks whether the text has a word matching a given word
+	 * 
+	 * @param word a word split from a keyword
+	 * @param mode how the word is matched, one of TOKEN, PREFIX or FUZZY
+	 * @return true if a word of the text matches
+	 */
+	boolean contains(String word, SearchMode mode) {
+		int maxDistance = FuzzyTermIndex.maxDistance(word);
+		
+		for (String candidate : this.words) {
+			switch (mode) {
+				case TOKEN:
+					if (candidate.equals(word)) {
+						return true;
+					}
+					break;
+				case PREFIX:
+					if (candidate.startsWith(word)) {
+						return true;
+					}
+					break;
+				case FUZZY:
+					if (FuzzyTermIndex.editDistance(word, candidate, maxDistance) <= maxDistance) {
+						return true;
+					}
+					break;
+				default:
+					throw new IllegalArgumentException("Substrings are not matched word by word");
+			}
+		}
+		
+		return false;
+	}
+	
+	
+	/**
+	 * Checks whether the text has a run of words matching a phrase, like an FTS5 phrase query
+	 * 
+	 * @param phrase the words of the phrase in order
+	 * @param isPrefix whether the last word of the phrase may match the start of a longer word
+	 * @return true if the phrase has words and the text has all of them next to each other in order
+	 */
+	boolean containsPhrase(String[] phrase, boolean isPrefix) {
+		if (phrase.length == 0) {
+			return false;
+		}
+		
+		for (int start = 0; start + phrase.length <= this.words.length; start++) {
+			int matched = 0;
+			while (matched < phrase.length) {
+				String word = this.words[start + matched];
+				boolean isLast = matched == phrase.length - 1;
+				if (!(isPrefix && isLast ? word.startsWith(phrase[matched]) : word.equals(phrase[matched]))) {
+					break;
+				}
+				matched++;
+			}
+			
+			if (matched == phrase.length) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+
+}
\ No newline at end of file
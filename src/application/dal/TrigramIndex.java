@@ -0,0 +1,472 @@
+package application.dal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import application.models.JournalChange;
+import application.models.JournalChangeListener;
+
+/**
+ * An in-memory index from every three character sequence in the title or context of a journal entry
+ * to the ids of the entries containing it. Any entry containing a keyword contains each of the keyword's
+ * trigrams, so intersecting their posting lists narrows a substring search down to a few candidates
+ * that are then checked against their rows.
+ * <p>
+ * The index only ever grows between rebuilds: updated and deleted entries keep their old postings
+ * and are filtered out when candidates are checked, until enough are stale that the index is rebuilt.
+ * It is saved to disk on shutdown and loaded on startup, and the saved copy is deleted once loaded,
+ * so that an index that missed writes after a crash is rebuilt instead of trusted.
+ */
+class TrigramIndex implements JournalChangeListener {
+	private static final int MAGIC = 0x54524947;
+	private static final int FORMAT_VERSION = 1;
+	
+	// rebuild once this many entries, or half of the live entries if that is more, have stale postings
+	private static final int MIN_STALE_ENTRIES_BEFORE_REBUILD = 1000;
+	
+	private static volatile TrigramIndex instance;
+	
+	private final ConnectionPool pool;
+	private final Path file;
+	
+	private HashMap<Long, PostingList> postings;
+	// the number of entries in the journal table, however many times each was indexed
+	private int liveEntries;
+	private int staleEntries;
+	private boolean isRebuildScheduled;
+	// the changes made while a rebuild reads the journal table, which are applied to the rebuilt index before it is swapped in
+	private List<JournalChange> changesDuringRebuild;
+	
+	
+	/**
+	 * Constructs an empty index
+	 * 
+	 * @param pool the connection pool of the journals database
+	 * @param file where the index is saved between runs
+	 */
+	private TrigramIndex(ConnectionPool pool, Path file) {
+		this.pool = pool;
+		this.file = file;
+		this.postings = new HashMap<>();
+		this.liveEntries = 0;
+		this.staleEntries = 0;
+		this.isRebuildScheduled = false;
+	}
+	
+	
+	/**
+	 * Loads the index saved by the last run, or builds it from the journal table if there is no
+	 * usable saved index, then keeps it up to date with every journal write
+	 * 
+	 * @param pool the connection pool of the journals database
+	 * @param file where the index is saved between runs
+	 */
+	static void open(ConnectionPool pool, Path file) {
+		TrigramIndex index = new TrigramIndex(pool, file);
+		
+		// listen before loading, so no write is missed between loading and listening
+		JournalEvents.addListener(index);
+		try {
+			if (!index.load()) {
+				index.rebuild();
+			}
+			instance = index;
+		
+		} catch (SQLException ex) {
+			JournalEvents.removeListener(index);
+			System.out.println("Failed to build the trigram index, substring searches will scan every journal entry!");
+			ex.printStackTrace();
+		}
+	}
+	
+	
+	/**
+	 * Saves the index so the next run can load it instead of rebuilding it,
+	 * must only be called once no more journals will be written
+	 */
+	static void close() {
+		TrigramIndex index = instance;
+		if (index != null) {
+			index.save();
+		}
+	}
+	
+	
+	/**
+	 * Finds the ids of the journal entries that may contain a keyword in their title or context
+	 * 
+	 * @param keyword the keyword to search for
+	 * @return a superset of the ids of the entries containing the keyword, in increasing order,
+	 * or null if the index is unavailable or the keyword is too short to have a trigram
+	 */
+	static int[] findCandidates(String keyword) {
+		TrigramIndex index = instance;
+		if (index == null || keyword.length() < 3) {
+			return null;
+		}
+		
+		return index.candidates(keyword);
+	}
+	
+	
+	private synchronized int[] candidates(String keyword) {
+		List<PostingList> lists = new ArrayList<>();
+		for (long trigram : trigramsOf(keyword, new HashSet<>())) {
+			PostingList list = this.postings.get(trigram);
+			if (list == null) {
+				return new int[0];
+			}
+			lists.add(list);
+		}
+		
+		// intersect starting from the rarest trigram so the candidates shrink as fast as possible
+		lists.sort(Comparator.comparingInt(PostingList::size));
+		int[] candidates = lists.get(0).toArray();
+		for (int i = 1; i < lists.size() && candidates.length > 0; i++) {
+			candidates = lists.get(i).retainAll(candidates);
+		}
+		
+		return candidates;
+	}
+	
+	
+	/**
+	 * Indexes created and updated journal entries, counts entries whose postings went stale
+	 * and keeps count of the entries that still exist
+	 * 
+	 * @param change the journal entries that changed and how
+	 */
+	@Override
+	public void onJournalChanged(JournalChange change) {
+		try {
+			// recorded before indexing, so a rebuild swapped in meanwhile has applied the change too
+			synchronized (this) {
+				if (this.changesDuringRebuild != null) {
+					this.changesDuringRebuild.add(change);
+				}
+			}
+			if (change.getType() != JournalChange.Type.DELETED) {
+				this.indexRows(change.getIDs(), null);
+			}
+			
+			synchronized (this) {
+				switch (change.getType()) {
+					case CREATED:
+						this.liveEntries += change.getIDs().size();
+						break;
+					case UPDATED:
+						this.staleEntries += change.getIDs().size();
+						break;
+					case DELETED:
+						this.staleEntries += change.getIDs().size();
+						this.liveEntries = Math.max(0, this.liveEntries - change.getIDs().size());
+						break;
+				}
+				this.scheduleRebuildIfStale();
+			}
+		
+		} catch (SQLException ex) {
+			System.out.println("Failed to update the trigram index, substring searches will scan every journal entry!");
+			ex.printStackTrace();
+			this.disable();
+		}
+	}
+	
+	
+	/**
+	 * Stops using the index once it can no longer find every entry, rather than miss results
+	 */
+	private void disable() {
+		instance = null;
+		JournalEvents.removeListener(this);
+	}
+	
+	
+	/**
+	 * Reads the title and context of journal entries and adds them to the index
+	 * 
+	 * @param ids the ids of the journal entries
+	 * @param postings the postings of an index being rebuilt, or null for those of the index in use
+	 * @throws SQLException if the journal entries could not be read
+	 */
+	private void indexRows(List<Integer> ids, Map<Long, PostingList> postings) throws SQLException {
+		try (ConnectionPool.Lease lease = this.pool.borrowReader()) {
+			PreparedStatement statement = lease.prepare("SELECT id, title, context FROM journal WHERE id IN (SELECT value FROM json_each(?))");
+			statement.setString(1, ids.toString());
+			
+			try (ResultSet results = statement.executeQuery()) {
+				synchronized (this) {
+					Map<Long, PostingList> target = postings != null ? postings : this.postings;
+					while (results.next()) {
+						indexRow(target, results.getInt("id"), results.getString("title"), results.getString("context"));
+					}
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Adds the trigrams of a journal entry to the postings of an index
+	 * 
+	 * @param postings the postings to add to
+	 * @param id the id of the journal entry
+	 * @param title the title of the journal entry
+	 * @param context the context of the journal entry
+	 */
+	private static void indexRow(Map<Long, PostingList> postings, int id, String title, String context) {
+		Set<Long> trigrams = new HashSet<>();
+		trigramsOf(title, trigrams);
+		trigramsOf(context, trigrams);
+		
+		for (long trigram : trigrams) {
+			postings.computeIfAbsent(trigram, key -> new PostingList()).add(id);
+		}
+	}
+	
+	
+	/**
+	 * Rebuilds the index in the background once too many entries have stale postings
+	 */
+	private void scheduleRebuildIfStale() {
+		int threshold = Math.max(MIN_STALE_ENTRIES_BEFORE_REBUILD, this.liveEntries / 2);
+		if (this.isRebuildScheduled || this.staleEntries < threshold) {
+			return;
+		}
+		
+		this.isRebuildScheduled = true;
+		DBExecutor.read(() -> {
+			try {
+				this.rebuild();
+			} catch (SQLException ex) {
+				System.out.println("Failed to rebuild the trigram index, substring searches will scan every journal entry!");
+				ex.printStackTrace();
+				this.disable();
+			}
+			return null;
+		});
+	}
+	
+	
+	/**
+	 * Replaces the index with one built from every journal entry in the journal table.
+	 * The new index is built without holding the lock, so searches and writes carry on using the old one,
+	 * and is only swapped in once complete, after applying the writes committed while it was built.
+	 * 
+	 * @throws SQLException if the journal table could not be read, leaving the old index in place
+	 */
+	private void rebuild() throws SQLException {
+		synchronized (this) {
+			this.changesDuringRebuild = new ArrayList<>();
+		}
+		
+		try {
+			HashMap<Long, PostingList> rebuilt = new HashMap<>();
+			BitSet scanned = new BitSet();
+			try (ConnectionPool.Lease lease = this.pool.borrowReader();
+					// ordered by id so every posting is appended to the end of its list
+					PreparedStatement statement = lease.getConnection().prepareStatement("SELECT id, title, context FROM journal ORDER BY id")) {
+				statement.setFetchSize(JournalDAO.DEFAULT_FETCH_SIZE);
+				
+				try (ResultSet results = statement.executeQuery()) {
+					while (results.next()) {
+						int id = results.getInt("id");
+						indexRow(rebuilt, id, results.getString("title"), results.getString("context"));
+						scanned.set(id);
+					}
+				}
+			}
+			
+			int live = scanned.cardinality();
+			int stale = 0;
+			while (true) {
+				List<JournalChange> changes;
+				synchronized (this) {
+					changes = this.changesDuringRebuild;
+					if (changes.isEmpty()) {
+						this.postings = rebuilt;
+						this.liveEntries = live;
+						this.staleEntries = stale;
+						return;
+					}
+					this.changesDuringRebuild = new ArrayList<>();
+				}
+				
+				// the scan may or may not have seen a change made while it ran, so the entries it read tell which
+				for (JournalChange change : changes) {
+					for (int id : change.getIDs()) {
+						boolean wasScanned = scanned.get(id);
+						switch (change.getType()) {
+							case CREATED:
+								live += wasScanned ? 0 : 1;
+								scanned.set(id);
+								break;
+							case UPDATED:
+								stale++;
+								break;
+							case DELETED:
+								live -= wasScanned ? 1 : 0;
+								stale += wasScanned ? 1 : 0;
+								scanned.clear(id);
+								break;
+						}
+					}
+					if (change.getType() != JournalChange.Type.DELETED) {
+						this.indexRows(change.getIDs(), rebuilt);
+					}
+				}
+			}
+		} finally {
+			synchronized (this) {
+				this.changesDuringRebuild = null;
+				this.isRebuildScheduled = false;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Loads the index saved by the last run, deleting the saved copy once it is loaded
+	 * 
+	 * @return true if the index was loaded, false if there was no saved index or it does not match the journal table
+	 * @throws SQLException if the journal table could not be read to check the saved index
+	 */
+	private synchronized boolean load() throws SQLException {
+		if (!Files.exists(this.file)) {
+			return false;
+		}
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+				return false;
+			}
+			
+			// a journal table changed behind the index's back cannot be trusted to match it
+			long[] fingerprint = this.readFingerprint();
+			if (in.readLong() != fingerprint[0] || in.readLong() != fingerprint[1]) {
+				return false;
+			}
+			
+			this.liveEntries = in.readInt();
+			this.staleEntries = in.readInt();
+			
+			int listCount = in.readInt();
+			HashMap<Long, PostingList> loaded = new HashMap<>(listCount * 2);
+			for (int i = 0; i < listCount; i++) {
+				long trigram = in.readLong();
+				loaded.put(trigram, PostingList.read(in));
+			}
+			this.postings = loaded;
+			
+			return true;
+		
+		} catch (IOException ex) {
+			System.out.println("Failed to load the trigram index, rebuilding it!");
+			ex.printStackTrace();
+			return false;
+		
+		} finally {
+			try {
+				Files.deleteIfExists(this.file);
+			} catch (IOException ex) {
+				System.out.println("Failed to delete the saved trigram index!");
+				ex.printStackTrace();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Saves the index along with the fingerprint of the journal table it matches
+	 */
+	private synchronized void save() {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.file)))) {
+			long[] fingerprint = this.readFingerprint();
+			
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(fingerprint[0]);
+			out.writeLong(fingerprint[1]);
+			out.writeInt(this.liveEntries);
+			out.writeInt(this.staleEntries);
+			
+			out.writeInt(this.postings.size());
+			for (Map.Entry<Long, PostingList> entry : this.postings.entrySet()) {
+				out.writeLong(entry.getKey());
+				entry.getValue().write(out);
+			}
+		
+		} catch (IOException | SQLException ex) {
+			System.out.println("Failed to save the trigram index!");
+			ex.printStackTrace();
+			
+			try {
+				Files.deleteIfExists(this.file);
+			} catch (IOException deleteEx) {
+				deleteEx.printStackTrace();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Reads the number of journal entries and the largest id, which both change when entries are written
+	 * 
+	 * @return the number of journal entries followed by the largest id
+	 * @throws SQLException if the journal table could not be read
+	 */
+	private long[] readFingerprint() throws SQLException {
+		try (ConnectionPool.Lease lease = this.pool.borrowReader()) {
+			PreparedStatement statement = lease.prepare("SELECT count(*), coalesce(max(id), 0) FROM journal");
+			
+			try (ResultSet results = statement.executeQuery()) {
+				results.next();
+				return new long[] { results.getLong(1), results.getLong(2) };
+			}
+		}
+	}
+	
+	
+	/**
+	 * Adds every trigram of a text to a set. Only ASCII letters are folded to lower case,
+	 * matching how LIKE compares text, so the index never misses an entry that LIKE would match.
+	 * 
+	 * @param text the text to split into trigrams, may be null
+	 * @param trigrams the set to add the trigrams to
+	 * @return the set of trigrams
+	 */
+	private static Set<Long> trigramsOf(String text, Set<Long> trigrams) {
+		if (text == null) {
+			return trigrams;
+		}
+		
+		for (int i = 0; i + 2 < text.length(); i++) {
+			long trigram = ((long) fold(text.charAt(i)) << 32) | ((long) fold(text.charAt(i + 1)) << 16) | fold(text.charAt(i + 2));
+			trigrams.add(trigram);
+		}
+		
+		return trigrams;
+	}
+	
+	
+	private static char fold(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+}
\ No newline at end of file
@@ -1,102 +1,113 @@
 package application.dal;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 
 import application.dal.DBConnection.Database;
-import application.models.UserModel;
+import application.models.UserInfo;
 
 /**
- * A class that facilitates the interaction and manipulation of user data
+ * A class that facilitates the interaction and manipulation of user data.
+ * The single row of user info is read in one query and kept in memory as an immutable snapshot,
+ * which every update writes through to once it has reached the DB.
  */
 public class UserDAO {
 	// the id for the row where user info is stored in DB
 	private static final String USER_INFO_ROW_ID = "info";
-
+	
+	// guards loading the snapshot and updating it, so an update can never be overwritten by a load that read the row before it
+	private static final Object userInfoLock = new Object();
+	private static volatile UserInfo cachedUserInfo = null;
+	
+	private static final AtomicLong userInfoQueries = new AtomicLong();
+	private static final AtomicLong userInfoCacheHits = new AtomicLong();
+	
 	
 	/**
-	 * Gets the stored security question from the database
+	 * Gets the user info stored in the database, reading it only if it is not cached yet
 	 * 
-	 * @return the user's security question
+	 * @return a snapshot of the user info, or null if it could not be read, which is not cached so the next call reads it again
 	 */
-	private String getSecurityQuestion() {
-		String query = "SELECT * FROM user_info WHERE id = ?";
-		String securityQuestion = "";
+	public UserInfo getUserInfo() {
+		UserInfo userInfo = cachedUserInfo;
+		if (userInfo != null) {
+			userInfoCacheHits.incrementAndGet();
+			return userInfo;
+		}
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.USER_INFO);
-			PreparedStatement statement = connection.prepareStatement(query);
-			
-			statement.setString(1, USER_INFO_ROW_ID);
-			
-			ResultSet queryOutput = statement.executeQuery();
-			if (queryOutput.next()) {
-				securityQuestion = queryOutput.getString("security_question");
+		synchronized (userInfoLock) {
+			if (cachedUserInfo == null) {
+				cachedUserInfo = this.readUserInfo();
 			}
 			
-		} catch (Exception ex) {
-			System.out.println("Failed to retrieve Security Question from database!");
-			ex.printStackTrace();
+			return cachedUserInfo;
 		}
-		
-		return securityQuestion;
 	}
 	
 	
 	/**
-	 * Overwrites the user's security question in the database
+	 * Reads every column of the row of user info in a single query
 	 * 
-	 * @param newSecurityQuestion the new security question selected by the user
+	 * @return a snapshot of the user info, or null if it could not be read so that the next call tries again
 	 */
-	public void setSecurityQuestion(String newSecurityQuestion) {
-		String updateQuery = "UPDATE user_info SET security_question = ? WHERE id = ?";
+	private UserInfo readUserInfo() {
+		String query = "SELECT security_question, security_question_answer FROM user_info WHERE id = ?";
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.USER_INFO);
-			PreparedStatement statement = connection.prepareStatement(updateQuery);
+		try (ConnectionPool.Lease lease = DBConnection.borrowReader(Database.USER_INFO)) {
+			// get cached statement from DB connection
+			PreparedStatement statement = lease.prepare(query);
 			
-			statement.setString(1, newSecurityQuestion);
-			statement.setString(2, USER_INFO_ROW_ID);
+			statement.setString(1, USER_INFO_ROW_ID);
+			userInfoQueries.incrementAndGet();
 			
-			statement.executeUpdate();
+			try (ResultSet queryOutput = statement.executeQuery()) {
+				if (queryOutput.next()) {
+					return new UserInfo(queryOutput.getString("security_question"), queryOutput.getString("security_question_answer"));
+				}
+			}
 			
-		} catch (Exception e) {
-			System.out.println("Failed to update security question in " + Database.USER_INFO.getValue() + "!");
-			e.printStackTrace();
+			// the row of user info has not been created, so the fields are empty
+			return new UserInfo("", "");
+		
+		} catch (Exception ex) {
+			System.out.println("Failed to retrieve user info from database!");
+			ex.printStackTrace();
+			// empty fields would be cached for good and accept an empty answer to the security question
+			return null;
 		}
 	}
 	
 	
 	/**
-	 * Gets the answer to the user's security question that is stored in the database
+	 * Overwrites the user's security question in the database
 	 * 
-	 * @return the answer to the user's security question
+	 * @param newSecurityQuestion the new security question selected by the user
+	 * @return a boolean indicating whether the security question was stored
 	 */
-	private String getSecurityQuestionAnswer() {
-		String query = "SELECT * FROM user_info WHERE id = ?";
-		String securityQuestionAnswer = "";
+	public boolean setSecurityQuestion(String newSecurityQuestion) {
+		String updateQuery = "UPDATE user_info SET security_question = ? WHERE id = ?";
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.USER_INFO);
-			PreparedStatement statement = connection.prepareStatement(query);
+		synchronized (userInfoLock) {
+			try (ConnectionPool.Lease lease = DBConnection.borrowWriter(Database.USER_INFO)) {
+				// get cached statement from DB connection
+				PreparedStatement statement = lease.prepare(updateQuery);
+				
+				statement.setString(1, newSecurityQuestion);
+				statement.setString(2, USER_INFO_ROW_ID);
+				
+				int rowsUpdated = statement.executeUpdate();
+				writeThrough(rowsUpdated, userInfo -> userInfo.withSecurityQuestion(newSecurityQuestion));
+				return rowsUpdated > 0;
 			
-			statement.setString(1, USER_INFO_ROW_ID);
-			
-			ResultSet queryOutput = statement.executeQuery();
-			if (queryOutput.next()) {
-				securityQuestionAnswer = queryOutput.getString("security_question_answer");
+			} catch (Exception e) {
+				System.out.println("Failed to update security question in " + Database.USER_INFO.getValue() + "!");
+				e.printStackTrace();
+				cachedUserInfo = null;
+				return false;
 			}
-			
-		} catch (Exception ex) {
-			System.out.println("Failed to retrieve Security Question Answer from database!");
-			ex.printStackTrace();
 		}
-		
-		return securityQuestionAnswer;
 	}
 	
 	
@@ -104,39 +115,65 @@ public class UserDAO {
 	 * Overwrites the answer to the user's security question stored in the database
 	 * 
 	 * @param newSecurityQuestionAnswer the user's new security question answer
+	 * @return a boolean indicating whether the answer was stored
 	 */
-	public void setSecurityQuestionAnswer(String newSecurityQuestionAnswer) {
+	public boolean setSecurityQuestionAnswer(String newSecurityQuestionAnswer) {
 		String updateQuery = "UPDATE user_info SET security_question_answer = ? WHERE id = ?";
 		
-		try {
-			// get DB connection
-			Connection connection = DBConnection.getDBConnection(Database.USER_INFO);
-			PreparedStatement statement = connection.prepareStatement(updateQuery);
+		synchronized (userInfoLock) {
+			try (ConnectionPool.Lease lease = DBConnection.borrowWriter(Database.USER_INFO)) {
+				// get cached statement from DB connection
+				PreparedStatement statement = lease.prepare(updateQuery);
+				
+				statement.setString(1,  newSecurityQuestionAnswer);
+				statement.setString(2, USER_INFO_ROW_ID);
+				
+				int rowsUpdated = statement.executeUpdate();
+				writeThrough(rowsUpdated, userInfo -> userInfo.withSecurityQuestionAnswer(newSecurityQuestionAnswer));
+				return rowsUpdated > 0;
 			
-			statement.setString(1,  newSecurityQuestionAnswer);
-			statement.setString(2, USER_INFO_ROW_ID);
-			
-			statement.executeUpdate();
-			
-		} catch (Exception e) {
-			System.out.println("Failed to update security question answer in " + Database.USER_INFO.getValue() + "!");
-			e.printStackTrace();
+			} catch (Exception e) {
+				System.out.println("Failed to update security question answer in " + Database.USER_INFO.getValue() + "!");
+				e.printStackTrace();
+				cachedUserInfo = null;
+				return false;
+			}
 		}
 	}
 	
 	
 	/**
-	 * Updates a given UserModel to reflect the user info stored in DB
+	 * Applies an update that reached the DB to the cached snapshot, must be called holding userInfoLock
 	 * 
-	 * @param user the UserModel to be updated
+	 * @param rowsUpdated the number of rows the update changed
+	 * @param update the change the update made to the user info
 	 */
-	public void updateUserModel(UserModel user) {
-		// get user info from DB
-		String securityQuestion = this.getSecurityQuestion();
-		String securityQuestionAnswer = this.getSecurityQuestionAnswer();
+	private static void writeThrough(int rowsUpdated, UnaryOperator<UserInfo> update) {
+		if (cachedUserInfo == null) {
+			return;
+		}
 		
-		// update model to reflect information in DB
-		user.setSecurityQuestion(securityQuestion);
-		user.setSecurityQuestionAnswer(securityQuestionAnswer);
+		// without a row of user info the DB still has empty fields, which the next read picks up
+		cachedUserInfo = rowsUpdated > 0 ? update.apply(cachedUserInfo) : null;
+	}
+	
+	
+	/**
+	 * Gets the number of times the user info was read from the DB
+	 * 
+	 * @return the number of queries of the user info
+	 */
+	public static long getUserInfoQueries() {
+		return userInfoQueries.get();
+	}
+	
+	
+	/**
+	 * Gets the number of times the user info was served from the cached snapshot instead of the DB
+	 * 
+	 * @return the number of cache hits
+	 */
+	public static long getUserInfoCacheHits() {
+		return userInfoCacheHits.get();
 	}
-}
\ No newline at end of file
+}
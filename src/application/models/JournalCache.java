@@ -0,0 +1,263 @@
+package application.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import application.dal.JournalEvents;
+
+/**
+ * A bounded, least recently used cache of journal entries keyed by id and of query results keyed by
+ * their normalized query. Every committed write invalidates exactly the entries it affects.
+ * Every read captures a version number first, so results read while a write was in progress are never cached.
+ */
+public class JournalCache implements JournalChangeListener {
+	private static final int MAX_ENTRIES = 1024;
+	private static final int MAX_QUERIES = 64;
+	// results larger than this are not worth the memory of keeping around
+	private static final int MAX_CACHED_RESULT_SIZE = 10000;
+	
+	private static final JournalCache cache = new JournalCache();
+	
+	static {
+		// registered before any other listener, so listeners that re-query never see stale results
+		JournalEvents.addListener(cache);
+	}
+	
+	private final LinkedHashMap<Integer, JournalModel> entries;
+	private final LinkedHashMap<String, List<? extends JournalEntry>> queries;
+	
+	private long version;
+	private long hits;
+	private long misses;
+	
+	
+	/**
+	 * Constructs an empty cache
+	 */
+	private JournalCache() {
+		this.entries = lruMap(MAX_ENTRIES);
+		this.queries = lruMap(MAX_QUERIES);
+		this.version = 0;
+		this.hits = 0;
+		this.misses = 0;
+	}
+	
+	
+	/**
+	 * Gets the cache shared by every JournalModel
+	 * 
+	 * @return the singleton journal cache
+	 */
+	public static JournalCache getInstance() {
+		return cache;
+	}
+	
+	
+	/**
+	 * Creates a map that drops its least recently used entry once it grows past a capacity
+	 * 
+	 * @param capacity the maximum number of entries in the map
+	 * @return an empty, access ordered map
+	 */
+	private static <K, V> LinkedHashMap<K, V> lruMap(int capacity) {
+		return new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return this.size() > capacity;
+			}
+		};
+	}
+	
+	
+	/**
+	 * Gets a journal entry by id, loading and caching it on a miss
+	 * 
+	 * @param id the id of the journal entry
+	 * @param loader loads the journal entry from the DB
+	 * @return the journal entry, or null if it does not exist
+	 */
+	JournalModel getEntry(int id, Supplier<JournalModel> loader) {
+		long versionBeforeLoad;
+		synchronized (this) {
+			JournalModel cached = this.entries.get(id);
+			if (cached != null) {
+				this.hits++;
+				return cached;
+			}
+			this.misses++;
+			versionBeforeLoad = this.version;
+		}
+		
+		JournalModel loaded = loader.get();
+		
+		synchronized (this) {
+			if (loaded != null && versionBeforeLoad == this.version) {
+				this.entries.put(id, loaded);
+			}
+		}
+		
+		return loaded;
+	}
+	
+	
+	/**
+	 * Gets the result of a query, running and caching it on a miss.
+	 * A copy is returned so callers are free to modify it.
+	 * 
+	 * @param key the normalized query, including what kind of entry it returns
+	 * @param loader runs the query against the DB
+	 * @return a copy of the result of the query
+	 */
+	<T extends JournalEntry> ArrayList<T> getQuery(String key, Supplier<ArrayList<T>> loader) {
+		long versionBeforeLoad;
+		synchronized (this) {
+			@SuppressWarnings("unchecked")
+			List<T> cached = (List<T>) this.queries.get(key);
+			if (cached != null) {
+				this.hits++;
+				return new ArrayList<>(cached);
+			}
+			this.misses++;
+			versionBeforeLoad = this.version;
+		}
+		
+		ArrayList<T> loaded = loader.get();
+		
+		synchronized (this) {
+			if (versionBeforeLoad == this.version && loaded.size() <= MAX_CACHED_RESULT_SIZE) {
+				this.queries.put(key, new ArrayList<>(loaded));
+			}
+		}
+		
+		return loaded;
+	}
+	
+	
+	/**
+	 * Invalidates the cache to reflect journal entries written to the DB
+	 * 
+	 * @param change the journal entries that changed and how
+	 */
+	@Override
+	public void onJournalChanged(JournalChange change) {
+		switch (change.getType()) {
+			case CREATED:
+				this.invalidateCreated();
+				break;
+			case UPDATED:
+				this.invalidateUpdated(change.getIDs());
+				break;
+			case DELETED:
+				this.invalidateDeleted(change.getIDs());
+				break;
+		}
+	}
+	
+	
+	/**
+	 * Records that a journal entry was created, any query could now have a new result
+	 */
+	synchronized void invalidateCreated() {
+		this.version++;
+		this.queries.clear();
+	}
+	
+	
+	/**
+	 * Records that a journal entry was updated, caching its new state.
+	 * Any query could now gain or lose the entry.
+	 * 
+	 * @param journal the updated journal entry
+	 */
+	synchronized void invalidateUpdated(JournalModel journal) {
+		this.version++;
+		this.entries.put(journal.getID(), journal);
+		this.queries.clear();
+	}
+	
+	
+	/**
+	 * Records that journal entries were updated without caching their new state
+	 * 
+	 * @param ids the ids of the updated journal entries
+	 */
+	synchronized void invalidateUpdated(Collection<Integer> ids) {
+		this.version++;
+		this.entries.keySet().removeAll(ids);
+		this.queries.clear();
+	}
+	
+	
+	/**
+	 * Records that journal entries were deleted. Deleting can only remove results,
+	 * so cached queries are kept with the deleted entries pruned from them.
+	 * 
+	 * @param ids the ids of the deleted journal entries
+	 */
+	synchronized void invalidateDeleted(Collection<Integer> ids) {
+		Set<Integer> deletedIDs = new HashSet<>(ids);
+		
+		this.version++;
+		this.entries.keySet().removeAll(deletedIDs);
+		
+		for (List<? extends JournalEntry> result : this.queries.values()) {
+			Iterator<? extends JournalEntry> iterator = result.iterator();
+			while (iterator.hasNext()) {
+				if (deletedIDs.contains(iterator.next().getID())) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Drops every cached entry and query
+	 */
+	public synchronized void clear() {
+		this.version++;
+		this.entries.clear();
+		this.queries.clear();
+	}
+	
+	
+	/**
+	 * Gets the number of reads served from memory
+	 * 
+	 * @return the number of cache hits
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+	
+	
+	/**
+	 * Gets the number of reads that had to go to the DB
+	 * 
+	 * @return the number of cache misses
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+	
+	
+	/**
+	 * Gets the fraction of reads served from memory
+	 * 
+	 * @return the hit ratio between 0 and 1, or 0 if nothing has been read yet
+	 */
+	public synchronized double getHitRatio() {
+		long reads = this.hits + this.misses;
+		return reads == 0 ? 0 : (double) this.hits / reads;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package application.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An event describing journal entries that were created, updated or deleted in the DB
+ */
+public class JournalChange {
+	private final Type type;
+	private final List<Integer> ids;
+	
+	
+	/**
+	 * Constructs a new change event
+	 * 
+	 * @param type what happened to the journal entries
+	 * @param ids the ids of the journal entries that changed
+	 */
+	public JournalChange(Type type, List<Integer> ids) {
+		this.type = type;
+		this.ids = Collections.unmodifiableList(ids);
+	}
+	
+	
+	/**
+	 * Gets what happened to the journal entries
+	 * 
+	 * @return the type of change
+	 */
+	public Type getType() {
+		return this.type;
+	}
+	
+	
+	/**
+	 * Gets the ids of the journal entries that changed
+	 * 
+	 * @return an unmodifiable list of the ids of the changed journal entries
+	 */
+	public List<Integer> getIDs() {
+		return this.ids;
+	}
+	
+	
+	/**
+	 * An enumeration of the ways a journal entry can change
+	 */
+	public enum Type {
+		CREATED,
+		UPDATED,
+		DELETED
+	}
+
+}
\ No newline at end of file
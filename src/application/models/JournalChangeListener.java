@@ -0,0 +1,16 @@
+package application.models;
+
+/**
+ * Receives an event every time journal entries are written to the DB.
+ * Events are delivered on the thread that made the write, after it has been committed.
+ */
+@FunctionalInterface
+public interface JournalChangeListener {
+	/**
+	 * Called after journal entries were created, updated or deleted
+	 * 
+	 * @param change the journal entries that changed and how
+	 */
+	void onJournalChanged(JournalChange change);
+
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package application.models;
+
+/**
+ * The fields shared by every representation of a journal entry,
+ * whether it holds the full context of the entry or only a preview of it
+ */
+public interface JournalEntry {
+	/**
+	 * Gets the DB id of the journal entry
+	 * 
+	 * @return the id of the journal entry in the sqlite DB
+	 */
+	int getID();
+	
+	/**
+	 * Gets the title of the journal entry
+	 * 
+	 * @return the title of the journal entry
+	 */
+	String getTitle();
+	
+	/**
+	 * Gets the date of the journal entry
+	 * 
+	 * @return the date of the journal entry
+	 */
+	String getDate();
+	
+	/**
+	 * Gets the hour of the time the journal entry was written
+	 * 
+	 * @return the hour of the time the journal entry was written
+	 */
+	int getHour();
+	
+	/**
+	 * Gets the minute of the time the journal entry was written
+	 * 
+	 * @return the minute of the time the journal entry was written
+	 */
+	int getMinute();
+	
+	/**
+	 * Gets a string representation of the time of the journal entry
+	 * 
+	 * @return the time of the journal entry as a string
+	 */
+	default String getTime() {
+		return String.format("%02d:%02d", this.getHour(), this.getMinute());
+	}
+
+}
\ No newline at end of file
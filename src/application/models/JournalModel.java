@@ -1,13 +1,37 @@
 package application.models;
 
+import java.time.LocalDateTime;
+import java.time.MonthDay;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import application.dal.DBExecutor;
 import application.dal.JournalDAO;
+import application.dal.JournalEvents;
+import application.dal.JournalQuery;
+import application.dal.JournalStore;
+import application.dal.JournalStores;
+import application.dal.QueryCancellation;
+import application.dal.SearchMode;
 
 /**
  * A class representing a journal entry in the application
  */
-public class JournalModel {
+public class JournalModel implements JournalEntry {
+	private static final JournalCache cache = JournalCache.getInstance();
+	
+	// the number of summaries handed over at a time by a streamed search
+	private static final int STREAM_BATCH_SIZE = 64;
+	
 	private int id;
 	private String title;
 	private String date;
@@ -61,6 +85,7 @@ public class JournalModel {
 	 * 
 	 * @return the time of the journal entry as a string
 	 */
+	@Override
 	public String getTime() {
 		return String.format("%02d:%02d", this.hour, this.minute);
 	}
@@ -122,8 +147,40 @@ public class JournalModel {
 		this.minute = minute;
 		this.context = context;
 		
-		JournalDAO journalDAO = new JournalDAO();
-		journalDAO.updateJournal(this);
+		JournalStore journalStore = JournalStores.get();
+		journalStore.updateJournal(this);
+		cache.invalidateUpdated(this);
+	}
+	
+	
+	/**
+	 * Saves changes to the journal entry to the DB in the background, only updating the journal model's state
+	 * once they are saved so that a failed save leaves the cached model as it is in the DB
+	 * 
+	 * @param title the title of the journal entry
+	 * @param date the date of the journal entry
+	 * @param hour the hour of the time the journal entry was written
+	 * @param minute the minute of the time the journal entry was written
+	 * @param context the context or body of the journal entry
+	 * @return a future completed once the changes have been saved, or completed exceptionally if they were not
+	 */
+	public CompletableFuture<Void> updateSelfAsync(String title, String date, int hour, int minute, String context) {
+		JournalModel updated = new JournalModel(this.id, title, date, hour, minute, context);
+		
+		return DBExecutor.write(() -> {
+			JournalStore journalStore = JournalStores.get();
+			int[] outcomes = journalStore.updateJournals(Collections.singletonList(updated));
+			if (outcomes[0] < 1) {
+				throw new IllegalStateException("Journal entry " + this.id + " was not saved");
+			}
+			
+			this.title = title;
+			this.date = date;
+			this.hour = hour;
+			this.minute = minute;
+			this.context = context;
+			cache.invalidateUpdated(this);
+		});
 	}
 	
 	
@@ -137,8 +194,60 @@ public class JournalModel {
 	 * @param context the context or body of the journal entry
 	 */
 	public static void createJournal(String title, String date, int hour, int minute, String context) {
-		JournalDAO journalDAO = new JournalDAO();
-		journalDAO.createJournal(title, date, hour, minute, context);
+		JournalStore journalStore = JournalStores.get();
+		journalStore.createJournal(title, date, hour, minute, context);
+	}
+	
+	
+	/**
+	 * Creates a new journal entry and adds the entry into the DB in the background
+	 * 
+	 * @param title the title of the journal entry
+	 * @param date the date of the journal entry
+	 * @param hour the hour of the time the journal entry was written
+	 * @param minute the minute of the time the journal entry was written
+	 * @param context the context or body of the journal entry
+	 * @return a future completed once the entry has been added
+	 */
+	public static CompletableFuture<Void> createJournalAsync(String title, String date, int hour, int minute, String context) {
+		return DBExecutor.write(() -> createJournal(title, date, hour, minute, context));
+	}
+	
+	
+	/**
+	 * Creates many journal entries at once and adds them into the DB in a single transaction.
+	 * The ids of the given models are ignored, new ids are assigned by the DB.
+	 * 
+	 * @param journals the journal entries to create
+	 * @return the number of rows added for each journal entry, or Statement.EXECUTE_FAILED for every entry if none could be added
+	 */
+	public static int[] createJournals(Collection<JournalModel> journals) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.createJournals(journals);
+	}
+	
+	
+	/**
+	 * Saves the current state of many journal entries to the DB in a single transaction
+	 * 
+	 * @param journals the journal entries to save
+	 * @return the number of rows updated for each journal entry, or Statement.EXECUTE_FAILED for every entry if none could be saved
+	 */
+	public static int[] updateJournals(Collection<JournalModel> journals) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.updateJournals(journals);
+	}
+	
+	
+	/**
+	 * Deletes many journal entries from the DB in a single transaction
+	 * 
+	 * @param ids the ids of the journal entries to delete
+	 * @return the number of rows deleted for each id, or Statement.EXECUTE_FAILED for every id if none could be deleted
+	 */
+	public static int[] deleteJournals(Collection<Integer> ids) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.deleteJournals(ids);
 	}
 	
 	
@@ -146,8 +255,53 @@ public class JournalModel {
 	 * Deletes this journal entry from the DB
 	 */
 	public void deleteSelf() {
-		JournalDAO journalDAO = new JournalDAO();
-		journalDAO.deleteJournal(this);
+		JournalStore journalStore = JournalStores.get();
+		journalStore.deleteJournal(this.id);
+	}
+	
+	
+	/**
+	 * Deletes the journal entry with a given id from the DB
+	 * 
+	 * @param id the id of the journal entry
+	 */
+	public static void deleteJournal(int id) {
+		JournalStore journalStore = JournalStores.get();
+		journalStore.deleteJournal(id);
+	}
+	
+	
+	/**
+	 * Deletes the journal entry with a given id from the DB in the background
+	 * 
+	 * @param id the id of the journal entry
+	 * @return a future completed once the entry has been deleted
+	 */
+	public static CompletableFuture<Void> deleteJournalAsync(int id) {
+		return DBExecutor.write(() -> deleteJournal(id));
+	}
+	
+	
+	/**
+	 * Gets the full journal entry with a given id from the DB
+	 * 
+	 * @param id the id of the journal entry
+	 * @return the JournalModel of the entry, or null if no entry has the given id
+	 */
+	public static JournalModel getJournal(int id) {
+		JournalStore journalStore = JournalStores.get();
+		return cache.getEntry(id, () -> journalStore.getJournal(id));
+	}
+	
+	
+	/**
+	 * Gets the full journal entry with a given id from the DB in the background
+	 * 
+	 * @param id the id of the journal entry
+	 * @return a future completed with the JournalModel of the entry, or null if no entry has the given id
+	 */
+	public static CompletableFuture<JournalModel> getJournalAsync(int id) {
+		return DBExecutor.read(() -> getJournal(id));
 	}
 	
 	
@@ -157,20 +311,371 @@ public class JournalModel {
 	 * @return an ArrayList containing a JournalModel for every journal in the DB
 	 */
 	public static ArrayList<JournalModel> getJournals() {
-		JournalDAO journalDAO = new JournalDAO();
-		return journalDAO.getJournals();
+		JournalStore journalStore = JournalStores.get();
+		return cache.getQuery("journals", () -> journalStore.getJournals());
+	}
+	
+	
+	/**
+	 * Streams every journal entry in the DB without buffering the whole journal in memory.
+	 * The stream may hold a DB connection until it is closed, so it must be used with try-with-resources.
+	 * 
+	 * @return a stream of every journal entry in id order, empty if the DB could not be read
+	 */
+	public static Stream<JournalModel> streamJournals() {
+		return streamJournals(JournalDAO.DEFAULT_FETCH_SIZE);
+	}
+	
+	
+	/**
+	 * Streams every journal entry in the DB without buffering the whole journal in memory.
+	 * The stream may hold a DB connection until it is closed, so it must be used with try-with-resources.
+	 * 
+	 * @param fetchSize the number of rows to fetch from the DB at a time
+	 * @return a stream of every journal entry in id order, empty if the DB could not be read
+	 */
+	public static Stream<JournalModel> streamJournals(int fetchSize) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.streamJournals(fetchSize);
+	}
+	
+	
+	/**
+	 * Gets a page of journal entries ordered from newest to oldest
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of journal entries and the token of the following page
+	 */
+	public static JournalPage<JournalModel> getJournalPage(String pageToken, int pageSize) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getJournalPage(pageToken, pageSize);
 	}
 	
 	
 	/**
-	 * Gets all journal entries in the DB that contain a given keyword in the title or context
+	 * Gets the most relevant journal entries in the DB with a word starting with each word of a given keyword
 	 * 
 	 * @param keyword the keyword that a journal entry must contain
-	 * @return an ArrayList containing a JournalModel for every journal entry in the DB that contains the given keyword
+	 * @return an ArrayList containing a JournalModel for each of the most relevant journal entries, most relevant first
 	 */
 	public static ArrayList<JournalModel> getJournals(String keyword) {
-		JournalDAO journalDAO = new JournalDAO();
-		return journalDAO.getJournals(keyword);
+		return getJournals(keyword, SearchMode.PREFIX);
+	}
+	
+	
+	/**
+	 * Gets the most relevant journal entries in the DB that match a given keyword in the title or context
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param mode how the keyword is matched, SUBSTRING keeps the exact "contains" semantics
+	 * @return an ArrayList containing a JournalModel for each of the most relevant journal entries, most relevant first
+	 */
+	public static ArrayList<JournalModel> getJournals(String keyword, SearchMode mode) {
+		JournalStore journalStore = JournalStores.get();
+		return cache.getQuery(queryKey("journals", keyword, mode), () -> journalStore.getJournals(keyword, mode));
 	}
 	
+	
+	/**
+	 * Gets a summary of every journal entry stored in the DB, without loading their full context
+	 * 
+	 * @return an ArrayList containing a JournalSummary for every journal in the DB
+	 */
+	public static ArrayList<JournalSummary> getJournalSummaries() {
+		JournalStore journalStore = JournalStores.get();
+		return cache.getQuery("summaries", () -> journalStore.getJournalSummaries());
+	}
+	
+	
+	/**
+	 * Gets a summary of every journal entry stored in the DB in the background
+	 * 
+	 * @return a future completed with a JournalSummary for every journal in the DB
+	 */
+	public static CompletableFuture<ArrayList<JournalSummary>> getJournalSummariesAsync() {
+		return DBExecutor.read(() -> getJournalSummaries());
+	}
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries in the DB with a word starting with each word of a given keyword
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @return an ArrayList containing a scored JournalSummary for each of the most relevant journal entries, most relevant first
+	 */
+	public static ArrayList<JournalSummary> getJournalSummaries(String keyword) {
+		JournalStore journalStore = JournalStores.get();
+		SearchMode mode = SearchMode.PREFIX;
+		return cache.getQuery(queryKey("summaries", keyword, mode), () -> journalStore.getJournalSummaries(keyword, mode));
+	}
+	
+	
+	/**
+	 * Gets a summary of the most relevant journal entries in the DB matching a given keyword in the background
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @return a future completed with a scored JournalSummary for each of the most relevant journal entries, most relevant first
+	 */
+	public static CompletableFuture<ArrayList<JournalSummary>> getJournalSummariesAsync(String keyword) {
+		return DBExecutor.read(() -> getJournalSummaries(keyword));
+	}
+	
+	
+	/**
+	 * Searches for the summaries of the most relevant journal entries with a word starting with each word of a given keyword
+	 * in the background, handing them over in batches as they are found. A cached result is handed over as a single batch.
+	 * If no journal entry matches, journal entries with words within a typo or two of the keyword are searched for instead.
+	 * A keyword using the query language of JournalQuery is searched for as a query.
+	 * 
+	 * @param keyword the keyword that a journal entry must contain
+	 * @param batches receives each batch of summaries on a DB thread
+	 * @param cancellation cancels the search from another thread
+	 * @return a future completed once the search finishes, or completed exceptionally with a CancellationException if it was cancelled
+	 */
+	public static CompletableFuture<Void> streamJournalSummariesAsync(String keyword, Consumer<List<JournalSummary>> batches,
+			QueryCancellation cancellation) {
+		return DBExecutor.read(() -> {
+			JournalStore journalStore = JournalStores.get();
+			JournalQuery query = parseQuery(keyword);
+			
+			if (query != null) {
+				// operators are case sensitive, so a query is only cached under its exact text
+				streamCached("summaries:QUERY:" + keyword.trim(), batches,
+						() -> journalStore.streamJournalSummaries(query, STREAM_BATCH_SIZE, batches, cancellation));
+				return null;
+			}
+			
+			ArrayList<JournalSummary> found = streamCached(queryKey("summaries", keyword, SearchMode.PREFIX), batches,
+					() -> journalStore.streamJournalSummaries(keyword, SearchMode.PREFIX, STREAM_BATCH_SIZE, batches, cancellation));
+			
+			// a keyword matching nothing may be misspelled, so look for journals with similar words instead,
+			// cached apart so that a later exact search of the keyword still finds nothing
+			if (found.isEmpty()) {
+				streamCached(queryKey("summaries", keyword, SearchMode.FUZZY), batches,
+						() -> journalStore.streamJournalSummaries(keyword, SearchMode.FUZZY, STREAM_BATCH_SIZE, batches, cancellation));
+			}
+			return null;
+		});
+	}
+	
+	
+	/**
+	 * Runs a streaming search unless its result is cached, in which case the cached result is handed over as a single batch
+	 * 
+	 * @param key the key the result is cached under
+	 * @param batches receives the cached result, the search hands over its own batches
+	 * @param search streams the search, returning every summary found or null if it was cancelled
+	 * @return every summary found
+	 * @throws CancellationException if the search was cancelled, so its partial result is never cached
+	 */
+	private static ArrayList<JournalSummary> streamCached(String key, Consumer<List<JournalSummary>> batches,
+			Supplier<ArrayList<JournalSummary>> search) {
+		AtomicBoolean streamed = new AtomicBoolean(false);
+		ArrayList<JournalSummary> journals = cache.getQuery(key, () -> {
+			streamed.set(true);
+			ArrayList<JournalSummary> found = search.get();
+			if (found == null) {
+				throw new CancellationException();
+			}
+			return found;
+		});
+		
+		// an empty result is left for the caller, which lists nothing once the search finishes without a batch
+		if (!streamed.get() && !journals.isEmpty()) {
+			batches.accept(journals);
+		}
+		return journals;
+	}
+	
+	
+	/**
+	 * Checks in the background whether searching for a keyword could find any of a number of journal entries,
+	 * so that a listed search is only run again when a change may affect its results
+	 * 
+	 * @param ids the ids of the journal entries
+	 * @param keyword the keyword that was searched for
+	 * @return a future completed with false only if none of the journal entries can be found by the search
+	 */
+	public static CompletableFuture<Boolean> mayMatchAsync(Collection<Integer> ids, String keyword) {
+		return DBExecutor.read(() -> {
+			for (int id : ids) {
+				JournalModel journal = getJournal(id);
+				if (journal != null && JournalQuery.mayMatch(keyword, journal)) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+	
+	
+	/**
+	 * Counts the journal entries stored in the DB in the background
+	 * 
+	 * @return a future completed with the number of journal entries
+	 */
+	public static CompletableFuture<Integer> countJournalsAsync() {
+		return DBExecutor.read(() -> {
+			JournalStore journalStore = JournalStores.get();
+			return journalStore.countJournals();
+		});
+	}
+	
+	
+	/**
+	 * Gets the summaries of a window of journal entries by position, ordered from newest to oldest
+	 * 
+	 * @param offset the position of the first journal entry of the window
+	 * @param limit the maximum number of journal entries in the window
+	 * @return an ArrayList containing the summaries of the journal entries in the window
+	 */
+	public static ArrayList<JournalSummary> getJournalSummaryWindow(int offset, int limit) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getJournalSummaryWindow(offset, limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of a window of journal entries by position in the background
+	 * 
+	 * @param offset the position of the first journal entry of the window
+	 * @param limit the maximum number of journal entries in the window
+	 * @return a future completed with the summaries of the journal entries in the window
+	 */
+	public static CompletableFuture<ArrayList<JournalSummary>> getJournalSummaryWindowAsync(int offset, int limit) {
+		return DBExecutor.read(() -> getJournalSummaryWindow(offset, limit));
+	}
+	
+	
+	/**
+	 * Gets the summaries of the journal entries written within a range of time
+	 * 
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, exclusive
+	 * @param isNewestFirst whether the newest journal entries come first, otherwise the oldest do
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the journal entries written within the range
+	 */
+	public static ArrayList<JournalSummary> getJournalSummariesBetween(LocalDateTime from, LocalDateTime to, boolean isNewestFirst, int limit) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getJournalSummariesBetween(from, to, isNewestFirst, limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the most recently written journal entries
+	 * 
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the newest journal entries, newest first
+	 */
+	public static ArrayList<JournalSummary> getNewestJournalSummaries(int limit) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getNewestJournalSummaries(limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the earliest written journal entries
+	 * 
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the oldest journal entries, oldest first
+	 */
+	public static ArrayList<JournalSummary> getOldestJournalSummaries(int limit) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getOldestJournalSummaries(limit);
+	}
+	
+	
+	/**
+	 * Gets the summaries of the journal entries written on a day of the year in any year, such as every March 10th
+	 * 
+	 * @param day the month and day of the month
+	 * @param limit the maximum number of summaries returned
+	 * @return an ArrayList containing the summaries of the journal entries written on the day, newest first
+	 */
+	public static ArrayList<JournalSummary> getJournalSummariesOnThisDay(MonthDay day, int limit) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getJournalSummariesOnThisDay(day, limit);
+	}
+	
+	
+	/**
+	 * Gets a page of journal entry summaries ordered from newest to oldest
+	 * 
+	 * @param pageToken the token returned with the previous page, or null for the first page
+	 * @param pageSize the maximum number of journal entries on the page
+	 * @return a page of journal entry summaries and the token of the following page
+	 */
+	public static JournalPage<JournalSummary> getJournalSummaryPage(String pageToken, int pageSize) {
+		JournalStore journalStore = JournalStores.get();
+		return journalStore.getJournalSummaryPage(pageToken, pageSize);
+	}
+	
+	
+	/**
+	 * Parses a search written in the query language of the search box
+	 * 
+	 * @param keyword the search entered by the user
+	 * @return the parsed query, or null if the search is plain words or is not a valid query and should be searched for as a keyword
+	 */
+	private static JournalQuery parseQuery(String keyword) {
+		try {
+			JournalQuery query = JournalQuery.parse(keyword);
+			return query.isPlainKeyword() ? null : query;
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Normalizes a search into a cache key, so that searches that must return the same
+	 * journal entries share a key. Word searches ignore case and spacing like the full-text index,
+	 * substring searches are kept exactly as entered.
+	 * 
+	 * @param kind the kind of journal entry returned by the search
+	 * @param keyword the keyword entered by the user
+	 * @param mode how the keyword is matched
+	 * @return the cache key of the search
+	 */
+	private static String queryKey(String kind, String keyword, SearchMode mode) {
+		String normalizedKeyword = keyword;
+		if (mode != SearchMode.SUBSTRING) {
+			normalizedKeyword = keyword.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+		}
+		
+		return kind + ":" + mode + ":" + normalizedKeyword;
+	}
+	
+	
+	/**
+	 * Registers a listener to be told every time journal entries are created, updated or deleted
+	 * 
+	 * @param listener the listener to register
+	 */
+	public static void addChangeListener(JournalChangeListener listener) {
+		JournalEvents.addListener(listener);
+	}
+	
+	
+	/**
+	 * Stops telling a listener about journal changes
+	 * 
+	 * @param listener the listener to unregister
+	 */
+	public static void removeChangeListener(JournalChangeListener listener) {
+		JournalEvents.removeListener(listener);
+	}
+	
+	
+	/**
+	 * Gets the cache of journal entries and search results, for inspecting its hit ratio
+	 * 
+	 * @return the shared journal cache
+	 */
+	public static JournalCache getCache() {
+		return cache;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package application.models;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A bounded page of journal entries along with the token needed to fetch the page after it
+ * 
+ * @param <T> the type of journal entry held by the page
+ */
+public class JournalPage<T> {
+	private final List<T> items;
+	private final String nextPageToken;
+	
+	
+	/**
+	 * Constructs a new page of journal entries
+	 * 
+	 * @param items the journal entries on this page, in display order
+	 * @param nextPageToken the token of the following page, or null if this is the last page
+	 */
+	public JournalPage(List<T> items, String nextPageToken) {
+		this.items = Collections.unmodifiableList(items);
+		this.nextPageToken = nextPageToken;
+	}
+	
+	
+	/**
+	 * Gets the journal entries on this page
+	 * 
+	 * @return an unmodifiable list of the journal entries on this page
+	 */
+	public List<T> getItems() {
+		return this.items;
+	}
+	
+	
+	/**
+	 * Gets the continuation token to pass back in order to fetch the following page
+	 * 
+	 * @return the token of the following page, or null if this is the last page
+	 */
+	public String getNextPageToken() {
+		return this.nextPageToken;
+	}
+	
+	
+	/**
+	 * Checks whether there are more journal entries after this page
+	 * 
+	 * @return a boolean indicating whether another page can be fetched
+	 */
+	public boolean hasNextPage() {
+		return this.nextPageToken != null;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package application.models;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A lightweight, read-only view of a journal entry used for listing entries.
+ * It holds only a short preview of the context, the full entry is loaded with JournalModel.getJournal.
+ */
+public class JournalSummary implements JournalEntry {
+	private final int id;
+	private final String title;
+	private final String date;
+	private final int hour;
+	private final int minute;
+	private final String preview;
+	private final double score;
+	
+	
+	/**
+	 * Constructs a new journal entry summary
+	 * 
+	 * @param id the id of the journal entry in the sqlite DB
+	 * @param title the title of the journal entry
+	 * @param date the date of the journal entry
+	 * @param hour the hour of the time the journal entry was written
+	 * @param minute the minute of the time the journal entry was written
+	 * @param preview the first characters of the context of the journal entry
+	 */
+	public JournalSummary(int id, String title, String date, int hour, int minute, String preview) {
+		this(id, title, date, hour, minute, preview, 0);
+	}
+	
+	
+	/**
+	 * Constructs a new journal entry summary found by a search
+	 * 
+	 * @param id the id of the journal entry in the sqlite DB
+	 * @param title the title of the journal entry
+	 * @param date the date of the journal entry
+	 * @param hour the hour of the time the journal entry was written
+	 * @param minute the minute of the time the journal entry was written
+	 * @param preview the first characters of the context of the journal entry
+	 * @param score the relevance of the journal entry to the search
+	 */
+	public JournalSummary(int id, String title, String date, int hour, int minute, String preview, double score) {
+		this.id = id;
+		this.title = title;
+		this.date = date;
+		this.hour = hour;
+		this.minute = minute;
+		this.preview = preview;
+		this.score = score;
+	}
+	
+	
+	@Override
+	public int getID() {
+		return this.id;
+	}
+	
+	
+	@Override
+	public String getTitle() {
+		return this.title;
+	}
+	
+	
+	@Override
+	public String getDate() {
+		return this.date;
+	}
+	
+	
+	@Override
+	public int getHour() {
+		return this.hour;
+	}
+	
+	
+	@Override
+	public int getMinute() {
+		return this.minute;
+	}
+	
+	
+	/**
+	 * Gets the first characters of the context of the journal entry
+	 * 
+	 * @return a bounded preview of the context of the journal entry
+	 */
+	public String getPreview() {
+		return this.preview;
+	}
+	
+	
+	/**
+	 * Gets the relevance of the journal entry to the search that found it.
+	 * The score is not part of equality, since it does not change how the summary is displayed.
+	 * 
+	 * @return a score where higher is more relevant, or 0 if the summary was not found by a search
+	 */
+	public double getScore() {
+		return this.score;
+	}
+	
+	
+	/**
+	 * Checks whether another object is a summary of the same journal entry with the same contents
+	 * 
+	 * @param other the object to compare against
+	 * @return a boolean indicating whether both summaries would display identically
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof JournalSummary)) {
+			return false;
+		}
+		
+		JournalSummary summary = (JournalSummary) other;
+		return this.id == summary.id
+				&& this.hour == summary.hour
+				&& this.minute == summary.minute
+				&& Objects.equals(this.title, summary.title)
+				&& Objects.equals(this.date, summary.date)
+				&& Objects.equals(this.preview, summary.preview);
+	}
+	
+	
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.id, this.title, this.date, this.hour, this.minute, this.preview);
+	}
+	
+	
+	/**
+	 * Loads the full journal entry that this summary describes
+	 * 
+	 * @return the full JournalModel of the entry, or null if it no longer exists
+	 */
+	public JournalModel loadJournal() {
+		return JournalModel.getJournal(this.id);
+	}
+	
+	
+	/**
+	 * Loads the full journal entry that this summary describes in the background
+	 * 
+	 * @return a future completed with the full JournalModel of the entry, or null if it no longer exists
+	 */
+	public CompletableFuture<JournalModel> loadJournalAsync() {
+		return JournalModel.getJournalAsync(this.id);
+	}
+	
+	
+	/**
+	 * Deletes the journal entry that this summary describes from the DB
+	 */
+	public void deleteSelf() {
+		JournalModel.deleteJournal(this.id);
+	}
+	
+	
+	/**
+	 * Deletes the journal entry that this summary describes from the DB in the background
+	 * 
+	 * @return a future completed once the entry has been deleted
+	 */
+	public CompletableFuture<Void> deleteSelfAsync() {
+		return JournalModel.deleteJournalAsync(this.id);
+	}
+
+}
\ No newline at end of file
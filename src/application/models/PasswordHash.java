@@ -0,0 +1,181 @@
+package application.models;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * A salted PBKDF2 hash of a password, stored as a single line of the form
+ * pbkdf2-sha256$iterations$salt$hash with the salt and hash in base 64.
+ * The number of iterations is the work factor, it is taken from the journalicious.password.iterations
+ * system property if set, otherwise calibrated so that checking a password takes about
+ * journalicious.password.targetMillis on the current machine.
+ */
+public class PasswordHash {
+	private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+	private static final String PREFIX = "pbkdf2-sha256";
+	
+	private static final int SALT_BYTES = 16;
+	private static final int HASH_BITS = 256;
+	
+	// calibration never picks fewer iterations than this, however slow the machine
+	private static final int MIN_ITERATIONS = 50000;
+	// the iterations timed by calibration, enough to be measurable without slowing startup
+	private static final int CALIBRATION_ITERATIONS = 10000;
+	private static final int CALIBRATION_RUNS = 3;
+	
+	private static final SecureRandom random = new SecureRandom();
+	private static volatile int calibratedIterations = 0;
+	
+	private final int iterations;
+	private final byte[] salt;
+	private final byte[] hash;
+	
+	
+	private PasswordHash(int iterations, byte[] salt, byte[] hash) {
+		this.iterations = iterations;
+		this.salt = salt;
+		this.hash = hash;
+	}
+	
+	
+	/**
+	 * Hashes a password with a new random salt and the configured work factor
+	 * 
+	 * @param password the password to hash
+	 * @return the hash of the password
+	 */
+	public static PasswordHash create(String password) {
+		byte[] salt = new byte[SALT_BYTES];
+		random.nextBytes(salt);
+		
+		int iterations = getIterations();
+		return new PasswordHash(iterations, salt, pbkdf2(password, salt, iterations));
+	}
+	
+	
+	/**
+	 * Checks whether a stored password is a hash written by encode, rather than a password stored in plain text
+	 * 
+	 * @param stored the password as stored
+	 * @return a boolean indicating whether the stored password is hashed
+	 */
+	public static boolean isEncoded(String stored) {
+		return stored.startsWith(PREFIX + "$");
+	}
+	
+	
+	/**
+	 * Reads a hash written by encode
+	 * 
+	 * @param stored the encoded hash
+	 * @return the hash
+	 * @throws IllegalArgumentException if the stored password is not a well formed hash
+	 */
+	public static PasswordHash decode(String stored) {
+		String[] parts = stored.split("\\$");
+		if (parts.length != 4 || !parts[0].equals(PREFIX)) {
+			throw new IllegalArgumentException("Not a " + PREFIX + " password hash");
+		}
+		
+		Base64.Decoder decoder = Base64.getDecoder();
+		return new PasswordHash(Integer.parseInt(parts[1]), decoder.decode(parts[2]), decoder.decode(parts[3]));
+	}
+	
+	
+	/**
+	 * Writes the hash as a single line, along with the salt and work factor needed to check passwords against it
+	 * 
+	 * @return the encoded hash
+	 */
+	public String encode() {
+		Base64.Encoder encoder = Base64.getEncoder();
+		return PREFIX + "$" + this.iterations + "$" + encoder.encodeToString(this.salt) + "$" + encoder.encodeToString(this.hash);
+	}
+	
+	
+	/**
+	 * Checks whether a password is the one that was hashed, in time independent of where they differ
+	 * 
+	 * @param password the password to check
+	 * @return a boolean indicating whether the password matches the hash
+	 */
+	public boolean matches(String password) {
+		return MessageDigest.isEqual(this.hash, pbkdf2(password, this.salt, this.iterations));
+	}
+	
+	
+	/**
+	 * Compares two strings in time independent of where they differ,
+	 * used to check passwords still stored in plain text
+	 * 
+	 * @param a a string
+	 * @param b another string
+	 * @return a boolean indicating whether the strings are equal
+	 */
+	public static boolean constantTimeEquals(String a, String b) {
+		return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	
+	/**
+	 * Gets the work factor that new hashes are made with, calibrating it the first time unless it is configured
+	 * 
+	 * @return the number of PBKDF2 iterations
+	 */
+	public static int getIterations() {
+		Integer configured = Integer.getInteger("journalicious.password.iterations");
+		if (configured != null) {
+			return configured;
+		}
+		
+		if (calibratedIterations == 0) {
+			calibratedIterations = calibrate(Long.getLong("journalicious.password.targetMillis", 250));
+		}
+		
+		return calibratedIterations;
+	}
+	
+	
+	/**
+	 * Times PBKDF2 on the current machine to find the number of iterations that takes a target time
+	 * 
+	 * @param targetMillis how long checking a password should take, in milliseconds
+	 * @return the number of iterations, at least MIN_ITERATIONS
+	 */
+	public static int calibrate(long targetMillis) {
+		byte[] salt = new byte[SALT_BYTES];
+		random.nextBytes(salt);
+		
+		// take the fastest run, the first ones are slowed down by class loading and the JIT
+		long fastestNanos = Long.MAX_VALUE;
+		for (int i = 0; i < CALIBRATION_RUNS; i++) {
+			long start = System.nanoTime();
+			pbkdf2("calibration", salt, CALIBRATION_ITERATIONS);
+			fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+		}
+		
+		long iterations = CALIBRATION_ITERATIONS * (targetMillis * 1000000) / Math.max(1, fastestNanos);
+		return (int) Math.max(MIN_ITERATIONS, Math.min(Integer.MAX_VALUE, iterations));
+	}
+	
+	
+	private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+		
+		try {
+			return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+		} catch (GeneralSecurityException ex) {
+			// provided by the SunJCE provider of every runtime since Java 8
+			throw new IllegalStateException(ALGORITHM + " is unavailable", ex);
+		} finally {
+			spec.clearPassword();
+		}
+	}
+
+}
\ No newline at end of file
@@ -1,15 +1,29 @@
 package application.models;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import application.dal.PasswordDAO;
 
 /**
  * A class representing a Password for the application, handles the logic 
- * related to checking and changing passwords 
+ * related to checking and changing passwords.
+ * Passwords are stored as salted PBKDF2 hashes, which are deliberately slow to compute,
+ * so checking and changing them runs in the background rather than on the JavaFX Application Thread.
  */
 public class PasswordModel {
 	private static final String DEFAULT_PASSWORD = "p";
 	
-	private String password;
+	// one daemon thread, so password checks run in the order they were made and never keep the application alive
+	private static final ExecutorService hashExecutor = Executors.newSingleThreadExecutor(task -> {
+		Thread thread = new Thread(task, "journalicious-password");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// the password hash as stored, or the password itself if it is still stored in plain text
+	private volatile String storedPassword;
 	
 	
 	/**
@@ -18,22 +32,51 @@ public class PasswordModel {
 	public PasswordModel() {
 		// initialize password model to reflect DB
 		PasswordDAO passDAO = new PasswordDAO();
-		passDAO.updatePassword(this);
+		this.storedPassword = passDAO.getPassword();
+	}
+	
+	
+	/**
+	 * Changes the password stored in the system in the background, storing only its hash
+	 * 
+	 * @param newPassword the new password to change the current password to
+	 * @return a future completed once the new password is stored
+	 */
+	public CompletableFuture<Void> setPasswordAsync(String newPassword) {
+		return CompletableFuture.runAsync(() -> this.storePassword(newPassword), hashExecutor);
 	}
 	
 	
 	/**
-	 * Changes the password stored in the system
+	 * Changes the password stored in the system in the background, in the same task as other changes made first,
+	 * so the new password is only stored once they were made
 	 * 
 	 * @param newPassword the new password to change the current password to
+	 * @param changesBefore the changes to make before the password, which leave it unchanged if they throw
+	 * @return a future completed once the changes are made and the new password is stored
+	 */
+	public CompletableFuture<Void> setPasswordAsync(String newPassword, Runnable changesBefore) {
+		return CompletableFuture.runAsync(() -> {
+			changesBefore.run();
+			this.storePassword(newPassword);
+		}, hashExecutor);
+	}
+	
+	
+	/**
+	 * Hashes a password and stores the hash in flat files and in the model
+	 * 
+	 * @param newPassword the password to store
 	 */
-	public void setPassword(String newPassword) {
+	private void storePassword(String newPassword) {
+		String hash = PasswordHash.create(newPassword).encode();
+		
 		// change password in flat files
 		PasswordDAO passDAO = new PasswordDAO();
-		passDAO.setPassword(newPassword);
+		passDAO.setPassword(hash);
 		
 		// change password in model
-		this.password = newPassword;
+		this.storedPassword = hash;
 	}
 	
 	
@@ -43,20 +86,42 @@ public class PasswordModel {
 	 * @return a boolean indicating whether user is a first time user
 	 */
 	public boolean isFirstTimeUser() {
-		boolean passwordIsDefault = this.password.equals(DEFAULT_PASSWORD);
+		// the default password is never hashed, so a first time user can be recognized without hashing anything
+		boolean passwordIsDefault = this.storedPassword.equals(DEFAULT_PASSWORD);
 		return passwordIsDefault;
 	}
 	
 	
 	/**
-	 * Checks if a given password matches the stored password
+	 * Checks if a given password matches the stored password in the background.
+	 * A correct password that is still stored in plain text is hashed and stored again,
+	 * except the default password, which stays in plain text to mark a first time user.
 	 * 
 	 * @param enteredPassword the password entered by the user
-	 * @return a boolean indicating if the user entered the correct password
+	 * @return a future completed with a boolean indicating if the user entered the correct password
 	 */
-	public boolean isCorrectPassword(String enteredPassword) {
-		boolean passwordIsCorrect = this.password.equals(enteredPassword);
-		return passwordIsCorrect;
+	public CompletableFuture<Boolean> isCorrectPasswordAsync(String enteredPassword) {
+		return CompletableFuture.supplyAsync(() -> {
+			String stored = this.storedPassword;
+			
+			if (PasswordHash.isEncoded(stored)) {
+				try {
+					return PasswordHash.decode(stored).matches(enteredPassword);
+				} catch (IllegalArgumentException ex) {
+					// a corrupted hash matches no password, rather than failing every check
+					System.out.println("Failed to read the stored password hash!");
+					ex.printStackTrace();
+					return false;
+				}
+			}
+			
+			boolean passwordIsCorrect = PasswordHash.constantTimeEquals(stored, enteredPassword);
+			if (passwordIsCorrect && !stored.equals(DEFAULT_PASSWORD)) {
+				this.storePassword(enteredPassword);
+			}
+			
+			return passwordIsCorrect;
+		}, hashExecutor);
 	}
 	
 	
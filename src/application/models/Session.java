@@ -0,0 +1,73 @@
+package application.models;
+
+/**
+ * The user's session with the application, from the login page until logging out.
+ * Holds the one UserModel and PasswordModel shared by every page, each loaded the first time it is needed.
+ * The models write changes through to storage and update themselves, so they never need to be re-read during a session.
+ */
+public class Session {
+	private static Session current = null;
+	
+	private UserModel userModel;
+	private PasswordModel passwordModel;
+	
+	
+	/**
+	 * Creates a new session, none of its models are loaded yet
+	 */
+	private Session() {
+		this.userModel = null;
+		this.passwordModel = null;
+	}
+	
+	
+	/**
+	 * Gets the current session, starting one if there is none
+	 * 
+	 * @return the current session
+	 */
+	public static synchronized Session getCurrent() {
+		if (current == null) {
+			current = new Session();
+		}
+		
+		return current;
+	}
+	
+	
+	/**
+	 * Ends the current session, so the next page to need user state starts a new session that loads it afresh
+	 */
+	public static synchronized void end() {
+		current = null;
+	}
+	
+	
+	/**
+	 * Gets the UserModel of the session, loading it from the DB the first time
+	 * 
+	 * @return a UserModel representing the user's info
+	 */
+	public synchronized UserModel getUserModel() {
+		if (this.userModel == null) {
+			this.userModel = new UserModel();
+		}
+		
+		return this.userModel;
+	}
+	
+	
+	/**
+	 * Gets the PasswordModel of the session, loading it from the file system the first time
+	 * 
+	 * @return a PasswordModel representing the user's password
+	 */
+	public synchronized PasswordModel getPasswordModel() {
+		if (this.passwordModel == null) {
+			this.passwordModel = new PasswordModel();
+		}
+		
+		return this.passwordModel;
+	}
+
+}
\ No newline at end of file
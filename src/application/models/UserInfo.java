@@ -0,0 +1,65 @@
+package application.models;
+
+/**
+ * An immutable snapshot of the row of user info stored in the DB.
+ * Changing a field makes a new snapshot, so a snapshot can be shared between threads without copying.
+ */
+public class UserInfo {
+	private final String securityQuestion;
+	private final String securityQuestionAnswer;
+	
+	
+	/**
+	 * Constructs a new snapshot of the user info
+	 * 
+	 * @param securityQuestion the user's security question
+	 * @param securityQuestionAnswer the answer to the user's security question
+	 */
+	public UserInfo(String securityQuestion, String securityQuestionAnswer) {
+		this.securityQuestion = securityQuestion;
+		this.securityQuestionAnswer = securityQuestionAnswer;
+	}
+	
+	
+	/**
+	 * Gets the user's security question
+	 * 
+	 * @return the user's security question
+	 */
+	public String getSecurityQuestion() {
+		return this.securityQuestion;
+	}
+	
+	
+	/**
+	 * Gets the answer to the user's security question
+	 * 
+	 * @return the answer to the user's security question
+	 */
+	public String getSecurityQuestionAnswer() {
+		return this.securityQuestionAnswer;
+	}
+	
+	
+	/**
+	 * Makes a copy of the snapshot with a different security question
+	 * 
+	 * @param newSecurityQuestion the new security question
+	 * @return the new snapshot
+	 */
+	public UserInfo withSecurityQuestion(String newSecurityQuestion) {
+		return new UserInfo(newSecurityQuestion, this.securityQuestionAnswer);
+	}
+	
+	
+	/**
+	 * Makes a copy of the snapshot with a different answer to the security question
+	 * 
+	 * @param newSecurityQuestionAnswer the new answer to the security question
+	 * @return the new snapshot
+	 */
+	public UserInfo withSecurityQuestionAnswer(String newSecurityQuestionAnswer) {
+		return new UserInfo(this.securityQuestion, newSecurityQuestionAnswer);
+	}
+
+}
\ No newline at end of file
@@ -7,17 +7,32 @@ import application.dal.UserDAO;
  * checking and changing the stored user info
  */
 public class UserModel {	
-	private String securityQuestion;
-	private String securityQuestionAnswer;
+	// replaced by the background task that changes the password, while read on the JavaFX Application Thread
+	private volatile UserInfo userInfo;
 	
 	
 	/**
 	 * Creates a new user model
 	 */
 	public UserModel() {
-		// initialize model to reflect DB
+		// initialize model to reflect DB, reading the row of user info only if no snapshot of it is cached
 		UserDAO userDAO = new UserDAO();
-		userDAO.updateUserModel(this);
+		this.userInfo = userDAO.getUserInfo();
+	}
+	
+	
+	/**
+	 * Gets the snapshot of the user info, reading it again if it could not be read before
+	 * 
+	 * @return the user info, or null if it still could not be read
+	 */
+	private UserInfo getUserInfo() {
+		if (this.userInfo == null) {
+			UserDAO userDAO = new UserDAO();
+			this.userInfo = userDAO.getUserInfo();
+		}
+		
+		return this.userInfo;
 	}
 	
 	
@@ -25,24 +40,29 @@ public class UserModel {
 	 * Overwrites the user's security question to a new question
 	 * 
 	 * @param newSecurityQuestion the user's new security question
+	 * @throws IllegalStateException if the security question could not be stored
 	 */
 	public void setSecurityQuestion(String newSecurityQuestion) {
 		// update in DB
 		UserDAO userDAO = new UserDAO();
-		userDAO.setSecurityQuestion(newSecurityQuestion);
+		if (!userDAO.setSecurityQuestion(newSecurityQuestion)) {
+			throw new IllegalStateException("Security question was not saved");
+		}
 		
-		// update model
-		this.securityQuestion = newSecurityQuestion;
+		// update model, unless it is read again from the DB anyway
+		UserInfo userInfo = this.getUserInfo();
+		this.userInfo = userInfo == null ? null : userInfo.withSecurityQuestion(newSecurityQuestion);
 	}
 	
 	
 	/**
 	 * Gets the security question set by the user
 	 * 
-	 * @return the user's security question
+	 * @return the user's security question, empty if it could not be read
 	 */
 	public String getSecurityQuestion() {
-		return securityQuestion;
+		UserInfo userInfo = this.getUserInfo();
+		return userInfo == null ? "" : userInfo.getSecurityQuestion();
 	}
 	
 
@@ -50,25 +70,35 @@ public class UserModel {
 	 * Overwrites the answer to the user's security question to a new answer
 	 * 
 	 * @param answer the answer to the user's security question
+	 * @throws IllegalStateException if the answer could not be stored
 	 */
 	public void setSecurityQuestionAnswer(String answer) {
 		// update in DB
 		UserDAO userDAO = new UserDAO();
-		userDAO.setSecurityQuestionAnswer(answer);
+		if (!userDAO.setSecurityQuestionAnswer(answer)) {
+			throw new IllegalStateException("Security question answer was not saved");
+		}
 		
-		// update model
-		this.securityQuestionAnswer = answer;
+		// update model, unless it is read again from the DB anyway
+		UserInfo userInfo = this.getUserInfo();
+		this.userInfo = userInfo == null ? null : userInfo.withSecurityQuestionAnswer(answer);
 	}
 	
 	
 	/**
 	 * Checks if the entered answer matches the correct answer to the user's security question.
+	 * An answer is never correct if the user info could not be read or no answer was set.
 	 * 
 	 * @param enteredAnswer The entered answer to the security question.
 	 * @return Returns true if the entered answer matches the answer to the security questions. Otherwise, returns false.
 	 */
 	public boolean isCorrectSecurityQuestionAnswer(String enteredAnswer) {
-		boolean answerIsCorrect = enteredAnswer.equals(this.securityQuestionAnswer);
+		UserInfo userInfo = this.getUserInfo();
+		if (userInfo == null || userInfo.getSecurityQuestionAnswer() == null || userInfo.getSecurityQuestionAnswer().isEmpty()) {
+			return false;
+		}
+		
+		boolean answerIsCorrect = enteredAnswer.equals(userInfo.getSecurityQuestionAnswer());
 		return answerIsCorrect;
 	}
 }
\ No newline at end of file
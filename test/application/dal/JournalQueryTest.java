@@ -0,0 +1,191 @@
+package application.dal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests parsing the query language and planning the SQL it is compiled into,
+ * with and without the full-text index
+ */
+public class JournalQueryTest {
+	private static final String COLUMNS = "journal.id";
+	
+	
+	@Test
+	public void plainWordsAreMatchedAsPrefixes() {
+		assertEquals("(\"coffee\"* AND \"morning\"*)", matchOf("coffee morning"));
+		assertTrue(JournalQuery.parse("coffee morning").isPlainKeyword());
+	}
+	
+	
+	@Test
+	public void quotedPhrasesAreMatchedExactly() {
+		assertEquals("(\"coffee morning\")", matchOf("\"coffee morning\""));
+		assertEquals("(title : \"a day out\")", matchOf("title:\"a day out\""));
+		assertFalse(JournalQuery.parse("\"coffee morning\"").isPlainKeyword());
+	}
+	
+	
+	@Test
+	public void andBindsTighterThanOr() {
+		assertEquals("(((\"a\"* AND \"b\"*) OR \"c\"*))", matchOf("a b OR c"));
+		assertEquals("((\"a\"* OR \"b\"*) AND \"c\"*)", matchOf("(a OR b) c"));
+	}
+	
+	
+	@Test
+	public void notExcludesFromTheRest() {
+		assertEquals("(\"x\"*) NOT (\"a\"*)", matchOf("x -a"));
+		assertEquals("(\"x\"*) NOT (\"a\"*)", matchOf("x NOT a"));
+		assertEquals("(\"x\"*) NOT (\"a\"*) NOT (\"b\"*)", matchOf("x -a -b"));
+	}
+	
+	
+	@Test
+	public void nestedNotIsGrouped() {
+		// without the grouping FTS5 would read this as (x NOT a) NOT b
+		assertEquals("(\"x\"*) NOT ((\"a\"*) NOT (\"b\"*))", matchOf("x -(a -b)"));
+		assertEquals("(\"x\"*) NOT ((\"a\"* OR \"b\"*))", matchOf("x -(a OR b)"));
+	}
+	
+	
+	@Test
+	public void onlyNotsAreFilteredOutsideTheFullTextIndex() {
+		List<Object> params = new ArrayList<>();
+		String sql = JournalQuery.parse("-a").toSql(COLUMNS, 10, params, true);
+		
+		assertFalse(sql.contains("journal_fts MATCH ? AND"));
+		assertTrue(sql.contains("NOT journal.id IN (SELECT rowid FROM journal_fts WHERE journal_fts MATCH ?)"));
+		assertEquals(Arrays.asList("\"a\"*", 10), params);
+	}
+	
+	
+	@Test
+	public void fieldsAreFilteredBesideTheMatch() {
+		List<Object> params = new ArrayList<>();
+		String sql = JournalQuery.parse("coffee after:2020-03 time:9-17").toSql(COLUMNS, 10, params, true);
+		
+		assertTrue(sql.contains("WHERE journal_fts MATCH ? AND (journal.date >= ? AND (journal.hour * 60 + journal.minute) BETWEEN ? AND ?)"));
+		assertEquals(Arrays.asList("(\"coffee\"*)", "2020-03-01", 540, 1079, 10), params);
+	}
+	
+	
+	@Test
+	public void timeRangesWrapPastMidnight() {
+		List<Object> params = new ArrayList<>();
+		String sql = JournalQuery.parse("time:22-02").toSql(COLUMNS, 10, params, true);
+		
+		assertTrue(sql.contains(">= ? OR (journal.hour * 60 + journal.minute) <= ?"));
+		assertEquals(Arrays.asList(1320, 179, 10), params);
+	}
+	
+	
+	@Test
+	public void textIsMatchedWithLikeWithoutTheFullTextIndex() {
+		List<Object> params = new ArrayList<>();
+		String sql = JournalQuery.parse("x -(a -b)").toSql(COLUMNS, 10, params, false);
+		
+		assertFalse(sql.contains("MATCH"));
+		assertEquals("((journal.title LIKE ? ESCAPE '\\' OR journal.context LIKE ? ESCAPE '\\') AND NOT ((journal.title LIKE ? ESCAPE '\\' "
+				+ "OR journal.context LIKE ? ESCAPE '\\') AND NOT (journal.title LIKE ? ESCAPE '\\' OR journal.context LIKE ? ESCAPE '\\')))",
+				sql.substring(sql.indexOf("WHERE ") + 6, sql.indexOf(" ORDER BY")));
+		assertEquals(Arrays.asList("%x%", "%x%", "%a%", "%a%", "%b%", "%b%", 10), params);
+	}
+	
+	
+	@Test
+	public void likePatternsEscapeWildcards() {
+		List<Object> params = new ArrayList<>();
+		JournalQuery.parse("100%_done").toSql(COLUMNS, 10, params, false);
+		
+		assertEquals("%100\\%\\_done%", params.get(0));
+	}
+	
+	
+	@Test
+	public void nestedNotIsScoredLikeTheFullTextIndex() {
+		JournalQuery query = JournalQuery.parse("x -(a -b)");
+		
+		assertTrue(scoreOf(query, "x a b") >= 0);
+		assertTrue(scoreOf(query, "x b") >= 0);
+		assertTrue(scoreOf(query, "x") >= 0);
+		assertTrue(scoreOf(query, "x a") < 0);
+		assertTrue(scoreOf(query, "a b") < 0);
+	}
+	
+	
+	@Test
+	public void phrasesAreScoredAsWholeWordsInOrder() {
+		JournalQuery query = JournalQuery.parse("\"coffee morning\"");
+		
+		assertTrue(scoreOf(query, "a coffee morning out") > 0);
+		assertTrue(scoreOf(query, "morning coffee") < 0);
+		assertTrue(scoreOf(query, "coffee mornings") < 0);
+	}
+	
+	
+	@Test
+	public void malformedQueriesAreRejected() {
+		for (String text : new String[] { "(a", "a)", "a OR", "NOT", "\"\"", "title:", "after:2020-13", "time:25", "time:1-2-3" }) {
+			try {
+				JournalQuery.parse(text);
+				fail("Parsed " + text);
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+	
+	
+	@Test
+	public void nestingIsLimited() {
+		assertEquals("(\"a\"*)", matchOf(repeat("(", JournalQuery.MAX_DEPTH) + "a" + repeat(")", JournalQuery.MAX_DEPTH)));
+		
+		for (String text : new String[] {
+				repeat("(", JournalQuery.MAX_DEPTH + 1) + "a" + repeat(")", JournalQuery.MAX_DEPTH + 1),
+				repeat("(", 100000) + "a",
+				repeat("-", 100000) + "a",
+				repeat("NOT ", 100000) + "a" }) {
+			try {
+				JournalQuery.parse(text);
+				fail("Parsed a query nested " + text.length() + " deep");
+			} catch (IllegalArgumentException ex) {
+				assertTrue(ex.getMessage().contains("deep"));
+			}
+		}
+	}
+	
+	
+	/**
+	 * Gets the MATCH expression the full-text index is searched with for a query
+	 */
+	private static String matchOf(String text) {
+		List<Object> params = new ArrayList<>();
+		String sql = JournalQuery.parse(text).toSql(COLUMNS, 10, params, true);
+		assertTrue(sql, sql.contains("WHERE journal_fts MATCH ?"));
+		return (String) params.get(0);
+	}
+	
+	
+	private static double scoreOf(JournalQuery query, String context) {
+		return query.score(new TokenizedText(null), new TokenizedText(context), "2024-01-01", 12, 0);
+	}
+	
+	
+	private static String repeat(String text, int count) {
+		StringBuilder repeated = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			repeated.append(text);
+		}
+		return repeated.toString();
+	}
+
+}
\ No newline at end of file
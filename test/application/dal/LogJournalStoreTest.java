@@ -0,0 +1,279 @@
+package application.dal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import application.models.JournalModel;
+
+/**
+ * Tests that the journal log is rebuilt from its segment files after it is closed or cut short by a crash,
+ * and that compaction keeps every current journal entry
+ */
+public class LogJournalStoreTest {
+	private static final int SEGMENT_SIZE = 256;
+	
+	private Path directory;
+	private LogJournalStore store;
+	
+	
+	@Before
+	public void createDirectory() throws IOException {
+		this.directory = Files.createTempDirectory("journalicious-log");
+	}
+	
+	
+	@After
+	public void deleteDirectory() throws IOException {
+		if (this.store != null) {
+			this.store.close();
+		}
+		try (Stream<Path> files = Files.walk(this.directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+	
+	
+	@Test
+	public void writesAreReplayedWhenReopened() throws IOException {
+		this.store = this.open();
+		int first = this.store.createJournal("First", "2024-01-01", 9, 30, "one");
+		int second = this.store.createJournal("Second", "2024-01-02", 10, 0, "two");
+		int third = this.store.createJournal("Third", "2024-01-03", 11, 15, null);
+		this.store.updateJournal(new JournalModel(second, "Second again", "2024-01-02", 10, 5, "two again"));
+		this.store.deleteJournal(first);
+		
+		this.reopen();
+		assertEquals(2, this.store.countJournals());
+		assertNull(this.store.getJournal(first));
+		assertJournal(this.store.getJournal(second), "Second again", 5, "two again");
+		assertJournal(this.store.getJournal(third), "Third", 15, null);
+		
+		// ids of deleted journal entries are not assigned again
+		assertTrue(this.store.createJournal("Fourth", "2024-01-04", 12, 0, "four") > third);
+	}
+	
+	
+	@Test
+	public void tornRecordsAreErased() throws IOException {
+		this.store = this.open();
+		int id = this.store.createJournal("Kept", "2024-01-01", 9, 30, "kept");
+		this.store.close();
+		this.store = null;
+		
+		// a record whose length never reached the disk, and stray bytes further on
+		Path file = this.segmentFiles().get(0);
+		int end = endOf(file);
+		write(file, end + 4, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+		write(file, end + 200, new byte[] { 9 });
+		
+		this.store = this.open();
+		assertEquals(1, this.store.countJournals());
+		this.store.close();
+		this.store = null;
+		assertEquals(end, endOf(file));
+		
+		// a batch appended over the erased bytes is read back whole
+		this.store = this.open();
+		int next = this.store.createJournal("Appended", "2024-01-02", 10, 0, "appended");
+		this.reopen();
+		assertEquals(2, this.store.countJournals());
+		assertJournal(this.store.getJournal(id), "Kept", 30, "kept");
+		assertJournal(this.store.getJournal(next), "Appended", 0, "appended");
+	}
+	
+	
+	@Test
+	public void uncommittedBatchesAreDropped() throws IOException {
+		this.store = this.open();
+		int id = this.store.createJournal("Kept", "2024-01-01", 9, 30, "kept");
+		this.store.close();
+		this.store = null;
+		
+		// the write of a second batch reached the disk but its commit did not
+		Path file = this.segmentFiles().get(0);
+		int end = endOf(file);
+		this.store = this.open();
+		this.store.createJournal("Lost", "2024-01-02", 10, 0, "lost");
+		this.store.close();
+		this.store = null;
+		int committed = endOf(file);
+		write(file, committed - 13, new byte[13]);
+		
+		this.store = this.open();
+		assertEquals(1, this.store.countJournals());
+		assertJournal(this.store.getJournal(id), "Kept", 30, "kept");
+		this.store.close();
+		this.store = null;
+		assertEquals(end, endOf(file));
+	}
+	
+	
+	@Test
+	public void unfinishedSegmentsAreDeleted() throws IOException {
+		this.store = this.open();
+		int id = this.store.createJournal("Kept", "2024-01-01", 9, 30, "kept");
+		this.store.close();
+		this.store = null;
+		
+		// a new segment and a merged segment whose creation was cut short
+		Path created = this.directory.resolve("journals-000002-0.segment.tmp");
+		Path merged = this.directory.resolve("journals-000001-1.segment.tmp");
+		Files.write(created, new byte[SEGMENT_SIZE]);
+		Files.write(merged, new byte[SEGMENT_SIZE]);
+		
+		this.store = this.open();
+		assertFalse(Files.exists(created));
+		assertFalse(Files.exists(merged));
+		assertEquals(1, this.segmentFiles().size());
+		assertJournal(this.store.getJournal(id), "Kept", 30, "kept");
+	}
+	
+	
+	@Test
+	public void compactionKeepsCurrentJournals() throws IOException {
+		this.store = this.open();
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			ids.add(this.store.createJournal("Title " + i, "2024-01-01", i, 0, "context " + i));
+		}
+		this.store.deleteJournals(Arrays.asList(ids.get(0), ids.get(5)));
+		int segmentCount = this.segmentFiles().size();
+		assertTrue(segmentCount > 2);
+		
+		assertTrue(this.store.compact());
+		assertEquals(2, this.segmentFiles().size());
+		this.assertCompacted(ids);
+		
+		this.reopen();
+		assertEquals(2, this.segmentFiles().size());
+		this.assertCompacted(ids);
+	}
+	
+	
+	@Test
+	public void supersededSegmentsAreDeletedWhenReopened() throws IOException {
+		this.store = this.open();
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 12; i++) {
+			ids.add(this.store.createJournal("Title " + i, "2024-01-01", i, 0, "context " + i));
+		}
+		this.store.deleteJournals(Arrays.asList(ids.get(0), ids.get(5)));
+		
+		// keep copies of the merged segments, as if deleting them had been cut short
+		List<Path> merged = this.segmentFiles();
+		merged.remove(merged.size() - 1);
+		Path copies = Files.createDirectory(this.directory.resolve("copies"));
+		for (Path file : merged) {
+			Files.copy(file, copies.resolve(file.getFileName()));
+		}
+		assertTrue(this.store.compact());
+		this.store.close();
+		this.store = null;
+		for (Path file : merged) {
+			Files.move(copies.resolve(file.getFileName()), file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		this.store = this.open();
+		for (Path file : merged) {
+			assertFalse(Files.exists(file));
+		}
+		this.assertCompacted(ids);
+	}
+	
+	
+	private LogJournalStore open() throws IOException {
+		return new LogJournalStore(this.directory, SEGMENT_SIZE, true);
+	}
+	
+	
+	private void reopen() throws IOException {
+		this.store.close();
+		this.store = null;
+		this.store = this.open();
+	}
+	
+	
+	/**
+	 * Checks the journal entries written by the compaction tests, the first and sixth of which were deleted
+	 */
+	private void assertCompacted(List<Integer> ids) {
+		assertEquals(ids.size() - 2, this.store.countJournals());
+		for (int i = 0; i < ids.size(); i++) {
+			JournalModel journal = this.store.getJournal(ids.get(i));
+			if (i == 0 || i == 5) {
+				assertNull(journal);
+			}
+			else {
+				assertJournal(journal, "Title " + i, 0, "context " + i);
+			}
+		}
+	}
+	
+	
+	private List<Path> segmentFiles() throws IOException {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory)) {
+			for (Path file : entries) {
+				if (LogSegment.isSegment(file)) {
+					files.add(file);
+				}
+			}
+		}
+		// the sequence is zero-padded, so the names sort in the order of the log
+		files.sort(Comparator.comparing(Path::toString));
+		return files;
+	}
+	
+	
+	private static void assertJournal(JournalModel journal, String title, int minute, String context) {
+		assertEquals(title, journal.getTitle());
+		assertEquals(minute, journal.getMinute());
+		assertEquals(context, journal.getContext());
+	}
+	
+	
+	/**
+	 * Finds where the bytes written to a closed segment file end
+	 */
+	private static int endOf(Path file) throws IOException {
+		LogSegment segment = LogSegment.open(file);
+		try {
+			return segment.endOfWritten(LogSegment.HEADER_SIZE);
+		} finally {
+			segment.close();
+		}
+	}
+	
+	
+	private static void write(Path file, int offset, byte[] bytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, offset + buffer.position());
+			}
+		}
+	}
+
+}
\ No newline at end of file
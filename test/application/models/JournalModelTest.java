@@ -0,0 +1,47 @@
+package application.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import application.dal.QueryCancellation;
+
+/**
+ * Tests that searching journal entries through the shared cache returns what each kind of search finds,
+ * whatever was searched for before
+ */
+public class JournalModelTest {
+	
+	@Before
+	public void useMemoryStore() {
+		// read the first time a journal store is needed, so it must be set before any journal is written
+		System.setProperty("journalicious.store", "memory");
+	}
+	
+	
+	@Test
+	public void fuzzyFallbackIsNotCachedAsExactMatches() {
+		JournalModel.createJournal("Breakfast", "2024-01-01", 8, 0, "pancakes with syrup");
+		
+		// a misspelled keyword finds nothing as typed, so similar words are searched for instead
+		List<JournalSummary> streamed = new ArrayList<>();
+		JournalModel.streamJournalSummariesAsync("pancaeks", streamed::addAll, new QueryCancellation()).join();
+		assertEquals(1, streamed.size());
+		assertEquals("Breakfast", streamed.get(0).getTitle());
+		
+		// the exact search of the same keyword still finds nothing, with the fuzzy result cached or not
+		assertTrue(JournalModel.getJournalSummaries("pancaeks").isEmpty());
+		assertEquals(1, JournalModel.getJournalSummaries("pancakes").size());
+		
+		// and the fuzzy result is handed over from the cache the second time
+		streamed.clear();
+		JournalModel.streamJournalSummariesAsync("pancaeks", streamed::addAll, new QueryCancellation()).join();
+		assertEquals(1, streamed.size());
+	}
+
+}
\ No newline at end of file